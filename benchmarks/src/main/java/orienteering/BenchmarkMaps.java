@@ -0,0 +1,140 @@
+package orienteering;
+
+/**
+ * Class BenchmarkMaps is a helper class for the benchmarks. It finds the
+ * shipped input files and builds synthetic maps of any size by tiling the
+ * shipped terrain and elevation, mirroring every other tile so the seams
+ * line up. Out of bounds acres become open land on synthetic maps so the
+ * tiles join into one large map instead of many islands.
+ *
+ * The directory holding terrain.png, mpp.txt and course.txt is taken from
+ * the orienteering.data system property, then ./data, then ../data.
+ */
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class BenchmarkMaps {
+
+	// Name of the map size parameter value that means the shipped map
+	static final String SHIPPED = "shipped";
+
+	/*
+	 * Returns the path of a shipped input file
+	 */
+	static String file(String name) {
+		String dir = System.getProperty("orienteering.data");
+		if(dir == null) {
+			dir = Files.isDirectory(Paths.get("data")) ? "data" : "../data";
+		}
+		return Paths.get(dir, name).toString();
+	}
+
+	/*
+	 * Loads the shipped terrain for the given season
+	 */
+	static TerrainGrid terrain(String season) {
+		return Orienteering.loadTerrain(file("terrain.png"), elevation(), season);
+	}
+
+	/*
+	 * Loads the shipped elevations
+	 */
+	static ElevationGrid elevation() {
+		return Orienteering.loadElevation(file("mpp.txt"));
+	}
+
+	/*
+	 * Loads the shipped controls as x, y pairs
+	 */
+	static int[] course() {
+		return Orienteering.loadCourse(file("course.txt"));
+	}
+
+	/*
+	 * Returns the shipped summer terrain, or a synthetic one of size by size acres
+	 */
+	static TerrainGrid terrainOfSize(String size) {
+		TerrainGrid terrain = terrain("summer");
+		if(SHIPPED.equals(size)) {
+			return terrain;
+		}
+		int n = Integer.parseInt(size);
+		byte[] classes = new byte[n * n];
+		for(int y=0; y<n; y++) {
+			int sy = mirror(y, terrain.height);
+			for(int x=0; x<n; x++) {
+				byte c = terrain.get(mirror(x, terrain.width), sy);
+				classes[(y * n) + x] = (c == TerrainGrid.OUT_OF_BOUNDS) ? TerrainGrid.OPEN_LAND : c;
+			}
+		}
+		return new TerrainGrid(n, n, classes);
+	}
+
+	/*
+	 * Returns elevations lined up with terrainOfSize, tiled with the width of the terrain
+	 */
+	static ElevationGrid elevationOfSize(String size) {
+		ElevationGrid elGrid = elevation();
+		if(SHIPPED.equals(size)) {
+			return elGrid;
+		}
+		int tileWidth = terrain("summer").width;
+		int n = Integer.parseInt(size);
+		float[] values = new float[n * n];
+		for(int y=0; y<n; y++) {
+			int sy = mirror(y, elGrid.height);
+			for(int x=0; x<n; x++) {
+				values[(y * n) + x] = elGrid.get(mirror(x, tileWidth), sy);
+			}
+		}
+		return new ElevationGrid(n, n, values);
+	}
+
+	/*
+	 * Writes elevations in the format of mpp.txt, returning the shipped file itself for the shipped size
+	 */
+	static Path elevationFile(String size) throws IOException {
+		if(SHIPPED.equals(size)) {
+			return Paths.get(file("mpp.txt"));
+		}
+		ElevationGrid elGrid = elevationOfSize(size);
+		Path path = Files.createTempFile("mpp-" + size + "-", ".txt");
+		path.toFile().deleteOnExit();
+		try(BufferedWriter out = Files.newBufferedWriter(path)) {
+			StringBuilder row = new StringBuilder();
+			for(int y=0; y<elGrid.height; y++) {
+				row.setLength(0);
+				for(int x=0; x<elGrid.width; x++) {
+					row.append("   ").append(elGrid.get(x, y));
+				}
+				out.write(row.append('\n').toString());
+			}
+		}
+		return path;
+	}
+
+	/*
+	 * Returns a long leg across a synthetic map as x1, y1, x2, y2. It runs from the first
+	 * control of the shipped course to the same control in the farthest unmirrored tile.
+	 */
+	static int[] longLeg(int n, int tileWidth, int tileHeight) {
+		int[] controls = course();
+		int x = controls[0];
+		int y = controls[1];
+		int tx = ((n - 1 - x) / tileWidth) & ~1;
+		int ty = ((n - 1 - y) / tileHeight) & ~1;
+		return new int[] {x, y, x + (tx * tileWidth), y + (ty * tileHeight)};
+	}
+
+	/*
+	 * Maps a coordinate on a synthetic map to the shipped map, reflecting every odd tile
+	 */
+	static int mirror(int i, int size) {
+		int tile = i / size;
+		int offset = i % size;
+		return (tile % 2 == 0) ? offset : size - 1 - offset;
+	}
+}
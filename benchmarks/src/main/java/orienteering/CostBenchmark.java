@@ -0,0 +1,93 @@
+package orienteering;
+
+/**
+ * Class CostBenchmark measures the throughput of the functions called for
+ * every edge a search relaxes: travelTime computed from the grids, the
+ * same cost read back from the EdgeCostTable, and the minTTime heuristic.
+ * Each invocation covers all eight edges of a fixed set of random acres.
+ */
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CostBenchmark {
+
+	// Number of acres whose edges are costed per invocation
+	static final int ACRES = 1024;
+	static final int EDGES = ACRES * 8;
+
+	ElevationGrid elGrid;
+	TerrainGrid terrain;
+	EdgeCostTable costs;
+	int[] xs;
+	int[] ys;
+
+	@Setup
+	public void setup() {
+		elGrid = BenchmarkMaps.elevation();
+		terrain = BenchmarkMaps.terrain("summer");
+		costs = new EdgeCostTable(elGrid, terrain);
+		costs.buildAll();
+		// Interior acres only, so every neighbour is on the map
+		Random random = new Random(42);
+		xs = new int[ACRES];
+		ys = new int[ACRES];
+		for(int i=0; i<ACRES; i++) {
+			xs[i] = 1 + random.nextInt(terrain.width - 2);
+			ys[i] = 1 + random.nextInt(terrain.height - 2);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EDGES)
+	public double travelTime() {
+		double sum = 0;
+		for(int i=0; i<ACRES; i++) {
+			for(int d=0; d<8; d++) {
+				sum += Orienteering.travelTime(elGrid, terrain, xs[i], ys[i], xs[i] + Orienteering.DX[d], ys[i] + Orienteering.DY[d]);
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EDGES)
+	public double edgeCostTable() {
+		double sum = 0;
+		for(int i=0; i<ACRES; i++) {
+			for(int d=0; d<8; d++) {
+				sum += costs.cost(xs[i], ys[i], d);
+			}
+		}
+		return sum;
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(EDGES)
+	public double minTTime() {
+		double sum = 0;
+		for(int i=0; i<ACRES; i++) {
+			for(int d=0; d<8; d++) {
+				sum += Orienteering.minTTime(xs[i], ys[i], xs[i] + Orienteering.DX[d], ys[i] + Orienteering.DY[d]);
+			}
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,101 @@
+package orienteering;
+
+/**
+ * Class ElevationBenchmark compares loading an elevation file the way
+ * Orienteering used to, reading the whole file into a String and
+ * splitting it into tokens, against the streaming ElevationParser. It
+ * prints the best load time and the peak heap used by each approach.
+ *
+ * Usage: java -cp benchmarks.jar orienteering.ElevationBenchmark elevation [iterations]
+ */
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class ElevationBenchmark {
+
+	/*
+	 * Main function
+	 */
+	public static void main(String[] args) throws IOException {
+		if(args.length < 1) {
+			System.err.println("Usage: ElevationBenchmark elevation [iterations]");
+			System.exit(1);
+		}
+		Path path = Paths.get(args[0]);
+		int iterations = (args.length > 1) ? Integer.parseInt(args[1]) : 10;
+
+		System.out.println("File: " + path + " (" + Files.size(path) + " bytes)");
+		for(int round=0; round<2; round++) {
+			// First round only warms up the JIT
+			boolean report = round == 1;
+			measure("split", path, iterations, false, report);
+			measure("streaming", path, iterations, true, report);
+		}
+	}
+
+	/*
+	 * Loads the file iterations times and reports the fastest load and the peak heap
+	 */
+	static void measure(String name, Path path, int iterations, boolean streaming, boolean report) throws IOException {
+		long best = Long.MAX_VALUE;
+		long peak = 0;
+		float checksum = 0;
+		for(int i=0; i<iterations; i++) {
+			long baseline = settleHeap();
+			long start = System.nanoTime();
+			ElevationGrid grid = streaming ? ElevationParser.load(path) : loadSplit(path);
+			long elapsed = System.nanoTime() - start;
+			best = Math.min(best, elapsed);
+			peak = Math.max(peak, peakHeap() - baseline);
+			checksum += grid.get(grid.width - 1, grid.height - 1);
+		}
+		if(report) {
+			System.out.printf("%-10s best %8.2f ms   peak heap %8.2f MB   (checksum %.3f)%n",
+					name, best / 1e6, peak / (1024.0 * 1024.0), checksum);
+		}
+	}
+
+	/*
+	 * The original load path: whole file to a String, split on whitespace, then parse
+	 */
+	static ElevationGrid loadSplit(Path path) throws IOException {
+		String elevation = new String(Files.readAllBytes(path));
+		String[] lines = elevation.trim().split("\n");
+		String[] elArray = elevation.trim().split("\\s+");
+		int width = lines[0].trim().split("\\s+").length;
+		return ElevationGrid.parse(elArray, width, elArray.length / width);
+	}
+
+	/*
+	 * Collects garbage and resets the heap pool peaks, returning the heap in use afterwards
+	 */
+	static long settleHeap() {
+		System.gc();
+		long used = 0;
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if(pool.getType() == MemoryType.HEAP) {
+				pool.resetPeakUsage();
+				used += pool.getUsage().getUsed();
+			}
+		}
+		return used;
+	}
+
+	/*
+	 * Returns the sum of the peak usage of every heap pool since the last reset
+	 */
+	static long peakHeap() {
+		long peak = 0;
+		for(MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			if(pool.getType() == MemoryType.HEAP) {
+				peak += pool.getPeakUsage().getUsed();
+			}
+		}
+		return peak;
+	}
+}
@@ -0,0 +1,71 @@
+package orienteering;
+
+/**
+ * Class MatrixBenchmark times finding the travel time between every pair
+ * of controls of the shipped course, with one CostMatrix sweep per
+ * control against a landmark A* search for every pair.
+ */
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+
+	@Param({"1", "4"})
+	int threads;
+
+	EdgeCostTable costs;
+	Heuristic h;
+	int[] controls;
+	ForkJoinPool pool;
+
+	@Setup
+	public void setup() {
+		costs = new EdgeCostTable(BenchmarkMaps.elevation(), BenchmarkMaps.terrain("summer"));
+		costs.buildAll();
+		h = SearchBenchmark.heuristic(costs, "landmarks");
+		controls = BenchmarkMaps.course();
+		pool = new ForkJoinPool(threads);
+	}
+
+	@TearDown
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public CostMatrix sweeps() {
+		return CostMatrix.build(costs, controls, pool);
+	}
+
+	@Benchmark
+	public double pairwise() {
+		double total = 0;
+		int n = controls.length / 2;
+		for(int i=0; i<n; i++) {
+			for(int j=0; j<n; j++) {
+				total += Orienteering.aStarSearch(costs, h, controls[i*2], controls[(i*2)+1], controls[j*2], controls[(j*2)+1],
+						Orienteering.FORWARD, null).get(0).g;
+			}
+		}
+		return total;
+	}
+}
@@ -0,0 +1,74 @@
+package orienteering;
+
+/**
+ * Class ParsingBenchmark times loading an elevation file with the streaming
+ * ElevationParser, on the shipped mpp.txt and on synthetic files of the
+ * same format. Synthetic files are written to a temporary directory once
+ * per trial and deleted when the fork exits.
+ *
+ * The old split based loader is only compared on the shipped file, since
+ * it needs several gigabytes to split the larger files. ElevationBenchmark
+ * compares the two on any file, including their peak heap.
+ */
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ParsingBenchmark {
+
+	/*
+	 * The shipped file or a synthetic file of size by size elevations
+	 */
+	@State(Scope.Benchmark)
+	public static class Sized {
+		@Param({BenchmarkMaps.SHIPPED, "2000", "8000"})
+		String size;
+
+		Path file;
+
+		@Setup
+		public void setup() throws IOException {
+			file = BenchmarkMaps.elevationFile(size);
+		}
+	}
+
+	@Benchmark
+	public ElevationGrid streaming(Sized sized) throws IOException {
+		return ElevationParser.load(sized.file);
+	}
+
+	/*
+	 * The split loader on the shipped file, for comparison with streaming
+	 */
+	@State(Scope.Benchmark)
+	public static class Shipped {
+		Path file;
+
+		@Setup
+		public void setup() throws IOException {
+			file = BenchmarkMaps.elevationFile(BenchmarkMaps.SHIPPED);
+		}
+	}
+
+	@Benchmark
+	public ElevationGrid splitShipped(Shipped shipped) throws IOException {
+		return ElevationBenchmark.loadSplit(shipped.file);
+	}
+}
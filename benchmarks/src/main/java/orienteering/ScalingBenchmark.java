@@ -0,0 +1,63 @@
+package orienteering;
+
+/**
+ * Class ScalingBenchmark times one long leg across synthetic maps built by
+ * tiling the shipped map, to track how search cost grows with map size.
+ * The leg runs corner to corner across most of the map.
+ *
+ * The 8000 by 8000 map needs a few gigabytes for the edge cost table and
+ * the per search arrays, so the fork is given a large heap.
+ */
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx12g"})
+public class ScalingBenchmark {
+
+	@Param({"2000", "8000"})
+	String size;
+
+	@Param({"distance", "landmarks"})
+	String heuristic;
+
+	@Param({"forward", "hierarchical", "hierarchical-exact"})
+	String mode;
+
+	EdgeCostTable costs;
+	Heuristic h;
+	int searchMode;
+	int[] leg;
+
+	@Setup
+	public void setup() {
+		TerrainGrid shipped = BenchmarkMaps.terrain("summer");
+		costs = new EdgeCostTable(BenchmarkMaps.elevationOfSize(size), BenchmarkMaps.terrainOfSize(size));
+		costs.buildAll();
+		h = SearchBenchmark.heuristic(costs, heuristic);
+		searchMode = SearchBenchmark.mode(mode);
+		SearchBenchmark.prepare(costs, searchMode);
+		leg = BenchmarkMaps.longLeg(costs.width, shipped.width, shipped.height);
+	}
+
+	@Benchmark
+	public ArrayList<Node> search() {
+		return Orienteering.aStarSearch(costs, h, leg[0], leg[1], leg[2], leg[3], searchMode, null);
+	}
+}
@@ -0,0 +1,121 @@
+package orienteering;
+
+/**
+ * Class SearchBenchmark times aStarSearch on each leg of the shipped
+ * course, for each heuristic and search mode. The edge cost table is
+ * filled and the landmarks are built once per trial, so only the search
+ * itself is measured.
+ *
+ * Run one leg only with: java -jar benchmarks.jar SearchBenchmark -p leg=3
+ */
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SearchBenchmark {
+
+	@Param({"0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12", "13", "14", "15", "16", "17"})
+	int leg;
+
+	@Param({"minTTime", "distance", "landmarks"})
+	String heuristic;
+
+	@Param({"forward", "bidirectional", "jump", "hierarchical", "hierarchical-exact", "contraction", "anytime"})
+	String mode;
+
+	@Param({"summer"})
+	String season;
+
+	EdgeCostTable costs;
+	Heuristic h;
+	int searchMode;
+	int x1, y1, x2, y2;
+
+	@Setup
+	public void setup() {
+		costs = new EdgeCostTable(BenchmarkMaps.elevation(), BenchmarkMaps.terrain(season));
+		costs.buildAll();
+		h = heuristic(costs, heuristic);
+		searchMode = mode(mode);
+		prepare(costs, searchMode);
+		int[] controls = BenchmarkMaps.course();
+		x1 = controls[leg * 2];
+		y1 = controls[(leg * 2) + 1];
+		x2 = controls[(leg * 2) + 2];
+		y2 = controls[(leg * 2) + 3];
+	}
+
+	@Benchmark
+	public ArrayList<Node> search() {
+		return Orienteering.aStarSearch(costs, h, x1, y1, x2, y2, searchMode, null);
+	}
+
+	/*
+	 * Returns the heuristic with the given name
+	 */
+	static Heuristic heuristic(EdgeCostTable costs, String name) {
+		switch(name) {
+			case "minTTime":
+				return Orienteering::minTTime;
+			case "distance":
+				return new DistanceHeuristic(costs.terrain);
+			case "landmarks":
+				return LandmarkHeuristic.build(costs, Orienteering.LANDMARKS, new DistanceHeuristic(costs.terrain));
+			default:
+				throw new IllegalArgumentException("Unknown heuristic " + name);
+		}
+	}
+
+	/*
+	 * Builds anything the search mode needs ahead of the timed searches
+	 */
+	static void prepare(EdgeCostTable costs, int searchMode) {
+		if(searchMode == Orienteering.HIERARCHICAL || searchMode == Orienteering.HIERARCHICAL_EXACT) {
+			costs.clusters(searchMode == Orienteering.HIERARCHICAL_EXACT);
+		}
+		if(searchMode == Orienteering.CONTRACTED) {
+			costs.awaitHierarchy();
+		}
+	}
+
+	/*
+	 * Returns the search mode with the given name
+	 */
+	static int mode(String name) {
+		switch(name) {
+			case "forward":
+				return Orienteering.FORWARD;
+			case "bidirectional":
+				return Orienteering.BIDIRECTIONAL;
+			case "jump":
+				return Orienteering.JUMP;
+			case "hierarchical":
+				return Orienteering.HIERARCHICAL;
+			case "hierarchical-exact":
+				return Orienteering.HIERARCHICAL_EXACT;
+			case "contraction":
+				return Orienteering.CONTRACTED;
+			case "anytime":
+				return Orienteering.ANYTIME;
+			default:
+				throw new IllegalArgumentException("Unknown mode " + name);
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package orienteering;
+
+/**
+ * Class SeasonBenchmark times each season transform on the shipped terrain
+ * and on synthetic terrains made by tiling it. Every invocation works on a
+ * fresh copy of the summer terrain, since the transforms change the grid
+ * in place; the copy is made outside the timed region. Spring also
+ * reads the elevations, tiled the same way.
+ */
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+public class SeasonBenchmark {
+
+	@Param({BenchmarkMaps.SHIPPED, "2000", "8000"})
+	String size;
+
+	TerrainGrid summer;
+	ElevationGrid elGrid;
+	TerrainGrid terrain;
+
+	@Setup(Level.Trial)
+	public void load() {
+		summer = BenchmarkMaps.terrainOfSize(size);
+		elGrid = BenchmarkMaps.elevationOfSize(size);
+	}
+
+	@Setup(Level.Invocation)
+	public void copy() {
+		terrain = summer.copy();
+	}
+
+	@Benchmark
+	public TerrainGrid fall() {
+		Orienteering.fallTerrain(terrain);
+		return terrain;
+	}
+
+	@Benchmark
+	public TerrainGrid winter() {
+		Orienteering.winterTerrain(terrain);
+		return terrain;
+	}
+
+	@Benchmark
+	public TerrainGrid spring() {
+		Orienteering.springTerrain(terrain, elGrid);
+		return terrain;
+	}
+}
@@ -0,0 +1,338 @@
+package orienteering;
+
+/**
+ * Class AnytimeSearch is a helper class for Orienteering. It is an
+ * anytime A* in the style of ARA*. A first path is found quickly with the
+ * heuristic weighted up by epsilon. Then epsilon is lowered and the search
+ * carries on from where it stopped, improving the path, until the time
+ * budget runs out, the path is proven close enough to optimal, or a pass
+ * with epsilon 1 is done.
+ *
+ * Travel times found are kept from one pass to the next. An acre expanded
+ * in a pass is not expanded again in that pass; when a shorter way to it
+ * turns up it is set aside, and at the end of the pass it goes back on
+ * the open list with every open acre, keyed with the new weight. So each
+ * pass only searches again what the lower weight changes.
+ *
+ * Each path comes with a proven bound on how many times longer than the
+ * shortest path it can be: its travel time over the smallest travel time
+ * plus lower bound of any acre still open or set aside. Some acre of the
+ * shortest path is always among those with its travel time already
+ * exact, so that smallest sum is at most the shortest travel time. This
+ * holds whatever heuristic guides the search, minTTime included, as long
+ * as the lower bound heuristic never overestimates.
+ *
+ * Usage: java AnytimeSearch terrain elevation course season [budget ms]
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class AnytimeSearch {
+
+		// Weight the heuristic starts at, and how much it is lowered after each pass
+		static final double EPSILON = 3;
+		static final double STEP = 0.5;
+
+		// Time a search in the anytime mode of Orienteering.aStarSearch may take once it has a path
+		static final long BUDGET = 5_000_000;
+
+		// Acres expanded between looks at the clock
+		static final int CLOCK = 64;
+
+		// States of an acre besides OPEN and CLOSED: expanded in this pass and since reached by a shorter
+		// way, and expanded in an earlier pass
+		static final byte SET_ASIDE = 3;
+		static final byte SETTLED = 4;
+
+		/*
+		 * Told of each path an anytime search finds, with the weight of the pass that found it, its proven
+		 * bound and the time since the search started
+		 */
+		public interface Listener {
+			void solution(ArrayList<Node> path, double cost, double epsilon, double bound, long nanos);
+		}
+
+		/*
+		 * Searches from x1, y1 to gx, gy guided by h weighted up by epsilon, proving bounds with lower, which
+		 * must never overestimate. Stops once a path is proven within target times the shortest, after the
+		 * pass with epsilon 1, or when the budget runs out, which never cuts the first pass short. Returns the
+		 * best path found and tells the listener, if not null, of every path along the way.
+		 */
+		public static ArrayList<Node> search(EdgeCostTable costs, Heuristic h, Heuristic lower, int x1, int y1, int gx, int gy,
+												double epsilon, double target, long budgetNanos, Listener listener, SearchStats stats) {
+			long startTime = System.nanoTime();
+			long expanded = 0;
+			long pushed = 1;
+			long rejected = 0;
+			long blocked = 0;
+			long edges = 0;
+			int peakOpen = 1;
+
+			int width = costs.width;
+			int height = costs.height;
+			SearchSpace space = SearchSpace.acquire(costs.map.cells(), 0);
+			IndexedHeap open = space.open;
+			double[] g = space.g;
+			int[] parent = space.parent;
+
+			// Acres expanded in this pass, and those of them set aside
+			int[] closed = new int[1024];
+			int closedCount = 0;
+			int[] aside = new int[256];
+			int asideCount = 0;
+
+			int startId = (y1 * width) + x1;
+			int goalId = (gy * width) + gx;
+			double eps = Math.max(1, epsilon);
+			g[startId] = 0;
+			parent[startId] = -1;
+			open.add(startId, eps * h.estimate(x1, y1, gx, gy));
+			space.setState(startId, Orienteering.OPEN);
+
+			int[] best = null;
+			double bestCost = Double.POSITIVE_INFINITY;
+			double bound = Double.POSITIVE_INFINITY;
+			boolean outOfTime = false;
+			while(true) {
+				// Expand until no open acre has a smaller key than the travel time to the goal
+				while(!open.isEmpty()) {
+					int qId = open.peek();
+					double goalG = (space.state(goalId) != 0) ? g[goalId] : Double.POSITIVE_INFINITY;
+					if(open.getKey(qId) >= goalG) {
+						break;
+					}
+					if(best != null && (expanded % CLOCK) == 0 && System.nanoTime() - startTime >= budgetNanos) {
+						outOfTime = true;
+						break;
+					}
+					open.poll();
+					space.setState(qId, Orienteering.CLOSED);
+					if(closedCount == closed.length) {
+						closed = Arrays.copyOf(closed, closedCount * 2);
+					}
+					closed[closedCount++] = qId;
+					expanded++;
+
+					int qx = qId % width;
+					int qy = qId / width;
+					for(int d=0; d<8; d++) {
+						int nx = qx + Orienteering.DX[d];
+						int ny = qy + Orienteering.DY[d];
+						if(nx < 0 || ny < 0 || nx >= width || ny >= height) {
+							continue;
+						}
+						int nId = (ny * width) + nx;
+						float t = costs.cost(qx, qy, d);
+						edges++;
+						if(t == Float.POSITIVE_INFINITY) {
+							blocked++;
+							continue;
+						}
+						double ng = g[qId] + t;
+						byte nState = space.state(nId);
+						if(nState != 0 && g[nId] <= ng) {
+							rejected++;
+							continue;
+						}
+						g[nId] = ng;
+						parent[nId] = qId;
+						pushed++;
+						if(nState == Orienteering.OPEN) {
+							open.decreaseKey(nId, ng + (eps * h.estimate(nx, ny, gx, gy)));
+						} else if(nState == Orienteering.CLOSED) {
+							// Not expanded again in this pass, but open again in the next
+							space.setState(nId, SET_ASIDE);
+							if(asideCount == aside.length) {
+								aside = Arrays.copyOf(aside, asideCount * 2);
+							}
+							aside[asideCount++] = nId;
+						} else if(nState != SET_ASIDE) {
+							open.add(nId, ng + (eps * h.estimate(nx, ny, gx, gy)));
+							space.setState(nId, Orienteering.OPEN);
+							peakOpen = Math.max(peakOpen, open.size());
+						}
+					}
+				}
+				if(space.state(goalId) == 0) {
+					// Everything reachable was expanded without finding the goal
+					break;
+				}
+
+				// Take the path if this pass improved it, following parents before they change again
+				boolean improved = false;
+				if(best == null || g[goalId] < bestCost) {
+					best = cells(parent, goalId);
+					bestCost = cost(costs, best);
+					improved = true;
+				}
+
+				// Everything still open or set aside is opened again for the next pass, and bounds the path
+				// They are all taken and added back with new keys, so the heap is read in whatever order it holds them
+				int pending = open.size() + asideCount;
+				int[] reopen = new int[pending];
+				int k = 0;
+				for(int i=0; i<open.size(); i++) {
+					reopen[k++] = open.get(i);
+				}
+				open.clear();
+				for(int i=0; i<asideCount; i++) {
+					reopen[k++] = aside[i];
+				}
+				double least = Double.POSITIVE_INFINITY;
+				for(int c : reopen) {
+					least = Math.min(least, g[c] + lower.estimate(c % width, c / width, gx, gy));
+				}
+				double proven = (bestCost <= least) ? 1 : (bestCost / least);
+				if(proven < bound) {
+					bound = proven;
+					improved = true;
+				}
+				if(listener != null && improved) {
+					listener.solution(buildPath(costs, h, best, gx, gy), bestCost, eps, bound, System.nanoTime() - startTime);
+				}
+				if(outOfTime || pending == 0 || bound <= target || eps <= 1 || System.nanoTime() - startTime >= budgetNanos) {
+					break;
+				}
+
+				// No point weighting the heuristic by more than the path is already proven to be within
+				eps = Math.max(1, Math.min(eps - STEP, bound));
+				for(int i=0; i<closedCount; i++) {
+					if(space.state(closed[i]) == Orienteering.CLOSED) {
+						space.setState(closed[i], SETTLED);
+					}
+				}
+				closedCount = 0;
+				asideCount = 0;
+				for(int c : reopen) {
+					open.add(c, g[c] + (eps * h.estimate(c % width, c / width, gx, gy)));
+					space.setState(c, Orienteering.OPEN);
+				}
+			}
+
+			if(stats != null) {
+				stats.expanded = expanded;
+				stats.pushed = pushed;
+				stats.rejected = rejected;
+				stats.blocked = blocked;
+				stats.edges = edges;
+				stats.peakOpen = peakOpen;
+				stats.nanos = System.nanoTime() - startTime;
+				stats.cost = bestCost;
+				stats.bound = bound;
+			}
+			if(best == null) {
+				return new ArrayList<Node>();
+			}
+			return buildPath(costs, h, best, gx, gy);
+		}
+
+		/*
+		 * Returns a heuristic that never overestimates for proving bounds of searches guided by h: h itself if it
+		 * is a distance or landmark heuristic, or else the distance heuristic the table keeps for its map
+		 */
+		static Heuristic lowerBound(EdgeCostTable costs, Heuristic h) {
+			if(h instanceof DistanceHeuristic || h instanceof LandmarkHeuristic) {
+				return h;
+			}
+			return costs.distance();
+		}
+
+		/*
+		 * Returns the cell ids of the path ending at goalId, following parents back to the start, from the start on
+		 */
+		private static int[] cells(int[] parent, int goalId) {
+			int length = 0;
+			for(int c=goalId; c!=-1; c=parent[c]) {
+				length++;
+			}
+			int[] cells = new int[length];
+			for(int c=goalId; c!=-1; c=parent[c]) {
+				cells[--length] = c;
+			}
+			return cells;
+		}
+
+		/*
+		 * Returns the travel time of the path through the given acres. Travel times of acres found earlier can
+		 * be larger than their parents now give, so the path is added up again rather than read from the goal.
+		 */
+		private static double cost(EdgeCostTable costs, int[] cells) {
+			double g = 0;
+			for(int i=1; i<cells.length; i++) {
+				int x = cells[i-1] % costs.width;
+				int y = cells[i-1] / costs.width;
+				g += costs.cost(x, y, BidirectionalSearch.direction((cells[i] % costs.width) - x, (cells[i] / costs.width) - y));
+			}
+			return g;
+		}
+
+		/*
+		 * Builds the Nodes of the path through the given acres, returned from the goal back to the start
+		 */
+		private static ArrayList<Node> buildPath(EdgeCostTable costs, Heuristic h, int[] cells, int gx, int gy) {
+			Node node = null;
+			double g = 0;
+			for(int i=0; i<cells.length; i++) {
+				int x = cells[i] % costs.width;
+				int y = cells[i] / costs.width;
+				if(node != null) {
+					g += costs.cost(node.x, node.y, BidirectionalSearch.direction(x - node.x, y - node.y));
+				}
+				node = new Node(x, y, g, h.estimate(x, y, gx, gy), node);
+			}
+			ArrayList<Node> path = new ArrayList<Node>(cells.length);
+			while(node != null) {
+				path.add(node);
+				node = node.parent;
+			}
+			return path;
+		}
+
+		/*
+		 * Main function: runs every leg of a course guided by minTTime within the budget, proving bounds with
+		 * the landmarks, and prints each path found with its weight, proven bound and how far it really is
+		 * from the shortest path
+		 */
+		public static void main(String[] args) {
+			if(args.length < 4 || args.length > 5) {
+				System.err.println("Usage: AnytimeSearch terrain elevation course season [budget ms]");
+				System.exit(1);
+			}
+			long budget = (args.length == 5) ? (long) (Double.parseDouble(args[4]) * 1e6) : BUDGET;
+			EdgeCostTable costs = Orienteering.loadCosts(args[0], args[1], args[3]);
+			int[] controls = Orienteering.loadCourse(args[2]);
+			Heuristic guide = Orienteering::minTTime;
+			Heuristic landmarks = Orienteering.loadLandmarks(costs, args[0], args[3]);
+			int legs = (controls.length / 2) - 1;
+
+			// Warm up the JIT before timing anything
+			for(int r=0; r<20; r++) {
+				for(int i=0; i<legs*2; i+=2) {
+					search(costs, guide, landmarks, controls[i], controls[i+1], controls[i+2], controls[i+3], EPSILON, 1, budget, null, null);
+				}
+			}
+
+			boolean sound = true;
+			SearchStats total = new SearchStats();
+			total.legs = 0;
+			double shortest = 0;
+			for(int leg=0; leg<legs; leg++) {
+				int i = leg * 2;
+				SearchStats exact = new SearchStats();
+				Orienteering.aStarSearch(costs, landmarks, controls[i], controls[i+1], controls[i+2], controls[i+3], Orienteering.FORWARD, exact);
+				shortest += exact.cost;
+				System.out.printf("leg %d, shortest %.4f%n", leg + 1, exact.cost);
+				SearchStats stats = new SearchStats();
+				search(costs, guide, landmarks, controls[i], controls[i+1], controls[i+2], controls[i+3], EPSILON, 1, budget,
+						(path, cost, eps, bound, nanos) -> System.out.printf("  %8.3f ms  epsilon %.2f  cost %.4f  bound %.4f  actual %.4f%n",
+								nanos / 1e6, eps, cost, bound, cost / exact.cost), stats);
+				sound &= stats.cost <= stats.bound * exact.cost * (1 + 1e-9);
+				total.add(stats);
+			}
+			System.out.printf("%nanytime: %s, within %.4f of the shortest %.4f%n", total, total.bound, shortest);
+			if(!sound) {
+				System.out.println("A path was further from the shortest than its proven bound");
+				System.exit(1);
+			}
+		}
+}
@@ -0,0 +1,478 @@
+package orienteering;
+
+/**
+ * Class BatchRunner solves many courses in one run. It reads a manifest
+ * of jobs, one per line as
+ *
+ *	terrain elevation course season output
+ *
+ * and writes path.png, directions.txt and metrics.json for each job into
+ * its own output folder. Blank lines and lines starting with # are
+ * skipped, and file names are taken relative to the manifest's folder.
+ *
+ * Each job passes through a graph of stages, each with its own threads:
+ * load reads the terrain image and elevations, season changes the map
+ * for the season and works out its edge costs and landmarks, solve runs
+ * the legs of the course, render draws the path and the directions, and
+ * write saves them. Loading and writing wait on the disk, so they have
+ * threads of their own and overlap with the searching of other jobs.
+ * A map is loaded once however many jobs use it, and changed for each
+ * season once however many courses are run on it. Each map and season
+ * is let go when the last job of the manifest using it is done with it,
+ * so a long manifest over many maps only holds the ones still in use.
+ * Each map and season is read back from a SeasonCache and landmark file
+ * when an earlier run saved one. Only so many jobs are started before
+ * earlier ones finish, so the run never holds more than that many paths
+ * and images at once.
+ */
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+public class BatchRunner {
+
+		// Threads reading and writing files
+		static final int IO_THREADS = 2;
+
+		/*
+		 * One line of the manifest
+		 */
+		static class Job {
+			final int line;
+			final String terrain;
+			final String elevation;
+			final String course;
+			final String season;
+			final Path output;
+
+			Job(int line, String terrain, String elevation, String course, String season, Path output) {
+				this.line = line;
+				this.terrain = terrain;
+				this.elevation = elevation;
+				this.course = course;
+				this.season = season.toLowerCase();
+				this.output = output;
+			}
+		}
+
+		/*
+		 * A map changed for a season, with its edge costs and heuristic
+		 */
+		static class SeasonMap {
+			final EdgeCostTable costs;
+			final Heuristic h;
+
+			SeasonMap(EdgeCostTable costs, Heuristic h) {
+				this.costs = costs;
+				this.h = h;
+			}
+		}
+
+		/*
+		 * The files of a finished job, ready to write
+		 */
+		static class Rendered {
+			final byte[] image;
+			final String directions;
+			final CourseMetrics metrics;
+
+			Rendered(byte[] image, String directions, CourseMetrics metrics) {
+				this.image = image;
+				this.directions = directions;
+				this.metrics = metrics;
+			}
+		}
+
+		private final ExecutorService loadPool;
+		private final ExecutorService seasonPool;
+		private final ForkJoinPool solvePool;
+		private final ExecutorService renderPool;
+		private final ExecutorService writePool;
+
+		// Bounds the jobs between starting and being written
+		private final Semaphore inFlight;
+
+		// Folder the season caches and landmarks are kept in
+		private final Path cacheDir;
+
+		// Maps loaded and changed for a season, shared by every job that uses them
+		private final ConcurrentHashMap<String, CompletableFuture<MapModel>> maps = new ConcurrentHashMap<String, CompletableFuture<MapModel>>();
+		private final ConcurrentHashMap<String, CompletableFuture<SeasonMap>> seasons = new ConcurrentHashMap<String, CompletableFuture<SeasonMap>>();
+
+		// Jobs not yet done with each map and season, which are let go when their count reaches 0
+		private final ConcurrentHashMap<String, Integer> mapUsers = new ConcurrentHashMap<String, Integer>();
+		private final ConcurrentHashMap<String, Integer> seasonUsers = new ConcurrentHashMap<String, Integer>();
+
+		/*
+		 * A runner searching with the given number of threads, with at most inFlight jobs started and not
+		 * yet written, keeping its caches in cacheDir
+		 */
+		public BatchRunner(int threads, int inFlight, Path cacheDir) {
+			this.loadPool = Executors.newFixedThreadPool(IO_THREADS, threads("load"));
+			this.seasonPool = Executors.newFixedThreadPool(threads, threads("season"));
+			this.solvePool = new ForkJoinPool(threads);
+			this.renderPool = Executors.newFixedThreadPool(threads, threads("render"));
+			this.writePool = Executors.newFixedThreadPool(IO_THREADS, threads("write"));
+			this.inFlight = new Semaphore(inFlight);
+			this.cacheDir = cacheDir;
+		}
+
+		/*
+		 * Runs the batch: BatchRunner manifest [threads] [inFlight] [cacheDir]
+		 */
+		public static void main(String[] args) {
+			if(args.length < 1 || args.length > 4) {
+				System.err.println("Usage: BatchRunner manifest [threads] [inFlight] [cacheDir]");
+				System.err.println("Each line of the manifest is a job: terrain elevation course season output");
+				System.exit(1);
+			}
+			int threads = Runtime.getRuntime().availableProcessors();
+			if(args.length >= 2) {
+				threads = Integer.parseInt(args[1]);
+			}
+			int inFlight = threads * 2;
+			if(args.length >= 3) {
+				inFlight = Integer.parseInt(args[2]);
+			}
+			Path cacheDir = Paths.get((args.length == 4) ? args[3] : ".");
+
+			List<Job> jobs = null;
+			try {
+				jobs = readManifest(Paths.get(args[0]));
+			} catch (IOException e) {
+				e.printStackTrace();
+				System.exit(1);
+			}
+
+			long startTime = System.nanoTime();
+			BatchRunner runner = new BatchRunner(threads, inFlight, cacheDir);
+			int failed = runner.run(jobs);
+			runner.shutdown();
+			double seconds = (System.nanoTime() - startTime) / 1e9;
+			System.out.printf("%d jobs in %.2f s, %.2f jobs/s, %d failed%n", jobs.size(), seconds, jobs.size() / seconds, failed);
+			if(failed > 0) {
+				System.exit(2);
+			}
+		}
+
+		/*
+		 * Reads the jobs of a manifest, failing on a line that is not a job or that writes to the same
+		 * output folder as an earlier one
+		 */
+		public static List<Job> readManifest(Path file) throws IOException {
+			Path base = file.toAbsolutePath().getParent();
+			List<Job> jobs = new ArrayList<Job>();
+			HashSet<Path> outputs = new HashSet<Path>();
+			List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+			for(int i=0; i<lines.size(); i++) {
+				String line = lines.get(i).trim();
+				if(line.isEmpty() || line.startsWith("#")) {
+					continue;
+				}
+				String[] fields = line.split("\\s+");
+				if(fields.length != 5) {
+					throw new IllegalArgumentException(file + " line " + (i+1) + ": expected terrain elevation course season output");
+				}
+				Path output = base.resolve(fields[4]).normalize();
+				if(!outputs.add(output)) {
+					throw new IllegalArgumentException(file + " line " + (i+1) + ": output " + fields[4] + " is used by an earlier job");
+				}
+				jobs.add(new Job(i+1, base.resolve(fields[0]).normalize().toString(), base.resolve(fields[1]).normalize().toString(),
+						base.resolve(fields[2]).normalize().toString(), fields[3], output));
+			}
+			return jobs;
+		}
+
+		/*
+		 * Runs every job, printing how each one went, and returns the number that failed
+		 */
+		public int run(List<Job> jobs) {
+			// Every job is counted before any starts, so a map is not let go between two jobs that use it
+			for(Job job : jobs) {
+				mapUsers.merge(mapKey(job), 1, Integer::sum);
+				seasonUsers.merge(seasonKey(job), 1, Integer::sum);
+			}
+			AtomicInteger failed = new AtomicInteger();
+			List<CompletableFuture<Void>> done = new ArrayList<CompletableFuture<Void>>();
+			int started = 0;
+			for(Job job : jobs) {
+				try {
+					inFlight.acquire();
+				} catch (InterruptedException e) {
+					e.printStackTrace();
+					break;
+				}
+				started++;
+				done.add(submit(job).handle((rendered, error) -> {
+					release(seasons, seasonUsers, seasonKey(job));
+					inFlight.release();
+					if(error != null) {
+						failed.incrementAndGet();
+						Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+						System.err.println("Job on line " + job.line + " failed: " + cause);
+					} else {
+						System.out.printf("Job on line %d: %d legs, cost %s, %s%n", job.line, rendered.metrics.total.legs,
+								SearchStats.number(rendered.metrics.total.cost), job.output);
+					}
+					return null;
+				}));
+			}
+			// Jobs never started let go of what they would have used
+			for(Job job : jobs.subList(started, jobs.size())) {
+				release(maps, mapUsers, mapKey(job));
+				release(seasons, seasonUsers, seasonKey(job));
+			}
+			CompletableFuture.allOf(done.toArray(new CompletableFuture<?>[0])).join();
+			return failed.get() + (jobs.size() - done.size());
+		}
+
+		/*
+		 * Starts the stages of one job, returning its files once they are written
+		 */
+		private CompletableFuture<Rendered> submit(Job job) {
+			CompletableFuture<int[]> course = CompletableFuture.supplyAsync(() -> readCourse(job.course), loadPool);
+			CompletableFuture<SeasonMap> season = season(job);
+			// The summer map is only needed until the season is made from it
+			season.whenComplete((map, error) -> release(maps, mapUsers, mapKey(job)));
+			CourseMetrics metrics = new CourseMetrics();
+			return season.thenCombineAsync(course, (map, controls) -> CourseSolver.solve(map.costs, map.h, controls, solvePool, metrics), solvePool)
+				.thenCombineAsync(season, (path, map) -> render(map.costs.terrain, path, metrics), renderPool)
+				.thenApplyAsync(rendered -> write(job.output, rendered), writePool);
+		}
+
+		/*
+		 * Counts one job as done with the entry of cache under key, dropping the entry if it was the last
+		 */
+		private static <T> void release(ConcurrentHashMap<String, T> cache, ConcurrentHashMap<String, Integer> users, String key) {
+			users.compute(key, (k, count) -> {
+				if(count == null || count <= 1) {
+					cache.remove(k);
+					return null;
+				}
+				return count - 1;
+			});
+		}
+
+		/*
+		 * Returns the key of the job's summer map
+		 */
+		private static String mapKey(Job job) {
+			return job.terrain + '\n' + job.elevation;
+		}
+
+		/*
+		 * Returns the key of the job's map changed for its season
+		 */
+		private static String seasonKey(Job job) {
+			return mapKey(job) + '\n' + job.season;
+		}
+
+		/*
+		 * Reads the controls of a course file
+		 */
+		static int[] readCourse(String file) {
+			try {
+				return CourseSolver.parseCourse(new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		/*
+		 * Returns the map of the job changed for its season, loading and changing it if no earlier job has
+		 * asked for it, or reading it back from the cache if an earlier run saved it
+		 */
+		private CompletableFuture<SeasonMap> season(Job job) {
+			return seasons.computeIfAbsent(seasonKey(job), k -> {
+				Path costsFile = cacheFile(job, "cache");
+				CompletableFuture<EdgeCostTable> costs = CompletableFuture.supplyAsync(() -> cacheKey(job), loadPool)
+					.thenCompose(cacheKey -> {
+						EdgeCostTable cached = readCache(costsFile, cacheKey);
+						if(cached != null) {
+							return CompletableFuture.completedFuture(cached);
+						}
+						return map(job).thenApplyAsync(map -> {
+							EdgeCostTable built = transform(map, job.season);
+							// Saved in the background, since nothing in this run waits for it
+							if(cacheKey != null) {
+								writePool.execute(() -> saveCache(built, costsFile, cacheKey));
+							}
+							return built;
+						}, seasonPool);
+					});
+				return costs.thenApplyAsync(table -> new SeasonMap(table, landmarks(table, cacheFile(job, "landmarks"))), seasonPool);
+			});
+		}
+
+		/*
+		 * Returns the summer map of the job's terrain and elevation files, loading it if no earlier job has
+		 */
+		private CompletableFuture<MapModel> map(Job job) {
+			return maps.computeIfAbsent(mapKey(job), k -> CompletableFuture.supplyAsync(() -> {
+				ElevationGrid elGrid = Orienteering.loadElevation(job.elevation);
+				BufferedImage image = Orienteering.getImage(job.terrain);
+				if(elGrid == null || image == null) {
+					throw new IllegalArgumentException("Could not read " + ((elGrid == null) ? job.elevation : job.terrain));
+				}
+				return new MapModel(TerrainGrid.fromImage(image), elGrid);
+			}, loadPool));
+		}
+
+		/*
+		 * Returns a copy of the summer map changed for the season, with every edge cost filled
+		 */
+		static EdgeCostTable transform(MapModel map, String season) {
+			TerrainGrid terrain = map.terrain.copy();
+			Orienteering.applySeason(terrain, map.elGrid, season);
+			EdgeCostTable costs = new EdgeCostTable(new MapModel(terrain, map.elGrid));
+			costs.buildAll();
+			return costs;
+		}
+
+		/*
+		 * Returns the landmark heuristic saved in file for the table, building and saving it if needed
+		 */
+		static Heuristic landmarks(EdgeCostTable costs, Path file) {
+			Heuristic base = new DistanceHeuristic(costs.terrain);
+			try {
+				return LandmarkHeuristic.loadOrBuild(costs, Orienteering.LANDMARKS, base, file);
+			} catch (IOException e) {
+				e.printStackTrace();
+				return base;
+			}
+		}
+
+		/*
+		 * Returns the SeasonCache key of the job's inputs, or null if they cannot be read
+		 */
+		private static Long cacheKey(Job job) {
+			try {
+				return SeasonCache.key(Paths.get(job.terrain), Paths.get(job.elevation), job.season);
+			} catch (IOException e) {
+				return null;
+			}
+		}
+
+		/*
+		 * Reads the table cached in file under the key, or returns null if there is none
+		 */
+		private static EdgeCostTable readCache(Path file, Long key) {
+			if(key == null || !Files.exists(file)) {
+				return null;
+			}
+			try {
+				return SeasonCache.load(file, key);
+			} catch (IOException e) {
+				e.printStackTrace();
+				return null;
+			}
+		}
+
+		/*
+		 * Saves the table to file under the key
+		 */
+		private static void saveCache(EdgeCostTable costs, Path file, long key) {
+			try {
+				SeasonCache.save(costs, file, key);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+
+		/*
+		 * Returns the cache file of the given kind for the job's map and season, named by the SHA-256 of
+		 * the absolute paths of the terrain and elevation files. Maps whose terrain files share a name but
+		 * sit in different folders get different files, as do jobs that pair the same terrain with
+		 * different elevation files, so they do not keep replacing each other's caches.
+		 */
+		Path cacheFile(Job job, String kind) {
+			Path terrain = Paths.get(job.terrain);
+			String paths = terrain.toAbsolutePath() + "\n" + Paths.get(job.elevation).toAbsolutePath();
+			try {
+				byte[] hash = MessageDigest.getInstance("SHA-256").digest(paths.getBytes(StandardCharsets.UTF_8));
+				return cacheDir.resolve(HexFormat.of().formatHex(hash) + "-" + terrain.getFileName() + "." + job.season + "." + kind);
+			} catch (NoSuchAlgorithmException e) {
+				// Every Java platform has SHA-256
+				throw new IllegalStateException(e);
+			}
+		}
+
+		/*
+		 * Draws the path over the terrain and writes out the directions along it
+		 */
+		static Rendered render(TerrainGrid terrain, ArrayList<Node> path, CourseMetrics metrics) {
+			ByteArrayOutputStream png = new ByteArrayOutputStream();
+			try {
+				ImageIO.write(Orienteering.drawPath(terrain, path), "PNG", png);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return new Rendered(png.toByteArray(), Orienteering.directions(path), metrics);
+		}
+
+		/*
+		 * Writes the files of a job into its output folder
+		 */
+		static Rendered write(Path output, Rendered rendered) {
+			try {
+				Files.createDirectories(output);
+				Files.write(output.resolve("path.png"), rendered.image);
+				Files.write(output.resolve("directions.txt"), rendered.directions.getBytes(StandardCharsets.UTF_8));
+				Files.write(output.resolve("metrics.json"), (rendered.metrics.toJson() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return rendered;
+		}
+
+		/*
+		 * Stops every stage once the work given to it, such as caches still being saved, is done
+		 */
+		public void shutdown() {
+			for(ExecutorService pool : new ExecutorService[] {loadPool, seasonPool, solvePool, renderPool, writePool}) {
+				pool.shutdown();
+			}
+			try {
+				for(ExecutorService pool : new ExecutorService[] {loadPool, seasonPool, solvePool, renderPool, writePool}) {
+					pool.awaitTermination(1, TimeUnit.MINUTES);
+				}
+			} catch (InterruptedException e) {
+				e.printStackTrace();
+			}
+		}
+
+		/*
+		 * Returns a factory naming the threads of a stage
+		 */
+		private static ThreadFactory threads(String stage) {
+			AtomicInteger count = new AtomicInteger();
+			return r -> {
+				Thread t = new Thread(r, "batch-" + stage + "-" + count.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			};
+		}
+}
@@ -0,0 +1,200 @@
+package orienteering;
+
+/**
+ * Class BidirectionalSearch is a helper class for Orienteering. It runs
+ * A* forward from the start and backward from the goal at the same time,
+ * expanding whichever side has the smaller open list, until the two
+ * frontiers prove no shorter path can exist.
+ *
+ * Both sides use the average of the two heuristics, p(v) = (h(v, goal) -
+ * h(start, v)) / 2 forward and -p(v) backward, so they agree on every edge
+ * and the search can stop as soon as the smallest keys of the two open
+ * lists add up to the best path seen so far. This needs a consistent
+ * Heuristic such as DistanceHeuristic to return optimal paths.
+ */
+import java.util.ArrayList;
+
+public class BidirectionalSearch {
+
+		/*
+		 * Searches from x1, y1 and gx, gy towards each other and returns the path from the goal back to the start
+		 */
+		public static ArrayList<Node> search(EdgeCostTable costs, Heuristic h, int x1, int y1, int gx, int gy, SearchStats stats) {
+			long startTime = System.nanoTime();
+			int width = costs.width;
+			int height = costs.height;
+			int cells = costs.map.cells();
+			int startId = (y1 * width) + x1;
+			int goalId = (gy * width) + gx;
+
+			// Forward side searches from the start, reverse side from the goal
+			SearchSpace spaceF = SearchSpace.acquire(cells, 0);
+			SearchSpace spaceR = SearchSpace.acquire(cells, 1);
+			IndexedHeap openF = spaceF.open;
+			IndexedHeap openR = spaceR.open;
+
+			spaceF.g[startId] = 0;
+			spaceF.parent[startId] = -1;
+			spaceF.setState(startId, Orienteering.OPEN);
+			openF.add(startId, potential(h, x1, y1, x1, y1, gx, gy));
+			spaceR.g[goalId] = 0;
+			spaceR.parent[goalId] = -1;
+			spaceR.setState(goalId, Orienteering.OPEN);
+			openR.add(goalId, -potential(h, gx, gy, x1, y1, gx, gy));
+
+			// Best path found so far and the acre where its two halves meet
+			double best = Double.POSITIVE_INFINITY;
+			int meet = -1;
+			if(startId == goalId) {
+				best = 0;
+				meet = startId;
+			}
+			long expanded = 0;
+			long pushed = 2;
+
+			while(!openF.isEmpty() && !openR.isEmpty()) {
+
+				// Stop once neither side can still improve on the best path
+				if(openF.getKey(openF.peek()) + openR.getKey(openR.peek()) >= best) {
+					break;
+				}
+
+				// Expand the side with the smaller open list
+				boolean forward = openF.size() <= openR.size();
+				SearchSpace space = forward ? spaceF : spaceR;
+				SearchSpace other = forward ? spaceR : spaceF;
+				IndexedHeap open = space.open;
+				double[] g = space.g;
+				double[] otherG = other.g;
+				int[] parent = space.parent;
+
+				int qId = open.poll();
+				space.setState(qId, Orienteering.CLOSED);
+				expanded++;
+				int qx = qId % width;
+				int qy = qId / width;
+
+				for(int d=0; d<8; d++) {
+					int nx = qx + Orienteering.DX[d];
+					int ny = qy + Orienteering.DY[d];
+					if(nx < 0 || ny < 0 || nx >= width || ny >= height) {
+						continue;
+					}
+					int nId = (ny * width) + nx;
+					byte nState = space.state(nId);
+					if(nState == Orienteering.CLOSED) {
+						continue;
+					}
+
+					// The reverse side walks edges backwards, so it needs the cost of leaving the neighbour
+					double t = forward ? costs.cost(qx, qy, d) : costs.cost(nx, ny, opposite(d));
+					if(t == Float.POSITIVE_INFINITY) {
+						continue;
+					}
+					double ng = g[qId] + t;
+					if(nState == Orienteering.OPEN && g[nId] <= ng) {
+						continue;
+					}
+					g[nId] = ng;
+					parent[nId] = qId;
+					double p = potential(h, nx, ny, x1, y1, gx, gy);
+					double key = ng + (forward ? p : -p);
+					pushed++;
+					if(nState == Orienteering.OPEN) {
+						open.decreaseKey(nId, key);
+					} else {
+						open.add(nId, key);
+						space.setState(nId, Orienteering.OPEN);
+					}
+
+					// A neighbour the other side has reached completes a path
+					if(other.state(nId) != 0 && ng + otherG[nId] < best) {
+						best = ng + otherG[nId];
+						meet = nId;
+					}
+				}
+			}
+
+			ArrayList<Node> path = new ArrayList<Node>();
+			if(meet != -1) {
+				path = join(costs, meet, spaceF.parent, spaceR.parent);
+			}
+			if(stats != null) {
+				stats.expanded = expanded;
+				stats.pushed = pushed;
+				stats.nanos = System.nanoTime() - startTime;
+				stats.cost = (meet != -1) ? best : Double.POSITIVE_INFINITY;
+			}
+			return path;
+		}
+
+		/*
+		 * Returns the forward potential of the acre at x, y, the average of the estimates to the goal and from the start
+		 */
+		static double potential(Heuristic h, int x, int y, int x1, int y1, int gx, int gy) {
+			return (h.estimate(x, y, gx, gy) - h.estimate(x1, y1, x, y)) / 2;
+		}
+
+		/*
+		 * Returns the direction index pointing the opposite way to d
+		 */
+		static int opposite(int d) {
+			// Directions are ordered N, S, E, W, NE, NW, SE, SW
+			switch(d) {
+				case 0: return 1;
+				case 1: return 0;
+				case 2: return 3;
+				case 3: return 2;
+				case 4: return 7;
+				case 5: return 6;
+				case 6: return 5;
+				default: return 4;
+			}
+		}
+
+		/*
+		 * Joins the two halves meeting at meet into a path of Nodes from the goal back to the start
+		 */
+		static ArrayList<Node> join(EdgeCostTable costs, int meet, int[] parentF, int[] parentR) {
+			int width = costs.width;
+
+			// Acres from the start to the goal
+			ArrayList<Integer> cells = new ArrayList<Integer>();
+			for(int c=meet; c!=-1; c=parentF[c]) {
+				cells.add(0, c);
+			}
+			for(int c=parentR[meet]; c!=-1; c=parentR[c]) {
+				cells.add(c);
+			}
+
+			Node node = null;
+			for(int i=0; i<cells.size(); i++) {
+				int x = cells.get(i) % width;
+				int y = cells.get(i) / width;
+				double g = 0;
+				if(node != null) {
+					g = node.g + costs.cost(node.x, node.y, direction(x - node.x, y - node.y));
+				}
+				node = new Node(x, y, g, 0, node);
+			}
+
+			ArrayList<Node> path = new ArrayList<Node>();
+			while(node != null) {
+				path.add(node);
+				node = node.parent;
+			}
+			return path;
+		}
+
+		/*
+		 * Returns the direction index of the step dx, dy
+		 */
+		static int direction(int dx, int dy) {
+			for(int d=0; d<8; d++) {
+				if(Orienteering.DX[d] == dx && Orienteering.DY[d] == dy) {
+					return d;
+				}
+			}
+			throw new IllegalArgumentException("Not a step between adjacent acres: " + dx + ", " + dy);
+		}
+}
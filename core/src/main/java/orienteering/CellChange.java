@@ -0,0 +1,42 @@
+package orienteering;
+
+/**
+ * Class CellChange is a helper class for Orienteering. It describes a
+ * live change to one acre of the map, such as a closed trail or a newly
+ * flooded marsh: its new terrain class, its new elevation, or both.
+ */
+public class CellChange {
+
+		// Terrain class meaning the class is left as it is
+		static final byte KEEP_CLASS = -1;
+
+		final int x;
+		final int y;
+		final byte terrainClass;
+		final float elevation;
+
+		/*
+		 * A change of the acre at x, y to the given class and elevation, where KEEP_CLASS
+		 * and NaN leave the class and the elevation as they are
+		 */
+		public CellChange(int x, int y, byte terrainClass, float elevation) {
+			this.x = x;
+			this.y = y;
+			this.terrainClass = terrainClass;
+			this.elevation = elevation;
+		}
+
+		/*
+		 * A change of the terrain class of the acre at x, y only
+		 */
+		public static CellChange terrain(int x, int y, byte terrainClass) {
+			return new CellChange(x, y, terrainClass, Float.NaN);
+		}
+
+		/*
+		 * A change of the elevation of the acre at x, y only
+		 */
+		public static CellChange elevation(int x, int y, float elevation) {
+			return new CellChange(x, y, KEEP_CLASS, elevation);
+		}
+}
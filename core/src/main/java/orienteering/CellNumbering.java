@@ -0,0 +1,101 @@
+package orienteering;
+
+/**
+ * Class CellNumbering is a helper class for Orienteering. It numbers the
+ * acres a search reaches 0, 1, 2, ... in the order it first sees them,
+ * through an open addressing hash table keyed by cell id, so the search
+ * can keep its bookkeeping in small arrays indexed by those numbers
+ * instead of arrays over every acre of the map.
+ */
+import java.util.Arrays;
+
+public class CellNumbering {
+
+		// Cell id of each number
+		private long[] ids;
+		private int count;
+
+		// Numbers + 1 hashed by cell id, 0 marking a free entry
+		private int[] table;
+
+		public CellNumbering(int capacity) {
+			this.ids = new long[Math.max(capacity, 16)];
+			this.table = new int[Integer.highestOneBit(Math.max(capacity, 16)) * 4];
+			this.count = 0;
+		}
+
+		/*
+		 * Returns how many acres have been numbered
+		 */
+		public int size() {
+			return count;
+		}
+
+		/*
+		 * Returns the cell id of number n
+		 */
+		public long id(int n) {
+			return ids[n];
+		}
+
+		/*
+		 * Returns the number of cell id, or -1 if it has not been numbered
+		 */
+		public int find(long id) {
+			int mask = table.length - 1;
+			for(int i=slot(id, mask); table[i]!=0; i=(i+1)&mask) {
+				if(ids[table[i] - 1] == id) {
+					return table[i] - 1;
+				}
+			}
+			return -1;
+		}
+
+		/*
+		 * Returns the number of cell id, numbering it next if it has not been numbered. Callers keeping
+		 * arrays by number should grow them when the result reaches their length.
+		 */
+		public int number(long id) {
+			int mask = table.length - 1;
+			int i = slot(id, mask);
+			while(table[i] != 0) {
+				if(ids[table[i] - 1] == id) {
+					return table[i] - 1;
+				}
+				i = (i + 1) & mask;
+			}
+			if(count == ids.length) {
+				ids = Arrays.copyOf(ids, ids.length * 2);
+			}
+			int n = count++;
+			ids[n] = id;
+			table[i] = n + 1;
+			// Keep the table at most half full
+			if(count * 2 > table.length) {
+				rehash();
+			}
+			return n;
+		}
+
+		/*
+		 * Returns where the search for cell id starts in a table of mask + 1 entries
+		 */
+		private static int slot(long id, int mask) {
+			return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+		}
+
+		/*
+		 * Doubles the hash table
+		 */
+		private void rehash() {
+			table = new int[table.length * 2];
+			int mask = table.length - 1;
+			for(int n=0; n<count; n++) {
+				int i = slot(ids[n], mask);
+				while(table[i] != 0) {
+					i = (i + 1) & mask;
+				}
+				table[i] = n + 1;
+			}
+		}
+}
@@ -0,0 +1,558 @@
+package orienteering;
+
+/**
+ * Class ClusterGraph is a helper class for Orienteering. It is a two level
+ * hierarchy over the acre grid in the style of HPA*. The map is cut into
+ * square clusters, the acres on the edge of each cluster that lead into a
+ * neighbouring cluster become entrances, and the travel times between the
+ * entrances of a cluster, staying inside it, are worked out once with the
+ * costs of the EdgeCostTable. A leg is then searched over the entrances
+ * only, and the route found is refined back into acres inside each
+ * cluster it passes through.
+ *
+ * A sparse graph keeps only a few entrances along each stretch of open
+ * border, like HPA*, so it is small and fast but its paths can be a
+ * little slower than the best. An exact graph keeps every acre with a
+ * step into another cluster as an entrance. Every path between clusters
+ * passes through such acres, so searching it returns optimal paths, at
+ * the price of a larger graph.
+ *
+ * The graph is rebuilt for new costs, such as another season, with
+ * update, which only redoes the clusters around acres whose edge costs
+ * changed. For a season table those are the acres it patches, and for
+ * a table refreshed since the graph was made, those the table marked on
+ * the graph as it refreshed them, so neither reads the costs of the
+ * clusters that stay the same.
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class ClusterGraph {
+
+		// Width and height of a cluster in acres
+		static final int SIZE = 32;
+
+		// Stretches of open border shorter than this get one entrance in the middle, longer ones one this
+		// many acres apart and one at the far end
+		static final int LONG_ENTRANCE = 6;
+
+		final EdgeCostTable costs;
+		final Heuristic toward;
+		final int size;
+		final boolean exact;
+		final int clustersX;
+		final int clustersY;
+
+		// Entrance acres of each cluster, and the travel times between them staying inside the
+		// cluster, n by n in row major order
+		final int[][] entrances;
+		final double[][] within;
+
+		// Clusters around acres of costs refreshed since this graph was made, to be redone by update
+		private final boolean[] changed;
+
+		// Index of each acre among the entrances of its cluster, -1 if it is not an entrance
+		final int[] local;
+
+		// Number of clusters worked out when this graph was made
+		int rebuilt;
+
+		public ClusterGraph(EdgeCostTable costs, int size, boolean exact) {
+			this(costs, size, exact, null, null);
+		}
+
+		/*
+		 * Builds the graph for costs, copying every cluster of previous that is not marked in dirty, or, if
+		 * dirty is null, whose edge costs are the same as those previous was made for
+		 */
+		private ClusterGraph(EdgeCostTable costs, int size, boolean exact, ClusterGraph previous, boolean[] dirty) {
+			this.costs = costs;
+			this.toward = new DistanceHeuristic(costs.terrain);
+			this.size = size;
+			this.exact = exact;
+			this.clustersX = (costs.width + size - 1) / size;
+			this.clustersY = (costs.height + size - 1) / size;
+			int clusters = clustersX * clustersY;
+			this.entrances = new int[clusters][];
+			this.within = new double[clusters][];
+			this.changed = new boolean[clusters];
+			costs.buildAll();
+
+			// Entrances of the clusters kept stay where they were, so only those of the clusters redone move
+			if(previous == null) {
+				this.local = new int[costs.map.cells()];
+				Arrays.fill(local, -1);
+			} else {
+				this.local = previous.local.clone();
+			}
+			Scratch scratch = new Scratch(size);
+			for(int k=0; k<clusters; k++) {
+				boolean keep = (previous != null) && ((dirty == null) ? sameCosts(previous.costs, k) : !dirty[k]);
+				if(keep) {
+					entrances[k] = previous.entrances[k];
+					within[k] = previous.within[k];
+					continue;
+				}
+				if(previous != null) {
+					for(int e : previous.entrances[k]) {
+						local[e] = -1;
+					}
+				}
+				entrances[k] = findEntrances(k);
+				within[k] = connect(k, entrances[k], scratch);
+				rebuilt++;
+				for(int i=0; i<entrances[k].length; i++) {
+					local[entrances[k][i]] = i;
+				}
+			}
+		}
+
+		/*
+		 * Returns a graph for new edge costs of the same map, reusing the clusters whose costs did not change.
+		 * When newCosts are the costs of this graph, the clusters redone are those marked by changed since it
+		 * was made; when they are a season table patching its costs, those around the acres the table patches.
+		 * For any other costs, each cluster's costs are compared with those this graph was made for.
+		 */
+		public ClusterGraph update(EdgeCostTable newCosts) {
+			if(newCosts.width != costs.width || newCosts.height != costs.height) {
+				return new ClusterGraph(newCosts, size, exact);
+			}
+			boolean[] dirty = null;
+			if(newCosts == costs) {
+				synchronized(changed) {
+					dirty = changed.clone();
+				}
+			} else if(newCosts.base == costs) {
+				dirty = new boolean[changed.length];
+				long[] patched = newCosts.patchedAcres();
+				int width = costs.width;
+				for(int i=0; i<patched.length; i++) {
+					for(long word=patched[i]; word!=0; word&=word-1) {
+						int c = (i << 6) + Long.numberOfTrailingZeros(word);
+						mark(dirty, (c % width) - 1, (c / width) - 1, (c % width) + 1, (c / width) + 1);
+					}
+				}
+			}
+			return new ClusterGraph(newCosts, size, exact, this, dirty);
+		}
+
+		/*
+		 * Marks the clusters whose graph the refresh of the acre at x, y in the costs of this graph can change, to
+		 * be redone by the next update. A refresh changes the edges out of the acres up to one acre from x, y, and
+		 * the clusters of the acres one further are redone too, since entrances look across cluster borders.
+		 */
+		void changed(int x, int y) {
+			synchronized(changed) {
+				mark(changed, x - 2, y - 2, x + 2, y + 2);
+			}
+		}
+
+		/*
+		 * Marks in dirty every cluster holding an acre of the map from x0, y0 to x1, y1
+		 */
+		private void mark(boolean[] dirty, int x0, int y0, int x1, int y1) {
+			int cx0 = Math.max(0, x0) / size;
+			int cy0 = Math.max(0, y0) / size;
+			int cx1 = Math.min(costs.width - 1, x1) / size;
+			int cy1 = Math.min(costs.height - 1, y1) / size;
+			for(int cy=cy0; cy<=cy1; cy++) {
+				for(int cx=cx0; cx<=cx1; cx++) {
+					dirty[(cy * clustersX) + cx] = true;
+				}
+			}
+		}
+
+		/*
+		 * Returns the cluster holding the acre at x, y
+		 */
+		int clusterOf(int x, int y) {
+			return ((y / size) * clustersX) + (x / size);
+		}
+
+		/*
+		 * Searches from x1, y1 to gx, gy over the entrances and returns the refined path from the goal back to the start
+		 */
+		public ArrayList<Node> search(Heuristic h, int x1, int y1, int gx, int gy, SearchStats stats) {
+			long startTime = System.nanoTime();
+			int width = costs.width;
+			int startId = (y1 * width) + x1;
+			int goalId = (gy * width) + gx;
+			int ks = clusterOf(x1, y1);
+			int kg = clusterOf(gx, gy);
+
+			// Travel times from the start and to the goal inside their own clusters
+			Scratch fromStart = new Scratch(size);
+			Scratch toGoal = new Scratch(size);
+			dijkstra(ks, startId, -1, false, fromStart);
+			dijkstra(kg, goalId, -1, true, toGoal);
+
+			SearchSpace space = SearchSpace.acquire(costs.map.cells(), 0);
+			IndexedHeap open = space.open;
+			space.g[startId] = 0;
+			space.parent[startId] = -1;
+			space.setState(startId, Orienteering.OPEN);
+			open.add(startId, h.estimate(x1, y1, gx, gy));
+
+			long expanded = 0;
+			long pushed = 1;
+			boolean found = false;
+			while(!open.isEmpty()) {
+				int c = open.poll();
+				space.setState(c, Orienteering.CLOSED);
+				expanded++;
+				if(c == goalId) {
+					found = true;
+					break;
+				}
+				int cx = c % width;
+				int cy = c / width;
+				int k = clusterOf(cx, cy);
+				double gc = space.g[c];
+
+				if(c == startId) {
+					for(int e : entrances[ks]) {
+						pushed += relax(space, h, c, e, gc + fromStart.dist[fromStart.index(e)], gx, gy);
+					}
+					if(ks == kg) {
+						pushed += relax(space, h, c, goalId, gc + fromStart.dist[fromStart.index(goalId)], gx, gy);
+					}
+				}
+				int i = local[c];
+				if(i == -1) {
+					continue;
+				}
+
+				// Other entrances of the same cluster
+				int n = entrances[k].length;
+				for(int j=0; j<n; j++) {
+					double t = within[k][(i * n) + j];
+					if(j != i && t != Double.POSITIVE_INFINITY) {
+						pushed += relax(space, h, c, entrances[k][j], gc + t, gx, gy);
+					}
+				}
+
+				// Entrances of neighbouring clusters one step away
+				for(int d=0; d<8; d++) {
+					int nx = cx + Orienteering.DX[d];
+					int ny = cy + Orienteering.DY[d];
+					if(!costs.map.contains(nx, ny) || clusterOf(nx, ny) == k) {
+						continue;
+					}
+					int nId = (ny * width) + nx;
+					float t = costs.cost(cx, cy, d);
+					if(local[nId] != -1 && t != Float.POSITIVE_INFINITY) {
+						pushed += relax(space, h, c, nId, gc + t, gx, gy);
+					}
+				}
+
+				if(k == kg) {
+					pushed += relax(space, h, c, goalId, gc + toGoal.dist[toGoal.index(c)], gx, gy);
+				}
+			}
+
+			ArrayList<Node> path = new ArrayList<Node>();
+			if(found) {
+				path = refine(space, h, startId, goalId, gx, gy);
+			}
+			if(stats != null) {
+				stats.expanded = expanded;
+				stats.pushed = pushed;
+				stats.nanos = System.nanoTime() - startTime;
+				stats.cost = found ? path.get(0).g : Double.POSITIVE_INFINITY;
+			}
+			return path;
+		}
+
+		/*
+		 * Offers travel time ng to acre n through acre c, returning 1 if it was better than what n had
+		 */
+		private int relax(SearchSpace space, Heuristic h, int c, int n, double ng, int gx, int gy) {
+			if(ng == Double.POSITIVE_INFINITY) {
+				return 0;
+			}
+			byte state = space.state(n);
+			if(state == Orienteering.CLOSED || (state == Orienteering.OPEN && space.g[n] <= ng)) {
+				return 0;
+			}
+			space.g[n] = ng;
+			space.parent[n] = c;
+			int width = costs.width;
+			double f = ng + h.estimate(n % width, n / width, gx, gy);
+			if(state == Orienteering.OPEN) {
+				space.open.decreaseKey(n, f);
+			} else {
+				space.open.add(n, f);
+				space.setState(n, Orienteering.OPEN);
+			}
+			return 1;
+		}
+
+		/*
+		 * Turns the route over entrances into acres, finding each stretch inside a cluster again,
+		 * and returns the Nodes from the goal back to the start
+		 */
+		private ArrayList<Node> refine(SearchSpace space, Heuristic h, int startId, int goalId, int gx, int gy) {
+			int width = costs.width;
+			ArrayList<Integer> route = new ArrayList<Integer>();
+			for(int c=goalId; c!=-1; c=space.parent[c]) {
+				route.add(0, c);
+			}
+
+			ArrayList<Integer> cells = new ArrayList<Integer>();
+			cells.add(startId);
+			Scratch scratch = new Scratch(size);
+			for(int r=1; r<route.size(); r++) {
+				int a = route.get(r - 1);
+				int b = route.get(r);
+				int ka = clusterOf(a % width, a / width);
+				if(ka != clusterOf(b % width, b / width)) {
+					cells.add(b);
+					continue;
+				}
+				dijkstra(ka, a, b, false, scratch);
+				int from = cells.size();
+				for(int c=scratch.index(b); c!=scratch.index(a); c=scratch.parent[c]) {
+					cells.add(from, scratch.cell(c));
+				}
+			}
+
+			Node node = null;
+			for(int i=0; i<cells.size(); i++) {
+				int x = cells.get(i) % width;
+				int y = cells.get(i) / width;
+				double g = 0;
+				if(node != null) {
+					g = node.g + costs.cost(node.x, node.y, BidirectionalSearch.direction(x - node.x, y - node.y));
+				}
+				node = new Node(x, y, g, h.estimate(x, y, gx, gy), node);
+			}
+			ArrayList<Node> path = new ArrayList<Node>();
+			while(node != null) {
+				path.add(node);
+				node = node.parent;
+			}
+			return path;
+		}
+
+		/*
+		 * Returns the entrances of cluster k
+		 */
+		private int[] findEntrances(int k) {
+			int x0 = (k % clustersX) * size;
+			int y0 = (k / clustersX) * size;
+			int x1 = Math.min(x0 + size, costs.width);
+			int y1 = Math.min(y0 + size, costs.height);
+			ArrayList<Integer> found = new ArrayList<Integer>();
+			if(exact) {
+				// Every acre on the edge with a step into another cluster
+				for(int y=y0; y<y1; y++) {
+					for(int x=x0; x<x1; x++) {
+						if(x != x0 && x != x1-1 && y != y0 && y != y1-1) {
+							continue;
+						}
+						for(int d=0; d<8; d++) {
+							int nx = x + Orienteering.DX[d];
+							int ny = y + Orienteering.DY[d];
+							if(costs.map.contains(nx, ny) && clusterOf(nx, ny) != k && costs.cost(x, y, d) != Float.POSITIVE_INFINITY) {
+								found.add((y * costs.width) + x);
+								break;
+							}
+						}
+					}
+				}
+			} else {
+				// One or two acres for each stretch of each side that can be crossed straight over
+				side(found, x0, y1-1, 1, 0, x1-x0, 0);
+				side(found, x0, y0, 1, 0, x1-x0, 1);
+				side(found, x1-1, y0, 0, 1, y1-y0, 2);
+				side(found, x0, y0, 0, 1, y1-y0, 3);
+			}
+			int[] result = new int[found.size()];
+			for(int i=0; i<result.length; i++) {
+				result[i] = found.get(i);
+			}
+			return result;
+		}
+
+		/*
+		 * Adds entrances along one side of a cluster, running length acres from x, y in steps of sx, sy,
+		 * for each stretch whose step d out of the cluster can be travelled
+		 */
+		private void side(ArrayList<Integer> found, int x, int y, int sx, int sy, int length, int d) {
+			int run = 0;
+			for(int i=0; i<=length; i++) {
+				boolean open = false;
+				if(i < length) {
+					int cx = x + (i * sx);
+					int cy = y + (i * sy);
+					open = costs.map.contains(cx + Orienteering.DX[d], cy + Orienteering.DY[d])
+							&& costs.cost(cx, cy, d) != Float.POSITIVE_INFINITY;
+				}
+				if(open) {
+					run++;
+					continue;
+				}
+				if(run > 0) {
+					int first = i - run;
+					int last = i - 1;
+					if(run < LONG_ENTRANCE) {
+						addEntrance(found, x + (((first + last) / 2) * sx), y + (((first + last) / 2) * sy));
+					} else {
+						for(int e=first; e<last; e+=LONG_ENTRANCE) {
+							addEntrance(found, x + (e * sx), y + (e * sy));
+						}
+						addEntrance(found, x + (last * sx), y + (last * sy));
+					}
+				}
+				run = 0;
+			}
+		}
+
+		/*
+		 * Adds the acre at x, y as an entrance unless it is one already, as corners can be for two sides
+		 */
+		private void addEntrance(ArrayList<Integer> found, int x, int y) {
+			Integer id = (y * costs.width) + x;
+			if(!found.contains(id)) {
+				found.add(id);
+			}
+		}
+
+		/*
+		 * Returns the travel times between every pair of entrances of cluster k staying inside it
+		 */
+		private double[] connect(int k, int[] doors, Scratch scratch) {
+			int n = doors.length;
+			double[] times = new double[n * n];
+			for(int i=0; i<n; i++) {
+				dijkstra(k, doors[i], -1, false, scratch);
+				for(int j=0; j<n; j++) {
+					times[(i * n) + j] = scratch.dist[scratch.index(doors[j])];
+				}
+			}
+			return times;
+		}
+
+		/*
+		 * Works out travel times from source to every acre of cluster k without leaving it, or to source
+		 * when reverse is set. When target is not -1 it searches toward it with A* and stops once it is reached.
+		 */
+		private void dijkstra(int k, int source, int target, boolean reverse, Scratch s) {
+			int width = costs.width;
+			s.bounds(k, clustersX, costs.width, costs.height);
+			Arrays.fill(s.dist, 0, s.cells, Double.POSITIVE_INFINITY);
+			Arrays.fill(s.closed, 0, s.cells, false);
+			s.heap.clear();
+			int src = s.index(source);
+			s.dist[src] = 0;
+			s.parent[src] = -1;
+			s.heap.add(src, 0);
+			int dst = (target == -1) ? -1 : s.index(target);
+			int tx = target % width;
+			int ty = target / width;
+			while(!s.heap.isEmpty()) {
+				int q = s.heap.poll();
+				s.closed[q] = true;
+				if(q == dst) {
+					break;
+				}
+				int qx = s.x0 + (q % s.w);
+				int qy = s.y0 + (q / s.w);
+				for(int d=0; d<8; d++) {
+					int nx = qx + Orienteering.DX[d];
+					int ny = qy + Orienteering.DY[d];
+					if(nx < s.x0 || ny < s.y0 || nx >= s.x0 + s.w || ny >= s.y0 + s.h) {
+						continue;
+					}
+					int n = s.index((ny * width) + nx);
+					if(s.closed[n]) {
+						continue;
+					}
+					float t = reverse ? costs.cost(nx, ny, BidirectionalSearch.opposite(d)) : costs.cost(qx, qy, d);
+					if(t == Float.POSITIVE_INFINITY) {
+						continue;
+					}
+					double ng = s.dist[q] + t;
+					if(ng < s.dist[n]) {
+						s.dist[n] = ng;
+						s.parent[n] = q;
+						double key = (dst == -1) ? ng : ng + toward.estimate(nx, ny, tx, ty);
+						if(s.heap.contains(n)) {
+							s.heap.decreaseKey(n, key);
+						} else {
+							s.heap.add(n, key);
+						}
+					}
+				}
+			}
+		}
+
+		/*
+		 * Returns true if every edge leaving the acres of cluster k, and of the acres one beyond its border,
+		 * costs the same in other as in the costs of this graph
+		 */
+		private boolean sameCosts(EdgeCostTable other, int k) {
+			int x0 = Math.max(0, ((k % clustersX) * size) - 1);
+			int y0 = Math.max(0, ((k / clustersX) * size) - 1);
+			int x1 = Math.min(((k % clustersX) * size) + size + 1, costs.width);
+			int y1 = Math.min(((k / clustersX) * size) + size + 1, costs.height);
+			for(int y=y0; y<y1; y++) {
+				for(int x=x0; x<x1; x++) {
+					for(int d=0; d<8; d++) {
+						if(Float.floatToRawIntBits(costs.cost(x, y, d)) != Float.floatToRawIntBits(other.cost(x, y, d))) {
+							return false;
+						}
+					}
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Class Scratch holds the arrays of a search inside one cluster,
+		 * indexed by the position of an acre within the cluster.
+		 */
+		private static class Scratch {
+
+			final IndexedHeap heap;
+			final double[] dist;
+			final int[] parent;
+			final boolean[] closed;
+			final int size;
+			int x0, y0, w, h, cells, width;
+
+			Scratch(int size) {
+				this.size = size;
+				heap = new IndexedHeap(size * size);
+				dist = new double[size * size];
+				parent = new int[size * size];
+				closed = new boolean[size * size];
+			}
+
+			/*
+			 * Sets the bounds of cluster k
+			 */
+			void bounds(int k, int clustersX, int mapWidth, int mapHeight) {
+				x0 = (k % clustersX) * size;
+				y0 = (k / clustersX) * size;
+				w = Math.min(size, mapWidth - x0);
+				h = Math.min(size, mapHeight - y0);
+				cells = w * h;
+				width = mapWidth;
+			}
+
+			/*
+			 * Returns the position within the cluster of the acre with the given cell id
+			 */
+			int index(int id) {
+				return (((id / width) - y0) * w) + ((id % width) - x0);
+			}
+
+			/*
+			 * Returns the cell id of the acre at the given position within the cluster
+			 */
+			int cell(int i) {
+				return ((y0 + (i / w)) * width) + x0 + (i % w);
+			}
+		}
+}
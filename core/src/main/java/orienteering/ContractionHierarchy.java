@@ -0,0 +1,1030 @@
+package orienteering;
+
+/**
+ * Class ContractionHierarchy is a helper class for Orienteering. It is a
+ * contraction hierarchy over the passable acres of the 8-connected grid,
+ * with the travel times of an EdgeCostTable. Acres are contracted one by
+ * one, least important first. Contracting an acre removes it from the
+ * graph and adds a shortcut between two of its neighbours wherever the
+ * way through it was the only shortest one, found by a small witness
+ * search from each neighbour. Each acre keeps only its edges to the
+ * acres contracted after it, so a query is two small Dijkstra searches,
+ * one from each end, that only ever go up the hierarchy, and meet at the
+ * most important acre of the best path. The shortcuts on that path are
+ * then unpacked back into the acres they skip, each one keeping the two
+ * edges it is made of.
+ *
+ * The order is chosen by a priority of how many shortcuts contracting an
+ * acre adds against the edges it removes, how many of its neighbours have
+ * already been contracted and how deep the hierarchy under it is. Each
+ * round takes every acre whose priority is below that of all its
+ * remaining neighbours. Such acres share no edges, and their witness
+ * searches keep out of every acre of the round, so their shortcuts can be
+ * found with full witness searches in parallel. Their priorities are then
+ * worked out again from the shortcuts found, and those still below all of
+ * their neighbours are contracted with them while the rest wait for a
+ * later round. Neighbours of the contracted acres change every round, so
+ * for their new priorities the shortcuts are only estimated, looking for
+ * witnesses of at most two edges.
+ *
+ * Travel times are the same in both directions, so each edge and
+ * shortcut is stored once, on the less important of its two acres, and
+ * serves both searches. Acres are numbered by the order they were
+ * contracted in, so every stored edge leads to a larger number.
+ */
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class ContractionHierarchy {
+
+		// Identifies a hierarchy file and the version of its contents
+		static final int MAGIC = 0x43484945;
+		static final int VERSION = 1;
+
+		// Bytes before the acres of the nodes
+		static final int HEADER = 32;
+
+		// Acres a witness search may settle before it gives up and the shortcut is kept
+		static final int WITNESS_LIMIT = 500;
+
+
+		final EdgeCostTable costs;
+		final int width;
+
+		// Cell id of each node, numbered in the order they were contracted, and node of each cell id, -1 if impassable
+		final int[] cell;
+		final int[] node;
+
+		// Edges up the hierarchy, those of node v from first[v] up to first[v+1], to head with the given
+		// travel time, skipping the node in middle if it is a shortcut, -1 if it is an edge of the grid
+		final int[] first;
+		final int[] head;
+		final double[] weight;
+		final int[] middle;
+
+		// For each shortcut, the edges it is made of, between its middle node and the node it is stored on and
+		// between its middle node and its head, so unpacking a path never has to look for an edge
+		final int[] lower;
+		final int[] upper;
+
+		ContractionHierarchy(EdgeCostTable costs, int[] cell, int[] first, int[] head, double[] weight, int[] middle) {
+			this.costs = costs;
+			this.width = costs.width;
+			this.cell = cell;
+			this.first = first;
+			this.head = head;
+			this.weight = weight;
+			this.middle = middle;
+			this.node = new int[costs.map.cells()];
+			Arrays.fill(node, -1);
+			for(int v=0; v<cell.length; v++) {
+				node[cell[v]] = v;
+			}
+			this.lower = new int[head.length];
+			this.upper = new int[head.length];
+			for(int v=0; v<cell.length; v++) {
+				for(int e=first[v]; e<first[v+1]; e++) {
+					if(middle[e] != -1) {
+						lower[e] = edge(middle[e], v);
+						upper[e] = edge(middle[e], head[e]);
+					}
+				}
+			}
+		}
+
+		/*
+		 * Returns the number of nodes in the hierarchy
+		 */
+		public int nodes() {
+			return cell.length;
+		}
+
+		/*
+		 * Returns the number of edges and shortcuts in the hierarchy
+		 */
+		public int edges() {
+			return head.length;
+		}
+
+		/*
+		 * Builds the hierarchy over every passable acre with the given edge costs, contracting on the pool
+		 */
+		public static ContractionHierarchy build(EdgeCostTable costs, ForkJoinPool pool) {
+			costs.buildAll();
+			return new Builder(costs, pool).build();
+		}
+
+		/*
+		 * Reads the hierarchy saved in file for these edge costs, or builds it on the pool and saves it to
+		 * file if it is missing or was built for other costs
+		 */
+		public static ContractionHierarchy loadOrBuild(EdgeCostTable costs, Path file, ForkJoinPool pool) throws IOException {
+			costs.buildAll();
+			long fingerprint = LandmarkHeuristic.fingerprint(costs);
+			if(Files.exists(file)) {
+				ContractionHierarchy saved = load(costs, file, fingerprint);
+				if(saved != null) {
+					return saved;
+				}
+			}
+			ContractionHierarchy built = build(costs, pool);
+			built.save(file, fingerprint);
+			return built;
+		}
+
+		/*
+		 * Writes the hierarchy to file, with the fingerprint of the edge costs it was built for
+		 */
+		public void save(Path file, long fingerprint) throws IOException {
+			// Written to a temporary file first, so a run that stops part way leaves no broken hierarchy
+			Path part = SeasonCache.partFile(file);
+			try {
+				try(DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(part), 1 << 16))) {
+					out.writeInt(MAGIC);
+					out.writeInt(VERSION);
+					out.writeInt(costs.width);
+					out.writeInt(costs.height);
+					out.writeInt(cell.length);
+					out.writeInt(head.length);
+					out.writeLong(fingerprint);
+					for(int v=0; v<cell.length; v++) {
+						out.writeInt(cell[v]);
+					}
+					for(int v=0; v<first.length; v++) {
+						out.writeInt(first[v]);
+					}
+					for(int e=0; e<head.length; e++) {
+						out.writeInt(head[e]);
+					}
+					for(int e=0; e<head.length; e++) {
+						out.writeDouble(weight[e]);
+					}
+					for(int e=0; e<head.length; e++) {
+						out.writeInt(middle[e]);
+					}
+				}
+				Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(part);
+			}
+		}
+
+		/*
+		 * Reads a hierarchy saved by save, returning null if it was saved for other edge costs or by other code
+		 */
+		public static ContractionHierarchy load(EdgeCostTable costs, Path file, long fingerprint) throws IOException {
+			try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				long size = channel.size();
+				if(size < HEADER) {
+					return null;
+				}
+				MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+				if(buf.getInt() != MAGIC || buf.getInt() != VERSION || buf.getInt() != costs.width || buf.getInt() != costs.height) {
+					return null;
+				}
+				int n = buf.getInt();
+				int m = buf.getInt();
+				if(buf.getLong() != fingerprint || n < 0 || m < 0 || n > costs.map.cells()) {
+					return null;
+				}
+				if(size != HEADER + (4L * n) + (4L * (n + 1)) + (16L * m)) {
+					return null;
+				}
+				int[] cell = new int[n];
+				int[] first = new int[n + 1];
+				int[] head = new int[m];
+				double[] weight = new double[m];
+				int[] middle = new int[m];
+				ByteBuffer data = channel.map(FileChannel.MapMode.READ_ONLY, HEADER, size - HEADER);
+				data.asIntBuffer().get(cell);
+				data.position(data.position() + (4 * n));
+				data.asIntBuffer().get(first);
+				data.position(data.position() + (4 * (n + 1)));
+				data.asIntBuffer().get(head);
+				data.position(data.position() + (4 * m));
+				data.asDoubleBuffer().get(weight);
+				data.position(data.position() + (8 * m));
+				data.asIntBuffer().get(middle);
+				return new ContractionHierarchy(costs, cell, first, head, weight, middle);
+			}
+		}
+
+		/*
+		 * Searches from x1, y1 to gx, gy up the hierarchy from both ends and returns the unpacked path from the
+		 * goal back to the start, empty if there is none
+		 */
+		public ArrayList<Node> search(int x1, int y1, int gx, int gy, SearchStats stats) {
+			long startTime = System.nanoTime();
+			long expanded = 0;
+			long pushed = 0;
+			int startCell = (y1 * width) + x1;
+			int goalCell = (gy * width) + gx;
+			int s = node[startCell];
+			int t = node[goalCell];
+
+			// Best path found so far and the node where its two halves meet
+			double best = Double.POSITIVE_INFINITY;
+			int meet = -1;
+			SearchSpace spaceF = null;
+			SearchSpace spaceR = null;
+			if(startCell == goalCell) {
+				best = 0;
+			} else if(s != -1 && t != -1) {
+				spaceF = SearchSpace.acquire(cell.length, 0);
+				spaceR = SearchSpace.acquire(cell.length, 1);
+				start(spaceF, s);
+				start(spaceR, t);
+				pushed = 2;
+				boolean forward = true;
+				while(true) {
+					// Each side stops once nothing left on it can lead to a better path
+					boolean moreF = !spaceF.open.isEmpty() && spaceF.open.getKey(spaceF.open.peek()) < best;
+					boolean moreR = !spaceR.open.isEmpty() && spaceR.open.getKey(spaceR.open.peek()) < best;
+					if(!moreF && !moreR) {
+						break;
+					}
+					if(moreF && moreR) {
+						forward = spaceF.open.getKey(spaceF.open.peek()) <= spaceR.open.getKey(spaceR.open.peek());
+					} else {
+						forward = moreF;
+					}
+					SearchSpace space = forward ? spaceF : spaceR;
+					SearchSpace other = forward ? spaceR : spaceF;
+					int v = space.open.poll();
+					space.setState(v, Orienteering.CLOSED);
+					expanded++;
+					if(other.state(v) != 0 && space.g[v] + other.g[v] < best) {
+						best = space.g[v] + other.g[v];
+						meet = v;
+					}
+					if(stalled(space, v)) {
+						continue;
+					}
+					for(int e=first[v]; e<first[v+1]; e++) {
+						int u = head[e];
+						double ng = space.g[v] + weight[e];
+						byte state = space.state(u);
+						if(state == Orienteering.CLOSED || (state == Orienteering.OPEN && space.g[u] <= ng)) {
+							continue;
+						}
+						space.g[u] = ng;
+						space.parent[u] = v;
+						pushed++;
+						if(state == Orienteering.OPEN) {
+							space.open.decreaseKey(u, ng);
+						} else {
+							space.open.add(u, ng);
+							space.setState(u, Orienteering.OPEN);
+						}
+						if(other.state(u) != 0 && ng + other.g[u] < best) {
+							best = ng + other.g[u];
+							meet = u;
+						}
+					}
+				}
+			}
+
+			ArrayList<Node> path = new ArrayList<Node>();
+			if(startCell == goalCell) {
+				path.add(new Node(x1, y1, 0, 0, null));
+			} else if(meet != -1) {
+				path = buildPath(unpack(s, t, meet, spaceF.parent, spaceR.parent));
+			}
+			if(stats != null) {
+				stats.expanded = expanded;
+				stats.pushed = pushed;
+				stats.nanos = System.nanoTime() - startTime;
+				stats.cost = path.isEmpty() ? Double.POSITIVE_INFINITY : path.get(0).g;
+			}
+			return path;
+		}
+
+		/*
+		 * Returns true if the search in space reached a node above v with a travel time that makes a shorter way
+		 * down to v than the one it was settled with. No shortest path then goes up from v, so its edges
+		 * need not be relaxed. Edges are the same both ways, so the edges from v up are also those down to it.
+		 */
+		private boolean stalled(SearchSpace space, int v) {
+			double g = space.g[v];
+			for(int e=first[v]; e<first[v+1]; e++) {
+				int u = head[e];
+				if(space.state(u) != 0 && space.g[u] + weight[e] < g) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/*
+		 * Puts node v on the open list of the space at travel time 0
+		 */
+		private static void start(SearchSpace space, int v) {
+			space.g[v] = 0;
+			space.parent[v] = -1;
+			space.open.add(v, 0);
+			space.setState(v, Orienteering.OPEN);
+		}
+
+		/*
+		 * Returns the cell ids of the acres of the path from s up to meet and down to t, with every shortcut on it unpacked
+		 */
+		private int[] unpack(int s, int t, int meet, int[] parentF, int[] parentR) {
+			// Nodes of the path through the hierarchy from s up to meet, then down to t
+			int up = 0;
+			for(int v=meet; v!=-1; v=parentF[v]) {
+				up++;
+			}
+			int down = 0;
+			for(int v=parentR[meet]; v!=-1; v=parentR[v]) {
+				down++;
+			}
+			int[] route = new int[up + down];
+			int i = up;
+			for(int v=meet; v!=-1; v=parentF[v]) {
+				route[--i] = v;
+			}
+			i = up;
+			for(int v=parentR[meet]; v!=-1; v=parentR[v]) {
+				route[i++] = v;
+			}
+
+			IntList acres = new IntList();
+			acres.add(cell[s]);
+			IntList stack = new IntList();
+			for(int r=1; r<route.length; r++) {
+				// Edges to unpack, as from, to and edge triples, with the next one to walk on top
+				stack.add(route[r-1]);
+				stack.add(route[r]);
+				stack.add(edge(route[r-1], route[r]));
+				while(stack.size > 0) {
+					int e = stack.pop();
+					int to = stack.pop();
+					int from = stack.pop();
+					int mid = middle[e];
+					if(mid == -1) {
+						acres.add(cell[to]);
+						continue;
+					}
+					// The shortcut is stored on the lower of from and to, and lower joins that node to mid
+					boolean rising = from < to;
+					stack.add(mid);
+					stack.add(to);
+					stack.add(rising ? upper[e] : lower[e]);
+					stack.add(from);
+					stack.add(mid);
+					stack.add(rising ? lower[e] : upper[e]);
+				}
+			}
+			return acres.toArray();
+		}
+
+		/*
+		 * Returns the edge between nodes a and b, stored on whichever was contracted first
+		 */
+		private int edge(int a, int b) {
+			int lo = Math.min(a, b);
+			int hi = Math.max(a, b);
+			for(int e=first[lo]; e<first[lo+1]; e++) {
+				if(head[e] == hi) {
+					return e;
+				}
+			}
+			throw new IllegalStateException("No edge between nodes " + a + " and " + b);
+		}
+
+		/*
+		 * Builds the Nodes of the path through the given acres, returned from the goal back to the start, adding
+		 * up the travel time step by step from the start as the other searches do
+		 */
+		private ArrayList<Node> buildPath(int[] acres) {
+			Node node = null;
+			double g = 0;
+			for(int i=0; i<acres.length; i++) {
+				int x = acres[i] % width;
+				int y = acres[i] / width;
+				if(node != null) {
+					g += costs.cost(node.x, node.y, BidirectionalSearch.direction(x - node.x, y - node.y));
+				}
+				node = new Node(x, y, g, 0, node);
+			}
+			ArrayList<Node> path = new ArrayList<Node>(acres.length);
+			while(node != null) {
+				path.add(node);
+				node = node.parent;
+			}
+			return path;
+		}
+
+		/*
+		 * Builds a hierarchy, saves it next to the terrain file and compares its queries with A* between random
+		 * acres: ContractionHierarchy terrain elevation season [threads] [queries]
+		 */
+		public static void main(String[] args) {
+			if(args.length < 3 || args.length > 5) {
+				System.err.println("Usage: ContractionHierarchy terrain elevation season [threads] [queries]");
+				System.exit(1);
+			}
+			int threads = (args.length >= 4) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+			int queries = (args.length == 5) ? Integer.parseInt(args[4]) : 1000;
+			EdgeCostTable costs = Orienteering.loadCosts(args[0], args[1], args[2]);
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			long startTime = System.nanoTime();
+			ContractionHierarchy ch = build(costs, pool);
+			long buildNanos = System.nanoTime() - startTime;
+			pool.shutdown();
+			System.out.printf("%d nodes, %d edges and shortcuts, built in %.2f s%n", ch.nodes(), ch.edges(), buildNanos / 1e9);
+			try {
+				ch.save(Orienteering.hierarchyFile(args[0], args[2]), LandmarkHeuristic.fingerprint(costs));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+
+			Heuristic distance = new DistanceHeuristic(costs.terrain);
+			Random random = new Random(1);
+			int[][] pairs = new int[queries][];
+			for(int q=0; q<queries; q++) {
+				pairs[q] = new int[] {ch.cell[random.nextInt(ch.nodes())], ch.cell[random.nextInt(ch.nodes())]};
+			}
+			// Warm up the JIT before timing anything, recording stats as the timed queries do so the code
+			// compiled for them is not thrown away on the first timed query
+			for(int q=0; queries > 0 && q<10000; q++) {
+				int[] pair = pairs[q % queries];
+				ch.search(pair[0] % costs.width, pair[0] / costs.width, pair[1] % costs.width, pair[1] / costs.width, new SearchStats());
+			}
+			// Each kind of search is timed in a run of its own, so neither leaves the caches cold for the other
+			SearchStats chTotal = new SearchStats();
+			SearchStats aTotal = new SearchStats();
+			chTotal.legs = 0;
+			aTotal.legs = 0;
+			double[] chCost = new double[queries];
+			for(int q=0; q<queries; q++) {
+				SearchStats chStats = new SearchStats();
+				ch.search(pairs[q][0] % costs.width, pairs[q][0] / costs.width, pairs[q][1] % costs.width, pairs[q][1] / costs.width, chStats);
+				chTotal.add(chStats);
+				chCost[q] = chStats.cost;
+			}
+			double worst = 0;
+			int mismatches = 0;
+			for(int q=0; q<queries; q++) {
+				SearchStats aStats = new SearchStats();
+				Orienteering.aStarSearch(costs, distance, pairs[q][0] % costs.width, pairs[q][0] / costs.width,
+						pairs[q][1] % costs.width, pairs[q][1] / costs.width, Orienteering.FORWARD, aStats);
+				aTotal.add(aStats);
+				if(chCost[q] != aStats.cost) {
+					double diff = Math.abs(chCost[q] - aStats.cost);
+					worst = Math.max(worst, Double.isNaN(diff) ? Double.POSITIVE_INFINITY : diff);
+					if(!(diff <= 1e-9 * Math.max(1, aStats.cost))) {
+						mismatches++;
+					}
+				}
+			}
+			System.out.printf("contraction: %.4f ms per query, %.1f nodes settled%n", chTotal.nanos / 1e6 / queries, (double) chTotal.expanded / queries);
+			System.out.printf("A*:          %.4f ms per query, %.1f nodes expanded%n", aTotal.nanos / 1e6 / queries, (double) aTotal.expanded / queries);
+			System.out.printf("%d of %d queries differ in cost, largest difference %.3g%n", mismatches, queries, worst);
+			if(mismatches > 0) {
+				System.exit(1);
+			}
+		}
+
+		/*
+		 * A growable list of ints
+		 */
+		static class IntList {
+			int[] values = new int[16];
+			int size;
+
+			void add(int value) {
+				if(size == values.length) {
+					values = Arrays.copyOf(values, size * 2);
+				}
+				values[size++] = value;
+			}
+
+			int pop() {
+				return values[--size];
+			}
+
+			int[] toArray() {
+				return Arrays.copyOf(values, size);
+			}
+		}
+
+		/*
+		 * Contracts the acres of a map one round at a time and gathers the edges each one keeps
+		 */
+		static class Builder {
+
+			final EdgeCostTable costs;
+			final ForkJoinPool pool;
+			final int n;
+
+			// Cell id of each node before the nodes are put in contraction order
+			final int[] cells;
+
+			// Edges of each node to its neighbours not yet contracted, with their travel times and the node
+			// each one skips, -1 for an edge of the grid
+			final int[][] adj;
+			final double[][] adjWeight;
+			final int[][] adjMiddle;
+			final int[] degree;
+
+			// Edges each node keeps up the hierarchy, taken from adj when it is contracted
+			final int[][] upHead;
+			final double[][] upWeight;
+			final int[][] upMiddle;
+
+			// Priority of each node and the number of shortcuts last counted for it
+			final int[] priority;
+			final int[] added;
+			final int[] deleted;
+			final int[] depth;
+			final boolean[] contracted;
+			final boolean[] contracting;
+			final int[] order;
+
+			// Witness search arrays of each thread
+			final ThreadLocal<Witness> witness;
+
+			Builder(EdgeCostTable costs, ForkJoinPool pool) {
+				this.costs = costs;
+				this.pool = pool;
+				int all = costs.map.cells();
+				int[] numbers = new int[all];
+				int count = 0;
+				for(int c=0; c<all; c++) {
+					if(TerrainGrid.PASSABLE[costs.terrain.at(c)]) {
+						numbers[c] = count++;
+					} else {
+						numbers[c] = -1;
+					}
+				}
+				this.n = count;
+				this.cells = new int[n];
+				for(int c=0; c<all; c++) {
+					if(numbers[c] != -1) {
+						cells[numbers[c]] = c;
+					}
+				}
+				this.adj = new int[n][];
+				this.adjWeight = new double[n][];
+				this.adjMiddle = new int[n][];
+				this.degree = new int[n];
+				int width = costs.width;
+				for(int v=0; v<n; v++) {
+					int x = cells[v] % width;
+					int y = cells[v] / width;
+					adj[v] = new int[8];
+					adjWeight[v] = new double[8];
+					adjMiddle[v] = new int[8];
+					for(int d=0; d<8; d++) {
+						float t = costs.cost(x, y, d);
+						if(t == Float.POSITIVE_INFINITY) {
+							continue;
+						}
+						int u = numbers[((y + Orienteering.DY[d]) * width) + x + Orienteering.DX[d]];
+						adj[v][degree[v]] = u;
+						adjWeight[v][degree[v]] = t;
+						adjMiddle[v][degree[v]] = -1;
+						degree[v]++;
+					}
+				}
+				this.upHead = new int[n][];
+				this.upWeight = new double[n][];
+				this.upMiddle = new int[n][];
+				this.priority = new int[n];
+				this.added = new int[n];
+				this.deleted = new int[n];
+				this.depth = new int[n];
+				this.contracted = new boolean[n];
+				this.contracting = new boolean[n];
+				this.order = new int[n];
+				this.witness = ThreadLocal.withInitial(() -> new Witness(n));
+			}
+
+			/*
+			 * Contracts every node and returns the hierarchy
+			 */
+			ContractionHierarchy build() {
+				int[] remaining = new int[n];
+				for(int v=0; v<n; v++) {
+					remaining[v] = v;
+				}
+				int left = n;
+				parallel(remaining, left, v -> {
+					added[v] = count(shortcuts(v));
+					priority[v] = priority(v);
+				});
+
+				int next = 0;
+				int[] round = new int[n];
+				double[][][] found = new double[n][][];
+				while(left > 0) {
+					// Nodes more urgent than all of their remaining neighbours, whose shortcuts are then found for real
+					int size = 0;
+					for(int i=0; i<left; i++) {
+						int v = remaining[i];
+						if(independent(v)) {
+							round[size++] = v;
+							contracting[v] = true;
+						}
+					}
+					final int[] set = round;
+					parallel(set, size, v -> {
+						found[v] = shortcuts(v);
+						added[v] = count(found[v]);
+						priority[v] = priority(v);
+					});
+
+					// Those still more urgent than their neighbours are contracted with the shortcuts just found, the
+					// others wait for a later round. One is always contracted, so every round makes progress.
+					int done = 0;
+					for(int i=0; i<size; i++) {
+						int v = set[i];
+						if(independent(v) || (done == 0 && i == size - 1)) {
+							contract(v, found[v]);
+							order[v] = next++;
+							done++;
+						}
+						found[v] = null;
+					}
+					for(int i=0; i<size; i++) {
+						contracting[set[i]] = false;
+					}
+
+					// Neighbours of the nodes just contracted get new priorities, counting their shortcuts quickly
+					int touched = 0;
+					int[] update = new int[Math.min(n, size * 16 + 16)];
+					for(int i=0; i<size; i++) {
+						int v = set[i];
+						if(!contracted[v]) {
+							continue;
+						}
+						for(int k=0; k<upHead[v].length; k++) {
+							int u = upHead[v][k];
+							if(!contracting[u]) {
+								contracting[u] = true;
+								if(touched == update.length) {
+									update = Arrays.copyOf(update, update.length * 2);
+								}
+								update[touched++] = u;
+							}
+						}
+					}
+					for(int i=0; i<touched; i++) {
+						contracting[update[i]] = false;
+					}
+					parallel(update, touched, v -> {
+						added[v] = witness.get().estimate(this, v);
+						priority[v] = priority(v);
+					});
+
+					int kept = 0;
+					for(int i=0; i<left; i++) {
+						if(!contracted[remaining[i]]) {
+							remaining[kept++] = remaining[i];
+						}
+					}
+					left = kept;
+				}
+				return gather();
+			}
+
+			/*
+			 * Returns true if node v goes before all of its remaining neighbours
+			 */
+			boolean independent(int v) {
+				for(int k=0; k<degree[v]; k++) {
+					int u = adj[v][k];
+					if(priority[u] < priority[v] || (priority[u] == priority[v] && mix(u) < mix(v))) {
+						return false;
+					}
+				}
+				return true;
+			}
+
+			/*
+			 * Scrambles a node number, so ties between neighbours are not always broken the same way across the map
+			 */
+			static int mix(int v) {
+				int h = v * 0x9E3779B1;
+				return h ^ (h >>> 16);
+			}
+
+			/*
+			 * Returns how urgently node v should be contracted, smaller first, from the number of shortcuts last
+			 * counted for it against the edges it has, its contracted neighbours and the depth of the hierarchy under it
+			 */
+			int priority(int v) {
+				return (4 * (added[v] - degree[v])) + deleted[v] + depth[v];
+			}
+
+			/*
+			 * Returns the number of shortcuts in the list returned by shortcuts
+			 */
+			static int count(double[][] shortcuts) {
+				return (shortcuts == null) ? 0 : shortcuts[0].length;
+			}
+
+			/*
+			 * Returns the shortcuts contracting node v needs, as the from and to nodes and travel times of each, or null
+			 * if it needs none. Witness searches keep out of v and of every node being contracted in the same round.
+			 */
+			double[][] shortcuts(int v) {
+				Witness w = witness.get();
+				int d = degree[v];
+				int[] nb = adj[v];
+				double[] nw = adjWeight[v];
+				double[] from = null;
+				double[] to = null;
+				double[] time = null;
+				int count = 0;
+				for(int i=0; i<d; i++) {
+					int a = nb[i];
+					double limit = 0;
+					for(int j=i+1; j<d; j++) {
+						limit = Math.max(limit, nw[i] + nw[j]);
+					}
+					if(i == d - 1) {
+						break;
+					}
+					w.search(this, a, v, nb, i + 1, d, limit);
+					for(int j=i+1; j<d; j++) {
+						double through = nw[i] + nw[j];
+						if(w.distance(nb[j]) > through) {
+							if(from == null) {
+								from = new double[d * (d - 1) / 2];
+								to = new double[from.length];
+								time = new double[from.length];
+							}
+							from[count] = a;
+							to[count] = nb[j];
+							time[count] = through;
+							count++;
+						}
+					}
+				}
+				if(count == 0) {
+					return null;
+				}
+				return new double[][] {Arrays.copyOf(from, count), Arrays.copyOf(to, count), Arrays.copyOf(time, count)};
+			}
+
+			/*
+			 * Contracts node v: keeps its remaining edges as its edges up the hierarchy, takes it out of the graph
+			 * and adds the shortcuts found for it
+			 */
+			void contract(int v, double[][] shortcuts) {
+				int d = degree[v];
+				upHead[v] = Arrays.copyOf(adj[v], d);
+				upWeight[v] = Arrays.copyOf(adjWeight[v], d);
+				upMiddle[v] = Arrays.copyOf(adjMiddle[v], d);
+				for(int k=0; k<d; k++) {
+					int u = adj[v][k];
+					remove(u, v);
+					deleted[u]++;
+					depth[u] = Math.max(depth[u], depth[v] + 1);
+				}
+				contracted[v] = true;
+				adj[v] = null;
+				adjWeight[v] = null;
+				adjMiddle[v] = null;
+				degree[v] = 0;
+				if(shortcuts != null) {
+					for(int k=0; k<shortcuts[0].length; k++) {
+						int a = (int) shortcuts[0][k];
+						int b = (int) shortcuts[1][k];
+						link(a, b, shortcuts[2][k], v);
+						link(b, a, shortcuts[2][k], v);
+					}
+				}
+			}
+
+			/*
+			 * Removes the edge from node u to node v
+			 */
+			void remove(int u, int v) {
+				int[] nb = adj[u];
+				for(int k=0; k<degree[u]; k++) {
+					if(nb[k] == v) {
+						int last = --degree[u];
+						nb[k] = nb[last];
+						adjWeight[u][k] = adjWeight[u][last];
+						adjMiddle[u][k] = adjMiddle[u][last];
+						return;
+					}
+				}
+			}
+
+			/*
+			 * Adds an edge from node a to node b skipping node mid, or lowers the travel time of the edge already there
+			 */
+			void link(int a, int b, double time, int mid) {
+				for(int k=0; k<degree[a]; k++) {
+					if(adj[a][k] == b) {
+						if(time < adjWeight[a][k]) {
+							adjWeight[a][k] = time;
+							adjMiddle[a][k] = mid;
+						}
+						return;
+					}
+				}
+				if(degree[a] == adj[a].length) {
+					int grown = adj[a].length * 2;
+					adj[a] = Arrays.copyOf(adj[a], grown);
+					adjWeight[a] = Arrays.copyOf(adjWeight[a], grown);
+					adjMiddle[a] = Arrays.copyOf(adjMiddle[a], grown);
+				}
+				adj[a][degree[a]] = b;
+				adjWeight[a][degree[a]] = time;
+				adjMiddle[a][degree[a]] = mid;
+				degree[a]++;
+			}
+
+			/*
+			 * Numbers the nodes in contraction order and packs their edges up the hierarchy into arrays
+			 */
+			ContractionHierarchy gather() {
+				int[] cell = new int[n];
+				int[] first = new int[n + 1];
+				for(int v=0; v<n; v++) {
+					cell[order[v]] = cells[v];
+					first[order[v] + 1] = upHead[v].length;
+				}
+				for(int r=0; r<n; r++) {
+					first[r + 1] += first[r];
+				}
+				int m = first[n];
+				int[] head = new int[m];
+				double[] weight = new double[m];
+				int[] middle = new int[m];
+				for(int v=0; v<n; v++) {
+					int e = first[order[v]];
+					for(int k=0; k<upHead[v].length; k++) {
+						head[e] = order[upHead[v][k]];
+						weight[e] = upWeight[v][k];
+						middle[e] = (upMiddle[v][k] == -1) ? -1 : order[upMiddle[v][k]];
+						e++;
+					}
+				}
+				return new ContractionHierarchy(costs, cell, first, head, weight, middle);
+			}
+
+			/*
+			 * Work done for one node
+			 */
+			interface NodeTask {
+				void run(int v);
+			}
+
+			/*
+			 * Runs the task for the first count nodes of the array, split into one chunk per thread of the pool
+			 */
+			void parallel(int[] nodes, int count, NodeTask task) {
+				int chunks = Math.min(pool.getParallelism(), (count + 255) / 256);
+				if(chunks <= 1) {
+					for(int i=0; i<count; i++) {
+						task.run(nodes[i]);
+					}
+					return;
+				}
+				ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+				for(int c=0; c<chunks; c++) {
+					final int lo = (int) ((long) count * c / chunks);
+					final int hi = (int) ((long) count * (c + 1) / chunks);
+					tasks.add(pool.submit(() -> {
+						for(int i=lo; i<hi; i++) {
+							task.run(nodes[i]);
+						}
+					}));
+				}
+				for(ForkJoinTask<?> t : tasks) {
+					t.join();
+				}
+			}
+		}
+
+		/*
+		 * Arrays of one thread's witness searches, reused from search to search
+		 */
+		static class Witness {
+			final double[] dist;
+			final int[] stamp;
+			final int[] target;
+			final IndexedHeap open;
+			int generation;
+
+			Witness(int n) {
+				this.dist = new double[n];
+				this.stamp = new int[n];
+				this.target = new int[n];
+				this.open = new IndexedHeap(n);
+			}
+
+			/*
+			 * Runs Dijkstra from node a in the remaining graph without node v and the nodes being contracted, until
+			 * every target is settled, the next node is further than limit or WITNESS_LIMIT nodes are settled
+			 */
+			void search(Builder b, int a, int v, int[] targets, int from, int to, double limit) {
+				generation++;
+				open.clear();
+				for(int j=from; j<to; j++) {
+					target[targets[j]] = generation;
+				}
+				int left = to - from;
+				dist[a] = 0;
+				stamp[a] = generation;
+				open.add(a, 0);
+				int settled = 0;
+				while(!open.isEmpty()) {
+					int x = open.peek();
+					if(open.getKey(x) > limit || ++settled > WITNESS_LIMIT) {
+						break;
+					}
+					open.poll();
+					// Nothing further can shorten the way to targets already settled
+					if(target[x] == generation && --left == 0) {
+						break;
+					}
+					int[] nb = b.adj[x];
+					double[] nw = b.adjWeight[x];
+					for(int k=0; k<b.degree[x]; k++) {
+						int y = nb[k];
+						if(y == v || b.contracting[y]) {
+							continue;
+						}
+						double nd = dist[x] + nw[k];
+						if(stamp[y] != generation) {
+							stamp[y] = generation;
+							dist[y] = nd;
+							open.add(y, nd);
+						} else if(nd < dist[y] && open.contains(y)) {
+							dist[y] = nd;
+							open.decreaseKey(y, nd);
+						}
+					}
+				}
+			}
+
+			/*
+			 * Returns how many shortcuts contracting node v would need, counting a pair of its neighbours as having
+			 * a witness if there is an edge between them, or a path of two edges not through v, no longer than
+			 * the way through v. Longer witnesses are not looked for, so this can only count too many.
+			 */
+			int estimate(Builder b, int v) {
+				int d = b.degree[v];
+				int[] nb = b.adj[v];
+				double[] nw = b.adjWeight[v];
+				int count = 0;
+				for(int i=0; i<d-1; i++) {
+					int a = nb[i];
+					generation++;
+					int[] an = b.adj[a];
+					double[] aw = b.adjWeight[a];
+					for(int k=0; k<b.degree[a]; k++) {
+						if(an[k] != v) {
+							stamp[an[k]] = generation;
+							dist[an[k]] = aw[k];
+						}
+					}
+					for(int j=i+1; j<d; j++) {
+						int c = nb[j];
+						double through = nw[i] + nw[j];
+						if(stamp[c] == generation && dist[c] <= through) {
+							continue;
+						}
+						boolean found = false;
+						int[] cn = b.adj[c];
+						double[] cw = b.adjWeight[c];
+						for(int k=0; k<b.degree[c] && !found; k++) {
+							int y = cn[k];
+							found = y != v && stamp[y] == generation && dist[y] + cw[k] <= through;
+						}
+						if(!found) {
+							count++;
+						}
+					}
+				}
+				return count;
+			}
+
+			/*
+			 * Returns the shortest travel time the last search found to node y, infinity if it did not reach it
+			 */
+			double distance(int y) {
+				return (stamp[y] == generation) ? dist[y] : Double.POSITIVE_INFINITY;
+			}
+		}
+}
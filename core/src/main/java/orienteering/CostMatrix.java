@@ -0,0 +1,276 @@
+package orienteering;
+
+/**
+ * Class CostMatrix is a helper class for Orienteering. It holds the
+ * travel time between every pair of controls of a course, for course
+ * design and for choosing the order to visit controls in, found with one
+ * Dijkstra sweep per control instead of one search per pair.
+ *
+ * Travel times are the same in both directions, so the sweep from the
+ * i'th distinct control only runs until every later control is settled,
+ * and the last control needs no sweep at all. The sweeps run in parallel
+ * on a ForkJoinPool. Each keeps the direction of the step into every
+ * acre it settled, one byte per acre, so the path between any two
+ * controls can be traced back when it is asked for.
+ *
+ * Usage: java CostMatrix terrain elevation course season [threads]
+ */
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class CostMatrix {
+
+		final EdgeCostTable costs;
+		final int[] controls;
+
+		// Travel time from control i to control j
+		final double[][] cost;
+
+		// Cell ids of the distinct controls and which of them each control is
+		private final int[] cells;
+		private final int[] index;
+
+		// Direction + 1 of the step into each acre settled by the sweep from each distinct control, 0 if unsettled
+		private final byte[][] via;
+
+		// Acres settled by all the sweeps
+		long expanded;
+
+		private CostMatrix(EdgeCostTable costs, int[] controls, int[] cells, int[] index, byte[][] via, double[][] between) {
+			this.costs = costs;
+			this.controls = controls;
+			this.cells = cells;
+			this.index = index;
+			this.via = via;
+			int n = controls.length / 2;
+			this.cost = new double[n][n];
+			for(int i=0; i<n; i++) {
+				for(int j=0; j<n; j++) {
+					int a = Math.min(index[i], index[j]);
+					int b = Math.max(index[i], index[j]);
+					cost[i][j] = between[a][b];
+				}
+			}
+		}
+
+		/*
+		 * Finds the travel times between every pair of the controls given as x, y pairs, sweeping on the pool
+		 */
+		public static CostMatrix build(EdgeCostTable costs, int[] controls, ForkJoinPool pool) {
+			int n = controls.length / 2;
+
+			// Controls visited more than once, such as a start that is also the finish, are swept once
+			int[] index = new int[n];
+			int[] found = new int[n];
+			int distinct = 0;
+			for(int i=0; i<n; i++) {
+				int id = (controls[(i*2)+1] * costs.width) + controls[i*2];
+				index[i] = -1;
+				for(int k=0; k<distinct; k++) {
+					if(found[k] == id) {
+						index[i] = k;
+					}
+				}
+				if(index[i] == -1) {
+					found[distinct] = id;
+					index[i] = distinct++;
+				}
+			}
+			final int[] cells = java.util.Arrays.copyOf(found, distinct);
+
+			double[][] between = new double[distinct][distinct];
+			byte[][] via = new byte[distinct][];
+			long[] settled = new long[distinct];
+			ArrayList<ForkJoinTask<Void>> tasks = new ArrayList<ForkJoinTask<Void>>();
+			for(int k=0; k<distinct-1; k++) {
+				final int source = k;
+				tasks.add(pool.submit(new Callable<Void>() {
+					public Void call() {
+						via[source] = new byte[costs.map.cells()];
+						settled[source] = sweep(costs, cells, source, between[source], via[source]);
+						return null;
+					}
+				}));
+			}
+			for(ForkJoinTask<Void> task : tasks) {
+				task.join();
+			}
+
+			CostMatrix matrix = new CostMatrix(costs, controls, cells, index, via, between);
+			for(long s : settled) {
+				matrix.expanded += s;
+			}
+			return matrix;
+		}
+
+		/*
+		 * Runs Dijkstra from distinct control source until every later control is settled, filling in
+		 * their travel times and the steps into the acres settled, and returns how many acres were settled
+		 */
+		private static long sweep(EdgeCostTable costs, int[] cells, int source, double[] times, byte[] via) {
+			int width = costs.width;
+			int height = costs.height;
+			SearchSpace space = SearchSpace.acquire(costs.map.cells(), 0);
+			IndexedHeap openList = space.open;
+			double[] g = space.g;
+
+			// Mark the controls still to be settled
+			int remaining = 0;
+			for(int k=source+1; k<cells.length; k++) {
+				times[k] = Double.POSITIVE_INFINITY;
+				remaining++;
+			}
+
+			int startId = cells[source];
+			g[startId] = 0;
+			openList.add(startId, 0);
+			space.setState(startId, Orienteering.OPEN);
+			long settled = 0;
+			while(!openList.isEmpty() && remaining > 0) {
+				int qId = openList.poll();
+				space.setState(qId, Orienteering.CLOSED);
+				settled++;
+				if(qId != startId) {
+					via[qId] = (byte) (space.dir[qId] + 1);
+				}
+				for(int k=source+1; k<cells.length; k++) {
+					if(cells[k] == qId) {
+						times[k] = g[qId];
+						remaining--;
+					}
+				}
+
+				int qx = qId % width;
+				int qy = qId / width;
+				for(int d=0; d<8; d++) {
+					int nx = qx + Orienteering.DX[d];
+					int ny = qy + Orienteering.DY[d];
+					if(nx < 0 || ny < 0 || nx >= width || ny >= height) {
+						continue;
+					}
+					int nId = (ny * width) + nx;
+					byte nState = space.state(nId);
+					if(nState == Orienteering.CLOSED) {
+						continue;
+					}
+					float t = costs.cost(qx, qy, d);
+					if(t == Float.POSITIVE_INFINITY) {
+						continue;
+					}
+					double ng = g[qId] + t;
+					if(nState == Orienteering.OPEN && g[nId] <= ng) {
+						continue;
+					}
+					g[nId] = ng;
+					space.dir[nId] = (byte) d;
+					if(nState == Orienteering.OPEN) {
+						openList.decreaseKey(nId, ng);
+					} else {
+						openList.add(nId, ng);
+						space.setState(nId, Orienteering.OPEN);
+					}
+				}
+			}
+			return settled;
+		}
+
+		/*
+		 * Returns the number of controls
+		 */
+		public int size() {
+			return cost.length;
+		}
+
+		/*
+		 * Returns the travel time from control i to control j
+		 */
+		public double cost(int i, int j) {
+			return cost[i][j];
+		}
+
+		/*
+		 * Returns the path from control i to control j from the goal back to the start, traced from the
+		 * sweep that found it, or an empty path if j cannot be reached from i
+		 */
+		public ArrayList<Node> path(int i, int j) {
+			ArrayList<Node> path = new ArrayList<Node>();
+			if(cost[i][j] == Double.POSITIVE_INFINITY) {
+				return path;
+			}
+			int a = index[i];
+			int b = index[j];
+			int width = costs.width;
+
+			// Trace back from the later control through the sweep of the earlier one
+			int source = Math.min(a, b);
+			int length = 1;
+			for(int c=cells[Math.max(a, b)]; c!=cells[source]; length++) {
+				int d = via[source][c] - 1;
+				c -= (Orienteering.DY[d] * width) + Orienteering.DX[d];
+			}
+			int[] trace = new int[length];
+			int c = cells[Math.max(a, b)];
+			for(int k=0; k<length; k++) {
+				trace[k] = c;
+				if(k < length - 1) {
+					int d = via[source][c] - 1;
+					c -= (Orienteering.DY[d] * width) + Orienteering.DX[d];
+				}
+			}
+
+			// The trace runs from b to a, so walk it backwards when i is the later control
+			Node node = null;
+			for(int k=0; k<length; k++) {
+				int id = (a < b) ? trace[length - 1 - k] : trace[k];
+				int x = id % width;
+				int y = id / width;
+				double g = 0;
+				if(node != null) {
+					g = node.g + costs.cost(node.x, node.y, BidirectionalSearch.direction(x - node.x, y - node.y));
+				}
+				node = new Node(x, y, g, 0, node);
+			}
+			while(node != null) {
+				path.add(node);
+				node = node.parent;
+			}
+			return path;
+		}
+
+		/*
+		 * Main function, printing the travel time between every pair of controls of a course
+		 */
+		public static void main(String[] args) {
+			if(args.length != 4 && args.length != 5) {
+				System.err.println("Usage: CostMatrix terrain elevation course season [threads]");
+				System.exit(1);
+			}
+			MapModel map = MapModel.load(args[0], args[1], args[3]);
+			int[] controls = Orienteering.loadCourse(args[2]);
+			int threads = (args.length == 5) ? Integer.parseInt(args[4]) : Runtime.getRuntime().availableProcessors();
+			EdgeCostTable costs = new EdgeCostTable(map);
+			costs.buildAll();
+
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			long start = System.nanoTime();
+			CostMatrix matrix = build(costs, controls, pool);
+			long nanos = System.nanoTime() - start;
+			pool.shutdown();
+
+			System.out.print("    ");
+			for(int j=0; j<matrix.size(); j++) {
+				System.out.printf(" %8d", j + 1);
+			}
+			System.out.println();
+			for(int i=0; i<matrix.size(); i++) {
+				System.out.printf("%3d ", i + 1);
+				for(int j=0; j<matrix.size(); j++) {
+					System.out.printf(" %8.2f", matrix.cost(i, j));
+				}
+				System.out.println();
+			}
+			System.out.println(matrix.expanded + " settled, " + String.format("%.3f", nanos / 1e6) + " ms");
+		}
+}
@@ -0,0 +1,68 @@
+package orienteering;
+
+/**
+ * Class CourseEvent is a helper class for Orienteering. It is the Java
+ * Flight Recorder event committed for each course CourseSolver solves,
+ * holding the counts of all its legs added together. Its duration is
+ * the time from the first leg starting to the last one finishing.
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("orienteering.Course")
+@Label("Course")
+@Category("Orienteering")
+@Description("Every leg of a course searched by CourseSolver")
+@StackTrace(false)
+public class CourseEvent extends Event {
+
+		@Label("Legs")
+		int legs;
+
+		@Label("Travel Time")
+		double cost;
+
+		@Label("Expanded")
+		long expanded;
+
+		@Label("Pushed")
+		long pushed;
+
+		@Label("Rejected")
+		long rejected;
+
+		@Label("Blocked")
+		long blocked;
+
+		@Label("Edges")
+		long edges;
+
+		@Label("Peak Open")
+		@Description("Most nodes on the open list of any one leg")
+		int peakOpen;
+
+		@Label("Search Time")
+		@Description("Time spent searching, summed over the legs")
+		@Timespan
+		long searchNanos;
+
+		/*
+		 * Copies the counts of the whole course into the event
+		 */
+		void set(SearchStats total) {
+			legs = total.legs;
+			cost = total.cost;
+			expanded = total.expanded;
+			pushed = total.pushed;
+			rejected = total.rejected;
+			blocked = total.blocked;
+			edges = total.edges;
+			peakOpen = total.peakOpen;
+			searchNanos = total.nanos;
+		}
+}
@@ -0,0 +1,67 @@
+package orienteering;
+
+/**
+ * Class CourseMetrics is a helper class for Orienteering. CourseSolver
+ * fills one in, when given one, with the SearchStats of every leg of a
+ * course, and the caller can add how long each phase of the run took,
+ * such as loading the map or building the landmarks. It writes all of
+ * it as one JSON object, so a slow course can be put down to the map,
+ * the heuristic or the search itself.
+ */
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class CourseMetrics {
+
+		// Stats of each leg in course order, and of all of them added together
+		SearchStats[] legs;
+		SearchStats total;
+
+		// Controls of the course as x, y pairs
+		int[] controls;
+
+		// Time from the first leg starting to the last one finishing
+		long wallNanos;
+
+		// Time taken by each phase of the run, in the order they were added
+		private final Map<String, Long> phases = new LinkedHashMap<String, Long>();
+
+		/*
+		 * Records how long a phase of the run took
+		 */
+		public void phase(String name, long nanos) {
+			phases.put(name, nanos);
+		}
+
+		/*
+		 * Returns the legs, phases and totals as a JSON object
+		 */
+		public String toJson() {
+			StringBuilder json = new StringBuilder();
+			json.append("{\"phases\":{");
+			boolean first = true;
+			for(Map.Entry<String, Long> phase : phases.entrySet()) {
+				json.append(first ? "" : ",").append('"').append(phase.getKey()).append("\":")
+					.append(String.format("%.3f", phase.getValue() / 1e6));
+				first = false;
+			}
+			json.append('}');
+			if(total != null) {
+				json.append(",\"course\":{\"legs\":").append(total.legs).append(',');
+				total.appendJson(json);
+				json.append(",\"wallMillis\":").append(String.format("%.3f", wallNanos / 1e6)).append('}');
+				json.append(",\"legs\":[");
+				for(int i=0; i<legs.length; i++) {
+					json.append((i == 0) ? "{" : ",{");
+					json.append("\"leg\":").append(i);
+					json.append(",\"from\":[").append(controls[i*2]).append(',').append(controls[(i*2)+1]).append(']');
+					json.append(",\"to\":[").append(controls[(i*2)+2]).append(',').append(controls[(i*2)+3]).append("],");
+					legs[i].appendJson(json);
+					json.append('}');
+				}
+				json.append(']');
+			}
+			json.append('}');
+			return json.toString();
+		}
+}
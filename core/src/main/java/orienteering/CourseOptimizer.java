@@ -0,0 +1,456 @@
+package orienteering;
+
+/**
+ * Class CourseOptimizer is a helper class for Orienteering. It chooses
+ * the order to visit the controls of a course in, from the travel times
+ * between them in a CostMatrix, keeping the first control as the start
+ * and the last as the finish. For score-O events, where each control is
+ * worth some points and the course must be run within a time limit, it
+ * chooses which controls to visit as well.
+ *
+ * A tour is built by cheapest insertion, or for score-O by inserting
+ * the control with the most points per added travel time that still
+ * fits, and then shortened by 2-opt, which reverses a stretch of the
+ * tour, and Or-opt, which moves a run of up to three controls elsewhere,
+ * until neither helps. Each start of a multi-start run inserts the
+ * controls in a different random order, and the starts are shared out
+ * over a ForkJoinPool. 2-opt assumes travel times are the same in both
+ * directions, as they are for travelTime.
+ *
+ * Usage: java CourseOptimizer terrain elevation course season [budget]
+ */
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import javax.imageio.ImageIO;
+
+public class CourseOptimizer {
+
+		// Smallest change in travel time counted as an improvement
+		static final double EPSILON = 1e-9;
+
+		// Longest run of controls Or-opt moves
+		static final int OR_OPT = 3;
+
+		// Starts given to each thread of a multi-start run
+		static final int STARTS_PER_THREAD = 8;
+
+		private final double[][] cost;
+		private final double[] score;
+		private final int start;
+		private final int finish;
+		private final double budget;
+
+		/*
+		 * An optimizer over the travel times in cost from control start to control finish, visiting
+		 * controls worth the points in score within budget, or every control if score is null
+		 */
+		public CourseOptimizer(double[][] cost, double[] score, int start, int finish, double budget) {
+			this.cost = cost;
+			this.score = score;
+			this.start = start;
+			this.finish = finish;
+			this.budget = budget;
+		}
+
+		/*
+		 * An optimizer visiting every control of the matrix, from its first control to its last
+		 */
+		public CourseOptimizer(double[][] cost) {
+			this(cost, null, 0, cost.length - 1, Double.POSITIVE_INFINITY);
+		}
+
+		/*
+		 * Returns the best order found by one start, seeded by seed, as control indices from the start
+		 * to the finish. Seed 0 inserts deterministically; other seeds insert in a random order.
+		 */
+		public int[] solve(long seed) {
+			Random random = (seed == 0) ? null : new Random(seed);
+			return (score == null) ? insertAll(random) : insertScoring(random);
+		}
+
+		/*
+		 * Returns the best order found over the given number of starts, run on the pool
+		 */
+		public int[] solve(int starts, ForkJoinPool pool) {
+			ArrayList<ForkJoinTask<int[]>> tasks = new ArrayList<ForkJoinTask<int[]>>();
+			for(int s=0; s<starts; s++) {
+				final long seed = s;
+				tasks.add(pool.submit(new Callable<int[]>() {
+					public int[] call() {
+						return solve(seed);
+					}
+				}));
+			}
+			int[] best = null;
+			for(ForkJoinTask<int[]> task : tasks) {
+				int[] tour = task.join();
+				if(best == null || better(tour, best)) {
+					best = tour;
+				}
+			}
+			return best;
+		}
+
+		/*
+		 * Returns the best order found with a few starts for every thread of the pool
+		 */
+		public int[] solve(ForkJoinPool pool) {
+			return solve(pool.getParallelism() * STARTS_PER_THREAD, pool);
+		}
+
+		/*
+		 * Returns true if tour a scores more than tour b, or the same in less time
+		 */
+		private boolean better(int[] a, int[] b) {
+			double sa = points(a);
+			double sb = points(b);
+			if(sa != sb) {
+				return sa > sb;
+			}
+			return time(a) < time(b) - EPSILON;
+		}
+
+		/*
+		 * Returns the travel time of a tour
+		 */
+		public double time(int[] tour) {
+			double t = 0;
+			for(int i=1; i<tour.length; i++) {
+				t += cost[tour[i-1]][tour[i]];
+			}
+			return t;
+		}
+
+		/*
+		 * Returns the points a tour scores, counting each control once
+		 */
+		public double points(int[] tour) {
+			if(score == null) {
+				return tour.length;
+			}
+			boolean[] seen = new boolean[cost.length];
+			double p = 0;
+			for(int c : tour) {
+				if(!seen[c]) {
+					seen[c] = true;
+					p += score[c];
+				}
+			}
+			return p;
+		}
+
+		/*
+		 * Builds a tour through every control by cheapest insertion, picking the next control either by
+		 * cheapest insertion or at random, and shortens it
+		 */
+		private int[] insertAll(Random random) {
+			int[] tour = new int[cost.length];
+			tour[0] = start;
+			tour[1] = finish;
+			int length = 2;
+			ArrayList<Integer> left = new ArrayList<Integer>();
+			for(int c=0; c<cost.length; c++) {
+				if(c != start && c != finish) {
+					left.add(c);
+				}
+			}
+			while(!left.isEmpty()) {
+				int pick = 0;
+				if(random != null) {
+					pick = random.nextInt(left.size());
+				} else {
+					double best = Double.POSITIVE_INFINITY;
+					for(int k=0; k<left.size(); k++) {
+						int c = left.get(k);
+						double added = insertion(tour, cheapest(tour, length, c), c);
+						if(added < best) {
+							best = added;
+							pick = k;
+						}
+					}
+				}
+				int c = left.remove(pick);
+				length = insert(tour, length, cheapest(tour, length, c), c);
+			}
+			improve(tour, length);
+			return tour;
+		}
+
+		/*
+		 * Builds a score-O tour by inserting the control worth the most points per added travel time
+		 * while the tour stays within budget, shortening the tour whenever nothing more fits to make
+		 * room. Random starts weigh each control's ratio by a random factor.
+		 */
+		private int[] insertScoring(Random random) {
+			int[] tour = new int[cost.length];
+			tour[0] = start;
+			tour[1] = finish;
+			int length = 2;
+			boolean[] visited = new boolean[cost.length];
+			visited[start] = true;
+			visited[finish] = true;
+			double[] weight = new double[cost.length];
+			for(int c=0; c<cost.length; c++) {
+				weight[c] = (random == null) ? 1 : 0.5 + random.nextDouble();
+			}
+
+			double time = cost[start][finish];
+			boolean grew = true;
+			while(grew) {
+				grew = false;
+				while(true) {
+					int pick = -1;
+					int pickAt = -1;
+					double pickAdded = 0;
+					double best = Double.NEGATIVE_INFINITY;
+					for(int c=0; c<cost.length; c++) {
+						if(visited[c] || score[c] <= 0) {
+							continue;
+						}
+						int at = cheapest(tour, length, c);
+						double added = insertion(tour, at, c);
+						if(time + added > budget) {
+							continue;
+						}
+						double ratio = (score[c] * weight[c]) / Math.max(added, EPSILON);
+						if(ratio > best) {
+							best = ratio;
+							pick = c;
+							pickAt = at;
+							pickAdded = added;
+						}
+					}
+					if(pick == -1) {
+						break;
+					}
+					length = insert(tour, length, pickAt, pick);
+					visited[pick] = true;
+					time += pickAdded;
+					grew = true;
+				}
+				// Shortening the tour may make room for more controls
+				double before = time;
+				improve(tour, length);
+				time = time(Arrays.copyOf(tour, length));
+				grew &= time < before - EPSILON;
+			}
+			return Arrays.copyOf(tour, length);
+		}
+
+		/*
+		 * Returns the position control c is cheapest to insert before in the first length controls of the tour
+		 */
+		private int cheapest(int[] tour, int length, int c) {
+			int at = 1;
+			double best = Double.POSITIVE_INFINITY;
+			for(int i=1; i<length; i++) {
+				double added = insertion(tour, i, c);
+				if(added < best) {
+					best = added;
+					at = i;
+				}
+			}
+			return at;
+		}
+
+		/*
+		 * Returns the travel time added by inserting control c before position i of the tour
+		 */
+		private double insertion(int[] tour, int i, int c) {
+			return cost[tour[i-1]][c] + cost[c][tour[i]] - cost[tour[i-1]][tour[i]];
+		}
+
+		/*
+		 * Inserts control c before position i of the first length controls of the tour, returning the new length
+		 */
+		private static int insert(int[] tour, int length, int i, int c) {
+			System.arraycopy(tour, i, tour, i + 1, length - i);
+			tour[i] = c;
+			return length + 1;
+		}
+
+		/*
+		 * Shortens the first length controls of the tour with 2-opt and Or-opt moves until neither helps,
+		 * leaving the start and finish in place
+		 */
+		void improve(int[] tour, int length) {
+			boolean improved = true;
+			while(improved) {
+				improved = twoOpt(tour, length);
+				improved |= orOpt(tour, length);
+			}
+		}
+
+		/*
+		 * Reverses stretches of the tour while that shortens it, returning true if it did
+		 */
+		private boolean twoOpt(int[] tour, int length) {
+			boolean any = false;
+			boolean improved = true;
+			while(improved) {
+				improved = false;
+				for(int i=1; i<length-2; i++) {
+					for(int j=i+1; j<length-1; j++) {
+						// Replace edges (i-1, i) and (j, j+1) with (i-1, j) and (i, j+1)
+						double delta = cost[tour[i-1]][tour[j]] + cost[tour[i]][tour[j+1]]
+								- cost[tour[i-1]][tour[i]] - cost[tour[j]][tour[j+1]];
+						if(delta < -EPSILON) {
+							reverse(tour, i, j);
+							improved = true;
+							any = true;
+						}
+					}
+				}
+			}
+			return any;
+		}
+
+		/*
+		 * Moves runs of up to OR_OPT controls, either way round, to wherever that shortens the tour most,
+		 * returning true if it did
+		 */
+		private boolean orOpt(int[] tour, int length) {
+			boolean any = false;
+			boolean improved = true;
+			while(improved) {
+				improved = false;
+				for(int run=1; run<=OR_OPT && !improved; run++) {
+					for(int i=1; i+run<length && !improved; i++) {
+						int first = tour[i];
+						int last = tour[i+run-1];
+						int before = tour[i-1];
+						int after = tour[i+run];
+						double removed = cost[before][first] + cost[last][after] - cost[before][after];
+
+						// Best gap between controls a and b outside the run to put it into
+						double best = -EPSILON;
+						int bestAt = -1;
+						boolean bestFlip = false;
+						for(int k=1; k<length; k++) {
+							if(k >= i && k <= i + run) {
+								continue;
+							}
+							int a = tour[k-1];
+							int b = tour[k];
+							double gain = removed - (cost[a][first] + cost[last][b] - cost[a][b]);
+							double flipped = removed - (cost[a][last] + cost[first][b] - cost[a][b]);
+							if(gain > best) {
+								best = gain;
+								bestAt = k;
+								bestFlip = false;
+							}
+							if(flipped > best) {
+								best = flipped;
+								bestAt = k;
+								bestFlip = true;
+							}
+						}
+						if(bestAt != -1) {
+							move(tour, i, run, bestAt, bestFlip);
+							improved = true;
+							any = true;
+						}
+					}
+				}
+			}
+			return any;
+		}
+
+		/*
+		 * Moves the run of controls at i to before position k, reversing it if flip is true
+		 */
+		private static void move(int[] tour, int i, int run, int k, boolean flip) {
+			int[] moved = Arrays.copyOfRange(tour, i, i + run);
+			if(k > i) {
+				System.arraycopy(tour, i + run, tour, i, k - i - run);
+				k -= run;
+			} else {
+				System.arraycopy(tour, k, tour, k + run, i - k);
+			}
+			for(int m=0; m<run; m++) {
+				tour[k + m] = flip ? moved[run - 1 - m] : moved[m];
+			}
+		}
+
+		/*
+		 * Reverses the tour from position i to position j
+		 */
+		private static void reverse(int[] tour, int i, int j) {
+			while(i < j) {
+				int t = tour[i];
+				tour[i++] = tour[j];
+				tour[j--] = t;
+			}
+		}
+
+		/*
+		 * Returns the x, y pairs of the controls of the course in the given order, ready for CourseSolver
+		 */
+		public static int[] reorder(int[] controls, int[] order) {
+			int[] ordered = new int[order.length * 2];
+			for(int i=0; i<order.length; i++) {
+				ordered[i*2] = controls[order[i]*2];
+				ordered[(i*2)+1] = controls[(order[i]*2)+1];
+			}
+			return ordered;
+		}
+
+		/*
+		 * Main function, visiting the controls of the course in the best order found, or for a score-O
+		 * course with a budget, visiting as many controls as fit in the budget, and writing the path
+		 */
+		public static void main(String[] args) {
+			if(args.length != 4 && args.length != 5) {
+				System.err.println("Usage: CourseOptimizer terrain elevation course season [budget]");
+				System.exit(1);
+			}
+			MapModel map = MapModel.load(args[0], args[1], args[3]);
+			int[] controls = Orienteering.loadCourse(args[2]);
+			EdgeCostTable costs = new EdgeCostTable(map);
+			costs.buildAll();
+			ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+			CostMatrix matrix = CostMatrix.build(costs, controls, pool);
+			CourseOptimizer optimizer;
+			if(args.length == 5) {
+				double[] score = new double[matrix.size()];
+				// Every control but the start and finish is worth a point
+				Arrays.fill(score, 1, matrix.size() - 1, 1);
+				optimizer = new CourseOptimizer(matrix.cost, score, 0, matrix.size() - 1, Double.parseDouble(args[4]));
+			} else {
+				optimizer = new CourseOptimizer(matrix.cost);
+			}
+			int[] fileOrder = new int[matrix.size()];
+			for(int i=0; i<fileOrder.length; i++) {
+				fileOrder[i] = i;
+			}
+			long startTime = System.nanoTime();
+			int[] order = optimizer.solve(pool);
+			long nanos = System.nanoTime() - startTime;
+
+			StringBuilder line = new StringBuilder("Order:");
+			for(int c : order) {
+				line.append(' ').append(c + 1);
+			}
+			System.out.println(line);
+			System.out.println(order.length + " controls, time " + String.format("%.4f", optimizer.time(order))
+					+ " (file order " + String.format("%.4f", optimizer.time(fileOrder)) + "), found in "
+					+ String.format("%.3f", nanos / 1e6) + " ms");
+
+			Heuristic h = Orienteering.loadLandmarks(costs, args[0], args[3]);
+			ArrayList<Node> path = CourseSolver.solve(costs, h, reorder(controls, order), pool);
+			pool.shutdown();
+			Orienteering.getDirections(path);
+			try {
+				ImageIO.write(Orienteering.drawPath(map.terrain, path), "PNG", new File("path.png"));
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+}
@@ -0,0 +1,122 @@
+package orienteering;
+
+/**
+ * Class CourseSolver is a helper class for Orienteering. It solves every
+ * control to control leg of a course as its own task on a ForkJoinPool,
+ * since the legs do not depend on each other, and gathers the paths back
+ * in course order.
+ */
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class CourseSolver {
+
+		/*
+		 * Parses a course file's contents into x, y pairs of controls
+		 */
+		public static int[] parseCourse(String course) {
+			String[] cArray = course.trim().split("\\s+");
+			int[] controls = new int[cArray.length];
+			for(int i=0; i<cArray.length; i++) {
+				controls[i] = Integer.parseInt(cArray[i]);
+			}
+			return controls;
+		}
+
+		/*
+		 * Solves each leg of the course on the pool with heuristic h and returns the leg paths in course order
+		 */
+		public static ArrayList<ArrayList<Node>> solveLegs(EdgeCostTable costs, Heuristic h, int[] controls, ForkJoinPool pool) {
+			return solveLegs(costs, h, controls, pool, null);
+		}
+
+		/*
+		 * Solves each leg of the course on the pool with heuristic h and returns the leg paths in course
+		 * order, recording the stats of every leg in metrics if it is not null. Legs and the course are
+		 * also recorded as SearchEvent and CourseEvent when a flight recording has them enabled. With
+		 * neither, the searches are given no stats and record nothing.
+		 */
+		public static ArrayList<ArrayList<Node>> solveLegs(EdgeCostTable costs, Heuristic h, int[] controls, ForkJoinPool pool,
+															CourseMetrics metrics) {
+			long startTime = System.nanoTime();
+			CourseEvent courseEvent = new CourseEvent();
+			courseEvent.begin();
+			SearchStats[] legStats = new SearchStats[Math.max(0, (controls.length / 2) - 1)];
+			ArrayList<ForkJoinTask<ArrayList<Node>>> tasks = new ArrayList<ForkJoinTask<ArrayList<Node>>>();
+			for(int i=0; i<(controls.length-2); i+=2) {
+				final int leg = i / 2;
+				final int x1 = controls[i];
+				final int y1 = controls[i+1];
+				final int gx = controls[i+2];
+				final int gy = controls[i+3];
+				tasks.add(pool.submit(new Callable<ArrayList<Node>>() {
+					public ArrayList<Node> call() {
+						SearchEvent event = new SearchEvent();
+						SearchStats stats = (metrics != null || event.isEnabled()) ? new SearchStats() : null;
+						event.begin();
+						ArrayList<Node> path = Orienteering.aStarSearch(costs, h, x1, y1, gx, gy, Orienteering.FORWARD, stats);
+						if(stats != null) {
+							legStats[leg] = stats;
+							if(event.shouldCommit()) {
+								event.leg = leg;
+								event.x1 = x1;
+								event.y1 = y1;
+								event.gx = gx;
+								event.gy = gy;
+								event.set(stats);
+								event.commit();
+							}
+						}
+						return path;
+					}
+				}));
+			}
+			ArrayList<ArrayList<Node>> legs = new ArrayList<ArrayList<Node>>();
+			for(ForkJoinTask<ArrayList<Node>> task : tasks) {
+				legs.add(task.join());
+			}
+
+			if(metrics != null || courseEvent.shouldCommit()) {
+				SearchStats total = new SearchStats();
+				total.legs = 0;
+				for(SearchStats stats : legStats) {
+					if(stats != null) {
+						total.add(stats);
+					}
+				}
+				if(metrics != null) {
+					metrics.legs = legStats;
+					metrics.total = total;
+					metrics.controls = controls;
+					metrics.wallNanos = System.nanoTime() - startTime;
+				}
+				if(courseEvent.shouldCommit()) {
+					courseEvent.set(total);
+					courseEvent.commit();
+				}
+			}
+			return legs;
+		}
+
+		/*
+		 * Solves the course on the pool and joins the leg paths into one path
+		 */
+		public static ArrayList<Node> solve(EdgeCostTable costs, Heuristic h, int[] controls, ForkJoinPool pool) {
+			return solve(costs, h, controls, pool, null);
+		}
+
+		/*
+		 * Solves the course on the pool, recording the stats of every leg in metrics if it is not null,
+		 * and joins the leg paths into one path
+		 */
+		public static ArrayList<Node> solve(EdgeCostTable costs, Heuristic h, int[] controls, ForkJoinPool pool,
+											CourseMetrics metrics) {
+			ArrayList<Node> path = new ArrayList<Node>();
+			for(ArrayList<Node> leg : solveLegs(costs, h, controls, pool, metrics)) {
+				path.addAll(leg);
+			}
+			return path;
+		}
+}
@@ -0,0 +1,53 @@
+package orienteering;
+
+/**
+ * Class DistanceHeuristic is a Heuristic that never overestimates. It is
+ * the straight line distance between two acres times the lowest travel
+ * time per metre any edge of the map can have, which is the smallest
+ * terrain multiplier on the map at the fastest walking speed Tobler's
+ * function allows. Unlike minTTime it is consistent with travelTime, so
+ * searches using it return optimal paths.
+ */
+public class DistanceHeuristic implements Heuristic {
+
+		final double perMetre;
+
+		public DistanceHeuristic(TerrainGrid terrain) {
+			this(present(terrain));
+		}
+
+		/*
+		 * Builds the heuristic for a map on which the terrain classes marked in present occur
+		 */
+		public DistanceHeuristic(boolean[] present) {
+			// Find the smallest multiplier of a passable class present on the map
+			double tm = 1;
+			for(int c=0; c<TerrainGrid.CLASSES; c++) {
+				if(present[c] && TerrainGrid.PASSABLE[c]) {
+					tm = Math.min(tm, TerrainGrid.MULTIPLIER[c]);
+				}
+			}
+			// Fastest walking speed is on flat ground, scaled down slightly for edge costs stored as floats
+			double w = 6*Math.exp(-3.5 * 0.05);
+			this.perMetre = (tm / w) * (1 - 1e-6);
+		}
+
+		/*
+		 * Returns which terrain classes occur on the map
+		 */
+		static boolean[] present(TerrainGrid terrain) {
+			boolean[] present = new boolean[TerrainGrid.CLASSES];
+			for(int i=0; i<terrain.cells(); i++) {
+				present[terrain.at(i)] = true;
+			}
+			return present;
+		}
+
+		/*
+		 * Returns the straight line distance between the acres times the lowest travel time per metre
+		 */
+		public double estimate(int x1, int y1, int x2, int y2) {
+			double dx = Math.sqrt( Math.pow(Math.abs(x1-x2) * 10.29, 2) + Math.pow(Math.abs(y1-y2) * 7.55,2) );
+			return dx * perMetre;
+		}
+}
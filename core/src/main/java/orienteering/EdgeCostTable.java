@@ -0,0 +1,545 @@
+package orienteering;
+
+/**
+ * Class EdgeCostTable is a helper class for Orienteering. It caches the
+ * travel time of every edge of the 8-connected acre grid, eight floats per
+ * acre in the direction order of Orienteering.DX and Orienteering.DY, so
+ * travelTime only has to be evaluated once per edge for a given map and
+ * season. Edges that cannot be travelled are stored as infinity. The
+ * table is filled one square tile at a time the first time a search
+ * touches that tile, or all at once with buildAll.
+ *
+ * A table for a season can instead patch the summer table of the same
+ * map: it holds its own costs only for the acres whose edges the season
+ * changes, the acres of its SeasonOverlay and their neighbours, and asks
+ * the summer table for the rest. A bit for each acre marks the patched
+ * acres, and a count of the bits before each word of them finds an
+ * acre's costs in the patch without a search. A patched table shares
+ * the summer table's terrain under its overlay and the summer elevations,
+ * so once a table is patched its edges can no longer be refreshed, and a
+ * patched table can only have the classes of its acres changed.
+ */
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class EdgeCostTable {
+
+		// Width and height of a tile in acres
+		static final int TILE = 64;
+
+		final MapModel map;
+		final ElevationGrid elGrid;
+		final TerrainGrid terrain;
+		final int width;
+		final int height;
+		final float[] costs;
+
+		private final int tilesX;
+		private final AtomicIntegerArray ready;
+
+		// Summer table this one patches, null if this table holds every edge itself
+		final EdgeCostTable base;
+
+		// Set once another table patches this one, after which its edges must not change
+		private volatile boolean shared;
+
+		// For a patched table, a bit for each patched acre, the number of patched acres before each word of
+		// bits, and the eight costs of each patched acre in order
+		private long[] patched;
+		private int[] rank;
+		private float[] patch;
+
+		// Sparse and exact cluster graphs over this table, built the first time a search asks for them
+		private ClusterGraph sparse;
+		private ClusterGraph exact;
+
+		// Cluster graphs from before the last refresh, brought up to date the next time a search asks for them
+		private ClusterGraph staleSparse;
+		private ClusterGraph staleExact;
+
+		// Pruning bits of JumpPointSearch, only made once a search in that mode asks for them
+		private volatile JumpPointSearch.Pruning pruning;
+
+		// Contraction hierarchy over this table, and the thread building one in the background, null if none is
+		private ContractionHierarchy hierarchy;
+		private Thread building;
+
+		// Number of refreshes so far, so a hierarchy built from costs that have changed since is thrown away
+		private int edits;
+
+		// Distance heuristic of the terrain, made the first time a search asks for it and dropped on refresh
+		private volatile DistanceHeuristic distance;
+
+		public EdgeCostTable(ElevationGrid elGrid, TerrainGrid terrain) {
+			this(new MapModel(terrain, elGrid));
+		}
+
+		public EdgeCostTable(MapModel map) {
+			this.map = map;
+			this.elGrid = map.elGrid;
+			this.terrain = map.terrain;
+			this.width = map.width;
+			this.height = map.height;
+			this.costs = new float[MapModel.cells(width, height, 8)];
+			this.tilesX = (width + TILE - 1) / TILE;
+			int tilesY = (height + TILE - 1) / TILE;
+			this.ready = new AtomicIntegerArray(tilesX * tilesY);
+			this.base = null;
+		}
+
+		/*
+		 * A table over the map already filled with the given costs, such as ones read back from a SeasonCache
+		 */
+		EdgeCostTable(MapModel map, float[] costs) {
+			this.map = map;
+			this.elGrid = map.elGrid;
+			this.terrain = map.terrain;
+			this.width = map.width;
+			this.height = map.height;
+			if(costs.length != MapModel.cells(width, height, 8)) {
+				throw new IllegalArgumentException("Expected " + ((long) width * height * 8) + " edge costs but got " + costs.length);
+			}
+			this.costs = costs;
+			this.tilesX = (width + TILE - 1) / TILE;
+			int tilesY = (height + TILE - 1) / TILE;
+			this.ready = new AtomicIntegerArray(tilesX * tilesY);
+			for(int tile=0; tile<ready.length(); tile++) {
+				ready.set(tile, 1);
+			}
+			this.base = null;
+		}
+
+		/*
+		 * A table for the map, whose terrain is a season grid over the terrain of the base table, that
+		 * patches the base table where the season changes it
+		 */
+		public EdgeCostTable(EdgeCostTable base, MapModel map) {
+			if(base.base != null || base.terrain.overlay != null) {
+				throw new IllegalArgumentException("Only a table that holds every edge itself can be patched");
+			}
+			if(map.terrain.overlay == null || map.terrain.classes != base.terrain.classes || map.elGrid != base.elGrid) {
+				throw new IllegalArgumentException("The map must be a season over the base table's map");
+			}
+			this.map = map;
+			this.elGrid = map.elGrid;
+			this.terrain = map.terrain;
+			this.width = map.width;
+			this.height = map.height;
+			this.costs = null;
+			this.tilesX = 0;
+			this.ready = null;
+			this.base = base;
+			base.shared = true;
+			this.patched = new long[(map.cells() + 63) >>> 6];
+			SeasonOverlay overlay = map.terrain.overlay;
+			for(int i=0; i<overlay.size(); i++) {
+				cover(overlay.cell(i));
+			}
+			repatch(null);
+		}
+
+		/*
+		 * Returns a table for the season that patches the summer table, sharing its terrain and elevations
+		 */
+		public static EdgeCostTable season(EdgeCostTable summer, String season) {
+			SeasonOverlay overlay = SeasonOverlay.of(summer.terrain, summer.elGrid, season);
+			return new EdgeCostTable(summer, new MapModel(new TerrainGrid(summer.terrain, overlay), summer.elGrid));
+		}
+
+		/*
+		 * Returns true if a season table patches this one, so its terrain and elevations must not change
+		 */
+		public boolean isShared() {
+			return shared;
+		}
+
+		/*
+		 * Returns the travel time from the acre at x, y in direction d, or infinity if it cannot be travelled
+		 */
+		public float cost(int x, int y, int d) {
+			if(base != null) {
+				int c = (y * width) + x;
+				long word = patched[c >>> 6];
+				long bit = 1L << c;
+				if((word & bit) == 0) {
+					return base.cost(x, y, d);
+				}
+				return patch[((rank[c >>> 6] + Long.bitCount(word & (bit - 1))) * 8) + d];
+			}
+			int tile = ((y / TILE) * tilesX) + (x / TILE);
+			if(ready.get(tile) == 0) {
+				fillTile(tile);
+			}
+			return costs[(((y * width) + x) * 8) + d];
+		}
+
+		/*
+		 * Returns the pruning bits of JumpPointSearch over this table, made the first time a search in that mode
+		 * asks for them, so tables never searched that way do not hold them
+		 */
+		synchronized JumpPointSearch.Pruning pruning() {
+			if(pruning == null) {
+				pruning = new JumpPointSearch.Pruning(this);
+			}
+			return pruning;
+		}
+
+		/*
+		 * Returns the sparse or exact cluster graph of this table, building it if needed
+		 */
+		public synchronized ClusterGraph clusters(boolean exactGraph) {
+			if(exactGraph) {
+				if(exact == null) {
+					exact = graph(staleExact, true);
+					staleExact = null;
+				}
+				return exact;
+			}
+			if(sparse == null) {
+				sparse = graph(staleSparse, false);
+				staleSparse = null;
+			}
+			return sparse;
+		}
+
+		/*
+		 * Makes a cluster graph for this table, redoing only the clusters whose costs differ from the stale
+		 * graph of this table or, for a patched table, from the graph of the summer table
+		 */
+		private ClusterGraph graph(ClusterGraph stale, boolean exactGraph) {
+			if(stale != null) {
+				return stale.update(this);
+			}
+			if(base != null) {
+				return base.clusters(exactGraph).update(this);
+			}
+			return new ClusterGraph(this, ClusterGraph.SIZE, exactGraph);
+		}
+
+		/*
+		 * Uses the given cluster graph, made for this table, instead of building one
+		 */
+		public synchronized void setClusters(ClusterGraph graph) {
+			if(graph.costs != this) {
+				throw new IllegalArgumentException("Cluster graph was built for other edge costs");
+			}
+			if(graph.exact) {
+				exact = graph;
+				staleExact = null;
+			} else {
+				sparse = graph;
+				staleSparse = null;
+			}
+		}
+
+		/*
+		 * Returns the contraction hierarchy of this table, or null while it is being built. The first call
+		 * starts building it on a thread of its own, contracting on the common pool, so no search waits
+		 * for the build or holds the table while it runs.
+		 */
+		public synchronized ContractionHierarchy hierarchy() {
+			if(hierarchy == null && building == null) {
+				building = new Thread(this::buildHierarchy, "contraction-hierarchy");
+				building.setDaemon(true);
+				building.start();
+			}
+			return hierarchy;
+		}
+
+		/*
+		 * Returns the contraction hierarchy of this table, waiting for it to be built if needed, or null
+		 * if the build failed or the wait was interrupted
+		 */
+		public synchronized ContractionHierarchy awaitHierarchy() {
+			hierarchy();
+			while(hierarchy == null && building != null) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return null;
+				}
+			}
+			return hierarchy;
+		}
+
+		/*
+		 * Builds the contraction hierarchy, building it again if the table was refreshed meanwhile
+		 */
+		private void buildHierarchy() {
+			try {
+				while(true) {
+					int seen;
+					synchronized(this) {
+						seen = edits;
+					}
+					ContractionHierarchy ch = ContractionHierarchy.build(this, ForkJoinPool.commonPool());
+					synchronized(this) {
+						if(edits == seen) {
+							if(hierarchy == null) {
+								hierarchy = ch;
+							}
+							return;
+						}
+					}
+				}
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+			} finally {
+				synchronized(this) {
+					building = null;
+					notifyAll();
+				}
+			}
+		}
+
+		/*
+		 * Uses the given contraction hierarchy, made for this table, instead of building one
+		 */
+		public synchronized void setHierarchy(ContractionHierarchy ch) {
+			if(ch.costs != this) {
+				throw new IllegalArgumentException("Contraction hierarchy was built for other edge costs");
+			}
+			hierarchy = ch;
+			notifyAll();
+		}
+
+		/*
+		 * Returns the distance heuristic of the terrain, shared by every search on the table until a refresh
+		 */
+		DistanceHeuristic distance() {
+			DistanceHeuristic h = distance;
+			if(h == null) {
+				h = new DistanceHeuristic(terrain);
+				distance = h;
+			}
+			return h;
+		}
+
+		/*
+		 * Works out again the costs of every edge into and out of the acre at x, y after its terrain
+		 * or elevation changed. A table that others patch cannot be refreshed, since their costs would
+		 * no longer match its terrain. Cluster graphs built over the table are kept as stale, and the next
+		 * search that asks for one redoes only the clusters around the changed acres with ClusterGraph.update.
+		 * The contraction hierarchy is dropped, since it may no longer match, and the next search that asks
+		 * for it starts a new one in the background; one still being built is built again.
+		 */
+		public void refresh(int x, int y) {
+			if(shared) {
+				throw new IllegalStateException("Edges of a table that season tables patch cannot change");
+			}
+			// The acre may now be of a class faster than any the heuristic allowed for
+			distance = null;
+			if(base != null) {
+				long[] before = patched.clone();
+				if(cover((y * width) + x)) {
+					repatch(before);
+				}
+			}
+			if(isFilled(x, y)) {
+				int at = slot(x, y);
+				for(int d=0; d<8; d++) {
+					store(at + d, edgeCost(x, y, d));
+				}
+			}
+			for(int d=0; d<8; d++) {
+				int nx = x + Orienteering.DX[d];
+				int ny = y + Orienteering.DY[d];
+				if(map.contains(nx, ny) && isFilled(nx, ny)) {
+					int back = BidirectionalSearch.opposite(d);
+					store(slot(nx, ny) + back, edgeCost(nx, ny, back));
+				}
+			}
+			JumpPointSearch.Pruning bits = pruning;
+			if(bits != null) {
+				bits.refresh(x, y);
+			}
+			synchronized(this) {
+				if(sparse != null) {
+					staleSparse = sparse;
+					sparse = null;
+				}
+				if(exact != null) {
+					staleExact = exact;
+					exact = null;
+				}
+				if(staleSparse != null) {
+					staleSparse.changed(x, y);
+				}
+				if(staleExact != null) {
+					staleExact.changed(x, y);
+				}
+				hierarchy = null;
+				edits++;
+			}
+		}
+
+		/*
+		 * Returns true if the tile holding the acre at x, y has been filled. Patched acres always are.
+		 */
+		private boolean isFilled(int x, int y) {
+			if(base != null) {
+				return true;
+			}
+			return ready.get(((y / TILE) * tilesX) + (x / TILE)) != 0;
+		}
+
+		/*
+		 * Returns where the costs of the acre at x, y start, in costs, or in patch for a patched acre
+		 */
+		private int slot(int x, int y) {
+			int c = (y * width) + x;
+			if(base == null) {
+				return c * 8;
+			}
+			long word = patched[c >>> 6];
+			return (rank[c >>> 6] + Long.bitCount(word & ((1L << c) - 1))) * 8;
+		}
+
+		/*
+		 * Sets the cost at the given slot
+		 */
+		private void store(int at, float t) {
+			if(base == null) {
+				costs[at] = t;
+			} else {
+				patch[at] = t;
+			}
+		}
+
+		/*
+		 * Marks acre c and its neighbours as patched, returning true if any of them was not already
+		 */
+		private boolean cover(int c) {
+			int x = c % width;
+			int y = c / width;
+			boolean added = false;
+			for(int ny=Math.max(0, y - 1); ny<=Math.min(height - 1, y + 1); ny++) {
+				for(int nx=Math.max(0, x - 1); nx<=Math.min(width - 1, x + 1); nx++) {
+					int n = (ny * width) + nx;
+					if((patched[n >>> 6] & (1L << n)) == 0) {
+						patched[n >>> 6] |= 1L << n;
+						added = true;
+					}
+				}
+			}
+			return added;
+		}
+
+		/*
+		 * Returns a bit for each acre this table patches over its base, set for the acres whose edge costs
+		 * can differ from the base's, for reading only
+		 */
+		long[] patchedAcres() {
+			return patched;
+		}
+
+		/*
+		 * Counts the patched acres again and lays out their costs, keeping those of acres that were patched
+		 * before, as marked in before, and working out the costs of the rest
+		 */
+		private void repatch(long[] before) {
+			int[] counts = new int[patched.length];
+			int count = 0;
+			for(int i=0; i<patched.length; i++) {
+				counts[i] = count;
+				count += Long.bitCount(patched[i]);
+			}
+			float[] next = new float[count * 8];
+			int k = 0;
+			int old = 0;
+			for(int i=0; i<patched.length; i++) {
+				for(long word=patched[i]; word!=0; word&=word-1) {
+					int c = (i << 6) + Long.numberOfTrailingZeros(word);
+					if(before != null && (before[c >>> 6] & (1L << c)) != 0) {
+						System.arraycopy(patch, old * 8, next, k * 8, 8);
+						old++;
+					} else {
+						for(int d=0; d<8; d++) {
+							next[(k * 8) + d] = edgeCost(c % width, c / width, d);
+						}
+					}
+					k++;
+				}
+			}
+			rank = counts;
+			patch = next;
+		}
+
+		/*
+		 * Returns the number of acres this table holds costs for itself
+		 */
+		public int ownCells() {
+			return (base == null) ? map.cells() : patch.length / 8;
+		}
+
+		/*
+		 * Returns the costs of every edge, eight per acre, the table's own array unless it patches another
+		 */
+		float[] flat() {
+			if(base == null) {
+				buildAll();
+				return costs;
+			}
+			float[] all = new float[MapModel.cells(width, height, 8)];
+			for(int y=0; y<height; y++) {
+				for(int x=0; x<width; x++) {
+					for(int d=0; d<8; d++) {
+						all[(((y * width) + x) * 8) + d] = cost(x, y, d);
+					}
+				}
+			}
+			return all;
+		}
+
+		/*
+		 * Fills every tile that has not been filled yet
+		 */
+		public void buildAll() {
+			if(base != null) {
+				base.buildAll();
+				return;
+			}
+			for(int tile=0; tile<ready.length(); tile++) {
+				if(ready.get(tile) == 0) {
+					fillTile(tile);
+				}
+			}
+		}
+
+		/*
+		 * Computes the costs of all edges leaving the acres of one tile
+		 */
+		private void fillTile(int tile) {
+			int x0 = (tile % tilesX) * TILE;
+			int y0 = (tile / tilesX) * TILE;
+			int x1 = Math.min(x0 + TILE, width);
+			int y1 = Math.min(y0 + TILE, height);
+			for(int y=y0; y<y1; y++) {
+				for(int x=x0; x<x1; x++) {
+					int base = ((y * width) + x) * 8;
+					for(int d=0; d<8; d++) {
+						costs[base + d] = edgeCost(x, y, d);
+					}
+				}
+			}
+			// Publishing the flag after the writes makes them visible to other threads that see it set
+			ready.set(tile, 1);
+		}
+
+		/*
+		 * Evaluates travelTime for one edge
+		 */
+		private float edgeCost(int x, int y, int d) {
+			int nx = x + Orienteering.DX[d];
+			int ny = y + Orienteering.DY[d];
+			if(!map.contains(nx, ny)) {
+				return Float.POSITIVE_INFINITY;
+			}
+			double t = Orienteering.travelTime(elGrid, terrain, x, y, nx, ny);
+			if(t == -1) {
+				return Float.POSITIVE_INFINITY;
+			}
+			return (float) t;
+		}
+}
@@ -0,0 +1,54 @@
+package orienteering;
+
+/**
+ * Class ElevationGrid is a helper class for Orienteering. It holds the
+ * elevation of every acre as a flat array of floats in row major order,
+ * parsed once from the elevation file.
+ */
+public class ElevationGrid {
+
+		final int width;
+		final int height;
+		final float[] values;
+		
+		public ElevationGrid(int width, int height, float[] values) {
+			if(values.length != MapModel.cells(width, height, 1)) {
+				throw new IllegalArgumentException("Expected " + ((long) width * height) + " elevations but got " + values.length);
+			}
+			this.width = width;
+			this.height = height;
+			this.values = values;
+		}
+		
+		/*
+		 * Returns the elevation of the acre at x, y
+		 */
+		public float get(int x, int y) {
+			return values[(y * width) + x];
+		}
+		
+		/*
+		 * Changes the elevation of the acre at x, y
+		 */
+		public void set(int x, int y, float elevation) {
+			values[(y * width) + x] = elevation;
+		}
+		
+		/*
+		 * Returns the elevation of the acre with the given row major index
+		 */
+		public float get(int i) {
+			return values[i];
+		}
+		
+		/*
+		 * Builds a grid from whitespace separated elevation tokens, one row of width tokens at a time
+		 */
+		public static ElevationGrid parse(String[] tokens, int width, int height) {
+			float[] values = new float[MapModel.cells(width, height, 1)];
+			for(int i=0; i<values.length; i++) {
+				values[i] = Float.parseFloat(tokens[i]);
+			}
+			return new ElevationGrid(width, height, values);
+		}
+}
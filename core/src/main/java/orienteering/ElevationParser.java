@@ -0,0 +1,235 @@
+package orienteering;
+
+/**
+ * Class ElevationParser is a helper class for Orienteering. It reads an
+ * elevation file in the mpp.txt format, rows of whitespace separated
+ * numbers with one row per line, through memory mapped buffers and writes
+ * each value straight into the float array of an ElevationGrid without
+ * creating any intermediate Strings.
+ */
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class ElevationParser {
+
+		// Largest region of the file mapped at once
+		static final int CHUNK = 1 << 26;
+
+		// Exact powers of ten used to scale parsed mantissas
+		private static final double[] POW10 = new double[23];
+		static {
+			POW10[0] = 1;
+			for(int i=1; i<POW10.length; i++) {
+				POW10[i] = POW10[i-1] * 10;
+			}
+		}
+
+		/*
+		 * Receives the rows of an elevation file a band at a time
+		 */
+		public interface Bands {
+			/*
+			 * Takes rows y0 to y0 + rows - 1, width values each in row major order at the start of values
+			 */
+			void band(int y0, int rows, int width, float[] values) throws IOException;
+		}
+
+		// Token state carried across buffer boundaries
+		private float[] out;
+		private int count;
+		private boolean inToken;
+		private boolean negative;
+		private long mantissa;
+		private int digits;
+		private int scale;
+		private boolean fraction;
+		private boolean inExponent;
+		private boolean expNegative;
+		private int exponent;
+
+		// Layout of the file
+		private int width;
+		private int lineTokens;
+		private int lines;
+		private boolean ragged;
+
+		// Where whole bands of rows are sent instead of collected, and the rows per band
+		private Bands sink;
+		private int bandRows;
+		private int bandStart;
+
+		/*
+		 * Loads the elevation file at path into a new ElevationGrid
+		 */
+		public static ElevationGrid load(Path path) throws IOException {
+			try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+
+				// First pass finds the width and height so the grid can be allocated once
+				ElevationParser counter = new ElevationParser();
+				counter.scan(channel, false);
+				if(counter.width == 0) {
+					throw new IOException("Elevation file " + path + " is empty");
+				}
+				if(counter.ragged) {
+					throw new IOException("Elevation file " + path + " is not rectangular, expected "
+							+ counter.width + " values on every row");
+				}
+
+				// Second pass parses the values into the grid
+				ElevationParser parser = new ElevationParser();
+				parser.out = new float[MapModel.cells(counter.width, counter.lines, 1)];
+				parser.scan(channel, true);
+				return new ElevationGrid(counter.width, counter.lines, parser.out);
+			}
+		}
+
+		/*
+		 * Reads the elevation file at path bandRows rows at a time into sink without holding the
+		 * whole grid, and returns its width and height
+		 */
+		public static int[] loadBands(Path path, int bandRows, Bands sink) throws IOException {
+			try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+				ElevationParser counter = new ElevationParser();
+				counter.scan(channel, false);
+				if(counter.width == 0) {
+					throw new IOException("Elevation file " + path + " is empty");
+				}
+				if(counter.ragged) {
+					throw new IOException("Elevation file " + path + " is not rectangular, expected "
+							+ counter.width + " values on every row");
+				}
+
+				ElevationParser parser = new ElevationParser();
+				parser.out = new float[MapModel.cells(counter.width, bandRows, 1)];
+				parser.sink = sink;
+				parser.bandRows = bandRows;
+				parser.scan(channel, true);
+				if(parser.lines > parser.bandStart) {
+					sink.band(parser.bandStart, parser.lines - parser.bandStart, parser.width, parser.out);
+				}
+				return new int[] {counter.width, counter.lines};
+			}
+		}
+
+		/*
+		 * Walks the whole file chunk by chunk, counting tokens and optionally parsing them
+		 */
+		private void scan(FileChannel channel, boolean parse) throws IOException {
+			long size = channel.size();
+			for(long offset=0; offset<size; offset+=CHUNK) {
+				MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(CHUNK, size - offset));
+				int limit = buf.limit();
+				for(int i=0; i<limit; i++) {
+					byte b = buf.get(i);
+					if(b == ' ' || b == '\t' || b == '\r' || b == '\n') {
+						endToken(parse);
+						if(b == '\n') {
+							endLine();
+						}
+					} else {
+						inToken = true;
+						if(parse) {
+							accept(b);
+						}
+					}
+				}
+			}
+			endToken(parse);
+			endLine();
+		}
+
+		/*
+		 * Adds one character to the number being parsed
+		 */
+		private void accept(byte b) {
+			if(b >= '0' && b <= '9') {
+				if(inExponent) {
+					exponent = (exponent * 10) + (b - '0');
+				} else if(digits < 18) {
+					mantissa = (mantissa * 10) + (b - '0');
+					if(mantissa != 0) {
+						digits++;
+					}
+					if(fraction) {
+						scale--;
+					}
+				} else if(!fraction) {
+					// Digits past what a long holds only shift the magnitude
+					scale++;
+				}
+			} else if(b == '.') {
+				fraction = true;
+			} else if(b == 'e' || b == 'E') {
+				inExponent = true;
+			} else if(b == '-') {
+				if(inExponent) {
+					expNegative = true;
+				} else {
+					negative = true;
+				}
+			} else if(b != '+') {
+				throw new NumberFormatException("Unexpected character '" + (char) b + "' in elevation file");
+			}
+		}
+
+		/*
+		 * Finishes the current token, storing its value when parsing
+		 */
+		private void endToken(boolean parse) {
+			if(!inToken) {
+				return;
+			}
+			if(parse) {
+				int e = scale + (expNegative ? -exponent : exponent);
+				double v = mantissa;
+				if(e < 0) {
+					v = (e >= -22) ? v / POW10[-e] : v / Math.pow(10, -e);
+				} else if(e > 0) {
+					v = (e <= 22) ? v * POW10[e] : v * Math.pow(10, e);
+				}
+				out[count] = (float) (negative ? -v : v);
+			}
+			count++;
+			lineTokens++;
+			inToken = false;
+			negative = false;
+			mantissa = 0;
+			digits = 0;
+			scale = 0;
+			fraction = false;
+			inExponent = false;
+			expNegative = false;
+			exponent = 0;
+		}
+
+		/*
+		 * Finishes the current line, recording the width from the first row
+		 */
+		private void endLine() throws IOException {
+			if(lineTokens == 0) {
+				return;
+			}
+			if(width == 0) {
+				width = lineTokens;
+			} else if(lineTokens != width) {
+				ragged = true;
+			}
+			lines++;
+			lineTokens = 0;
+			if(sink != null && lines - bandStart == bandRows) {
+				flushBand();
+			}
+		}
+
+		/*
+		 * Hands the finished band to the sink and starts the next one at the start of out
+		 */
+		private void flushBand() throws IOException {
+			sink.band(bandStart, lines - bandStart, width, out);
+			bandStart = lines;
+			count = 0;
+		}
+}
@@ -0,0 +1,14 @@
+package orienteering;
+
+/**
+ * Interface Heuristic is implemented by estimates of the travel time
+ * between two acres that the searches in Orienteering use to order their
+ * open lists.
+ */
+public interface Heuristic {
+
+		/*
+		 * Returns an estimate of the travel time from the acre at x1, y1 to the acre at x2, y2
+		 */
+		double estimate(int x1, int y1, int x2, int y2);
+}
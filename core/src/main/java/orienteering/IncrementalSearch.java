@@ -0,0 +1,352 @@
+package orienteering;
+
+/**
+ * Class IncrementalSearch is a helper class for Orienteering. It is one
+ * leg searched with Lifelong Planning A* (LPA*), which keeps its search
+ * state between searches. When the costs of some edges change it only
+ * reopens the acres whose travel times those edges could affect and
+ * repairs the search from there, so the work after a small change
+ * follows the size of the change rather than the size of the map.
+ *
+ * Every acre has its travel time g from the last search and rhs, the
+ * best travel time its neighbours offer now. Acres where the two differ
+ * are on the open list, ordered by min(g, rhs) plus the heuristic and
+ * then by min(g, rhs). The acres reached are numbered by a CellNumbering,
+ * so a leg only keeps state for the part of the map it searched. The
+ * Heuristic must be consistent for the costs before and after every
+ * change.
+ *
+ * LPA* relies on every edge costing something. Edges between unknown
+ * acres cost nothing, so acres cut off by a change can keep the old travel
+ * times of each other. Each search therefore traces the goal back to the
+ * start through neighbours whose travel time plus the edge is exactly that
+ * of the acre, and searches the leg again from scratch if it cannot.
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class IncrementalSearch {
+
+		private final EdgeCostTable costs;
+		private Heuristic h;
+		final int x1, y1, gx, gy;
+		private final int startId;
+		private final int goalId;
+
+		private CellNumbering numbering;
+		private double[] g;
+		private double[] rhs;
+		private IndexedHeap open;
+
+		// Cell ids from the goal back to the start traced after the last search, empty if unreachable
+		private int[] cells;
+
+		// Path of the last search, null when it has to be made again
+		private ArrayList<Node> path;
+
+		// Acres expanded by searches so far
+		long expanded;
+
+		public IncrementalSearch(EdgeCostTable costs, Heuristic h, int x1, int y1, int gx, int gy) {
+			this.costs = costs;
+			this.h = h;
+			this.x1 = x1;
+			this.y1 = y1;
+			this.gx = gx;
+			this.gy = gy;
+			this.startId = (y1 * costs.width) + x1;
+			this.goalId = (gy * costs.width) + gx;
+			reset();
+		}
+
+		/*
+		 * Forgets every travel time, leaving only the start on the open list
+		 */
+		private void reset() {
+			numbering = new CellNumbering(1024);
+			g = new double[1024];
+			rhs = new double[1024];
+			open = new IndexedHeap(1024, true);
+
+			int s = number(startId);
+			number(goalId);
+			rhs[s] = 0;
+			queue(s);
+		}
+
+		/*
+		 * Returns the number of an acre, numbering it with infinite travel times if it is new
+		 */
+		private int number(int id) {
+			int before = numbering.size();
+			int n = numbering.number(id);
+			if(n == before) {
+				if(n == g.length) {
+					g = Arrays.copyOf(g, g.length * 2);
+					rhs = Arrays.copyOf(rhs, rhs.length * 2);
+					open.ensureCapacity(g.length);
+				}
+				g[n] = Double.POSITIVE_INFINITY;
+				rhs[n] = Double.POSITIVE_INFINITY;
+			}
+			return n;
+		}
+
+		/*
+		 * Returns the travel time of the acre with the given cell id from the last search
+		 */
+		private double gOf(int id) {
+			int n = numbering.find(id);
+			return (n == -1) ? Double.POSITIVE_INFINITY : g[n];
+		}
+
+		/*
+		 * Puts acre n on the open list, or takes it off, depending on whether g and rhs differ
+		 */
+		private void queue(int n) {
+			if(g[n] == rhs[n]) {
+				open.remove(n);
+				return;
+			}
+			int id = (int) numbering.id(n);
+			double m = Math.min(g[n], rhs[n]);
+			double k = m + h.estimate(id % costs.width, id / costs.width, gx, gy);
+			if(open.contains(n)) {
+				open.update(n, k, m);
+			} else {
+				open.add(n, k, m);
+			}
+		}
+
+		/*
+		 * Works out rhs of acre n again from its neighbours and requeues it
+		 */
+		private void updateVertex(int n) {
+			int id = (int) numbering.id(n);
+			if(id != startId) {
+				int x = id % costs.width;
+				int y = id / costs.width;
+				double best = Double.POSITIVE_INFINITY;
+				for(int d=0; d<8; d++) {
+					int px = x + Orienteering.DX[d];
+					int py = y + Orienteering.DY[d];
+					if(!costs.map.contains(px, py)) {
+						continue;
+					}
+					float t = costs.cost(px, py, BidirectionalSearch.opposite(d));
+					if(t != Float.POSITIVE_INFINITY) {
+						best = Math.min(best, gOf((py * costs.width) + px) + t);
+					}
+				}
+				rhs[n] = best;
+			}
+			queue(n);
+		}
+
+		/*
+		 * Returns true if the top of the open list comes before the key the goal would have
+		 */
+		private boolean beforeGoal(int goal) {
+			int top = open.peek();
+			double m = Math.min(g[goal], rhs[goal]);
+			double k = m + h.estimate(gx, gy, gx, gy);
+			return open.getKey(top) < k || (open.getKey(top) == k && open.getTie(top) < m);
+		}
+
+		/*
+		 * Searches until the travel time of the goal is settled, returning the number of acres expanded
+		 */
+		public long search() {
+			long count = settle();
+			cells = trace();
+			if(cells == null) {
+				reset();
+				count += settle();
+				cells = trace();
+				if(cells == null) {
+					throw new IllegalStateException("No path back from " + gx + ", " + gy + " to " + x1 + ", " + y1
+							+ " through the travel times of a fresh search");
+				}
+			}
+			expanded += count;
+			path = null;
+			return count;
+		}
+
+		/*
+		 * Expands acres until the goal is settled, returning the number expanded
+		 */
+		private long settle() {
+			long count = 0;
+			int goal = numbering.find(goalId);
+			while(!open.isEmpty() && (beforeGoal(goal) || rhs[goal] != g[goal])) {
+				int u = open.poll();
+				count++;
+				int id = (int) numbering.id(u);
+				int x = id % costs.width;
+				int y = id / costs.width;
+				if(g[u] > rhs[u]) {
+					// Settle u and offer its travel time to its neighbours
+					g[u] = rhs[u];
+					for(int d=0; d<8; d++) {
+						float t = costs.cost(x, y, d);
+						if(t == Float.POSITIVE_INFINITY) {
+							continue;
+						}
+						int nId = ((y + Orienteering.DY[d]) * costs.width) + x + Orienteering.DX[d];
+						int n = number(nId);
+						if(nId != startId && g[u] + t < rhs[n]) {
+							rhs[n] = g[u] + t;
+							queue(n);
+						}
+					}
+				} else {
+					// u got worse, so it and every neighbour that relied on it are worked out again
+					g[u] = Double.POSITIVE_INFINITY;
+					updateVertex(u);
+					for(int d=0; d<8; d++) {
+						int nx = x + Orienteering.DX[d];
+						int ny = y + Orienteering.DY[d];
+						if(costs.map.contains(nx, ny)) {
+							updateVertex(number((ny * costs.width) + nx));
+						}
+					}
+				}
+			}
+			return count;
+		}
+
+		/*
+		 * Tells the search the costs of the edges into and out of the acres with the given cell ids
+		 * changed, returning true if any of them was part of this search
+		 */
+		public boolean changed(int[] cells) {
+			boolean touched = false;
+			for(int id : cells) {
+				int x = id % costs.width;
+				int y = id / costs.width;
+				for(int d=-1; d<8; d++) {
+					int nx = (d == -1) ? x : x + Orienteering.DX[d];
+					int ny = (d == -1) ? y : y + Orienteering.DY[d];
+					if(!costs.map.contains(nx, ny)) {
+						continue;
+					}
+					// Acres the search never reached have no neighbour with a finite travel time, so stay as they are
+					int n = numbering.find((ny * costs.width) + nx);
+					if(n != -1) {
+						updateVertex(n);
+						touched = true;
+					}
+				}
+			}
+			return touched;
+		}
+
+		/*
+		 * Switches to another heuristic, reordering the open list for it
+		 */
+		public void setHeuristic(Heuristic heuristic) {
+			this.h = heuristic;
+			for(int n=0; n<numbering.size(); n++) {
+				if(open.contains(n)) {
+					queue(n);
+				}
+			}
+		}
+
+		/*
+		 * Returns the travel time of the leg found by the last search
+		 */
+		public double cost() {
+			return gOf(goalId);
+		}
+
+		/*
+		 * Returns the cell ids from the goal back to the start through neighbours whose travel time
+		 * plus the edge is exactly that of the acre, an empty array if the goal was not reached and
+		 * null if the travel times lead nowhere
+		 */
+		private int[] trace() {
+			if(cost() == Double.POSITIVE_INFINITY) {
+				return new int[0];
+			}
+
+			// A neighbour can lead into a pocket of acres with equal travel times, which is backed out of,
+			// and acres already on the way are never taken again
+			int width = costs.width;
+			ArrayList<Integer> way = new ArrayList<Integer>();
+			boolean[] visited = new boolean[numbering.size()];
+			int id = goalId;
+			way.add(id);
+			visited[numbering.find(id)] = true;
+			while(id != startId) {
+				int x = id % width;
+				int y = id / width;
+				double gi = gOf(id);
+				double best = Double.POSITIVE_INFINITY;
+				int next = -1;
+				for(int d=0; d<8; d++) {
+					int px = x + Orienteering.DX[d];
+					int py = y + Orienteering.DY[d];
+					if(!costs.map.contains(px, py)) {
+						continue;
+					}
+					int p = numbering.find((py * width) + px);
+					float t = costs.cost(px, py, BidirectionalSearch.opposite(d));
+					if(p == -1 || visited[p] || t == Float.POSITIVE_INFINITY || g[p] + t != gi) {
+						continue;
+					}
+					// The neighbour nearest the start first, so the way out of a pocket is taken when there is one
+					if(g[p] < best) {
+						best = g[p];
+						next = (py * width) + px;
+					}
+				}
+				if(next != -1) {
+					visited[numbering.find(next)] = true;
+					way.add(next);
+				} else {
+					way.remove(way.size() - 1);
+					if(way.isEmpty()) {
+						return null;
+					}
+				}
+				id = way.get(way.size() - 1);
+			}
+
+			int[] traced = new int[way.size()];
+			for(int i=0; i<traced.length; i++) {
+				traced[i] = way.get(i);
+			}
+			return traced;
+		}
+
+		/*
+		 * Returns the path found by the last search from the goal back to the start, empty if there is none
+		 */
+		public ArrayList<Node> path() {
+			if(path != null) {
+				return path;
+			}
+			if(cells == null) {
+				throw new IllegalStateException("Leg from " + x1 + ", " + y1 + " to " + gx + ", " + gy + " was never searched");
+			}
+			path = new ArrayList<Node>();
+			int width = costs.width;
+			Node node = null;
+			for(int i=cells.length-1; i>=0; i--) {
+				int x = cells[i] % width;
+				int y = cells[i] / width;
+				double gn = 0;
+				if(node != null) {
+					gn = node.g + costs.cost(node.x, node.y, BidirectionalSearch.direction(x - node.x, y - node.y));
+				}
+				node = new Node(x, y, gn, h.estimate(x, y, gx, gy), node);
+			}
+			while(node != null) {
+				path.add(node);
+				node = node.parent;
+			}
+			return path;
+		}
+}
@@ -0,0 +1,233 @@
+package orienteering;
+
+/**
+ * Class IndexedHeap is a helper class for Orienteering. It is a binary
+ * min-heap of cell ids ordered by a double key that keeps track of where
+ * each id sits in the heap, so a key can be lowered in place instead of
+ * searching the open list for it.
+ */
+public class IndexedHeap {
+
+		private int[] heap;
+		private int[] pos;
+		private double[] key;
+		private int size;
+
+		// Second key deciding between equal keys, only kept when asked for
+		private double[] tie;
+
+		public IndexedHeap(int capacity) {
+			this.heap = new int[capacity];
+			this.pos = new int[capacity];
+			this.key = new double[capacity];
+			this.size = 0;
+			java.util.Arrays.fill(pos, -1);
+		}
+
+		/*
+		 * Makes a heap ordered by key and then, between equal keys, by a second tie key
+		 */
+		public IndexedHeap(int capacity, boolean ties) {
+			this(capacity);
+			if(ties) {
+				this.tie = new double[capacity];
+			}
+		}
+
+		/*
+		 * Makes room for ids below capacity, keeping the ids already in the heap
+		 */
+		public void ensureCapacity(int capacity) {
+			if(capacity <= pos.length) {
+				return;
+			}
+			int old = pos.length;
+			heap = java.util.Arrays.copyOf(heap, capacity);
+			pos = java.util.Arrays.copyOf(pos, capacity);
+			key = java.util.Arrays.copyOf(key, capacity);
+			if(tie != null) {
+				tie = java.util.Arrays.copyOf(tie, capacity);
+			}
+			java.util.Arrays.fill(pos, old, capacity, -1);
+		}
+
+		/*
+		 * Returns true if there are no ids in the heap
+		 */
+		public boolean isEmpty() {
+			return size == 0;
+		}
+
+		/*
+		 * Returns the number of ids in the heap
+		 */
+		public int size() {
+			return size;
+		}
+
+		/*
+		 * Returns true if id is currently in the heap
+		 */
+		public boolean contains(int id) {
+			return pos[id] != -1;
+		}
+
+		/*
+		 * Returns the key id was last added or decreased with
+		 */
+		public double getKey(int id) {
+			return key[id];
+		}
+
+		/*
+		 * Adds id to the heap with the given key
+		 */
+		public void add(int id, double k) {
+			key[id] = k;
+			heap[size] = id;
+			pos[id] = size;
+			size++;
+			siftUp(size-1);
+		}
+
+		/*
+		 * Adds id to the heap with the given key and tie key
+		 */
+		public void add(int id, double k, double t) {
+			tie[id] = t;
+			add(id, k);
+		}
+
+		/*
+		 * Changes the key and tie key of an id already in the heap, up or down
+		 */
+		public void update(int id, double k, double t) {
+			key[id] = k;
+			tie[id] = t;
+			siftUp(pos[id]);
+			siftDown(pos[id]);
+		}
+
+		/*
+		 * Returns the tie key id was last added or updated with
+		 */
+		public double getTie(int id) {
+			return tie[id];
+		}
+
+		/*
+		 * Removes id from the heap if it is in it
+		 */
+		public void remove(int id) {
+			int i = pos[id];
+			if(i == -1) {
+				return;
+			}
+			size--;
+			pos[id] = -1;
+			if(i < size) {
+				int moved = heap[size];
+				heap[i] = moved;
+				pos[moved] = i;
+				siftUp(i);
+				siftDown(pos[moved]);
+			}
+		}
+
+		/*
+		 * Lowers the key of an id already in the heap
+		 */
+		public void decreaseKey(int id, double k) {
+			key[id] = k;
+			siftUp(pos[id]);
+		}
+
+		/*
+		 * Returns the id with the smallest key without removing it
+		 */
+		public int peek() {
+			return heap[0];
+		}
+
+		/*
+		 * Returns the id at index i of the heap, for reading every id in no particular order with size
+		 */
+		public int get(int i) {
+			return heap[i];
+		}
+
+		/*
+		 * Removes and returns the id with the smallest key
+		 */
+		public int poll() {
+			int top = heap[0];
+			size--;
+			pos[top] = -1;
+			if(size > 0) {
+				heap[0] = heap[size];
+				pos[heap[0]] = 0;
+				siftDown(0);
+			}
+			return top;
+		}
+
+		/*
+		 * Removes every id from the heap
+		 */
+		public void clear() {
+			for(int i=0; i<size; i++) {
+				pos[heap[i]] = -1;
+			}
+			size = 0;
+		}
+
+		/*
+		 * Moves the id at heap index i up until its parent is not larger
+		 */
+		private void siftUp(int i) {
+			int id = heap[i];
+			while(i > 0) {
+				int p = (i-1) >>> 1;
+				if(!less(id, heap[p])) {
+					break;
+				}
+				heap[i] = heap[p];
+				pos[heap[i]] = i;
+				i = p;
+			}
+			heap[i] = id;
+			pos[id] = i;
+		}
+
+		/*
+		 * Moves the id at heap index i down until neither child is smaller
+		 */
+		private void siftDown(int i) {
+			int id = heap[i];
+			int half = size >>> 1;
+			while(i < half) {
+				int c = (2*i) + 1;
+				if(c+1 < size && less(heap[c+1], heap[c])) {
+					c++;
+				}
+				if(!less(heap[c], id)) {
+					break;
+				}
+				heap[i] = heap[c];
+				pos[heap[i]] = i;
+				i = c;
+			}
+			heap[i] = id;
+			pos[id] = i;
+		}
+
+		/*
+		 * Returns true if id a comes before id b
+		 */
+		private boolean less(int a, int b) {
+			if(key[a] != key[b] || tie == null) {
+				return key[a] < key[b];
+			}
+			return tie[a] < tie[b];
+		}
+}
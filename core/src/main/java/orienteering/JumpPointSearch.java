@@ -0,0 +1,320 @@
+package orienteering;
+
+/**
+ * Class JumpPointSearch is a helper class for Orienteering. It is A* with
+ * successor pruning in the spirit of Jump Point Search, adapted to the
+ * weighted acre grid.
+ *
+ * When an acre q is expanded from its neighbour p, the step from q to a
+ * neighbour n is skipped if some other route from p to n of one or two
+ * steps that avoids q is strictly faster than p to q to n. Since q is
+ * expanded with its shortest travel time, that step can then be on no
+ * shortest path at all. On open ground of one terrain class with little
+ * change in elevation this leaves mostly the step straight on, so straight
+ * steps keep jumping ahead over acres whose other steps are all skipped
+ * without putting them on the open list. Wherever the cost of moving
+ * changes enough, the shortcuts stop being faster and acres are expanded
+ * fully, so the paths found stay optimal. This needs a consistent
+ * Heuristic such as DistanceHeuristic or LandmarkHeuristic.
+ *
+ * Which steps are skipped depends only on the edge costs, so it is worked
+ * out once for each acre, as a bit for each step in and step out, and kept
+ * in a Pruning the EdgeCostTable only makes once a search in this mode
+ * asks for it. Expanding an acre and jumping over one then each take one
+ * read of its bits.
+ *
+ * Even so it is not a faster mode on the shipped map. Its terrain changes
+ * class every few acres, so the acres jumped over are mostly reached and
+ * expanded again from the side, and it expands about as many acres as
+ * forward A* while walking the jumps on top, taking around twice as long
+ * per course. It is kept to compare against and for maps with wide
+ * stretches of one terrain, not as the mode to use for speed.
+ */
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+public class JumpPointSearch {
+
+		// For a step d0 into an acre followed by a step d out of it, the single step
+		// covering both, or -1, and the pairs of steps covering both that do not
+		// start with d0
+		static final int[][] DIRECT = new int[8][8];
+		static final int[][][] DETOURS = new int[8][8][];
+		static {
+			for(int d0=0; d0<8; d0++) {
+				for(int d=0; d<8; d++) {
+					int tx = Orienteering.DX[d0] + Orienteering.DX[d];
+					int ty = Orienteering.DY[d0] + Orienteering.DY[d];
+					DIRECT[d0][d] = -1;
+					ArrayList<Integer> pairs = new ArrayList<Integer>();
+					for(int e1=0; e1<8; e1++) {
+						if(Orienteering.DX[e1] == tx && Orienteering.DY[e1] == ty) {
+							DIRECT[d0][d] = e1;
+						}
+						if(e1 == d0) {
+							continue;
+						}
+						for(int e2=0; e2<8; e2++) {
+							if(Orienteering.DX[e1] + Orienteering.DX[e2] == tx && Orienteering.DY[e1] + Orienteering.DY[e2] == ty) {
+								pairs.add(e1);
+								pairs.add(e2);
+							}
+						}
+					}
+					DETOURS[d0][d] = new int[pairs.size()];
+					for(int i=0; i<pairs.size(); i++) {
+						DETOURS[d0][d][i] = pairs.get(i);
+					}
+				}
+			}
+		}
+
+		/*
+		 * Searches from x1, y1 to gx, gy and returns the path from the goal back to the start
+		 */
+		public static ArrayList<Node> search(EdgeCostTable costs, Heuristic h, int x1, int y1, int gx, int gy, SearchStats stats) {
+			long startTime = System.nanoTime();
+			int width = costs.width;
+			int height = costs.height;
+			int cells = costs.map.cells();
+			Pruning pruning = costs.pruning();
+			int startId = (y1 * width) + x1;
+			int goalId = (gy * width) + gx;
+
+			SearchSpace space = SearchSpace.acquire(cells, 0);
+			IndexedHeap open = space.open;
+			double[] g = space.g;
+			int[] parent = space.parent;
+			// Direction of the last step into each acre, -1 for the start
+			byte[] dir = space.dir;
+
+			g[startId] = 0;
+			parent[startId] = -1;
+			dir[startId] = -1;
+			space.setState(startId, Orienteering.OPEN);
+			open.add(startId, h.estimate(x1, y1, gx, gy));
+
+			long expanded = 0;
+			long pushed = 1;
+			boolean found = false;
+			while(!open.isEmpty()) {
+				int q = open.poll();
+				space.setState(q, Orienteering.CLOSED);
+				expanded++;
+				if(q == goalId) {
+					found = true;
+					break;
+				}
+				int qx = q % width;
+				int qy = q / width;
+				int d0 = dir[q];
+				int skip = (d0 == -1) ? 0 : (int) (pruning.get(qx, qy) >>> (d0 * 8)) & 0xFF;
+
+				for(int d=0; d<8; d++) {
+					if((skip & (1 << d)) != 0) {
+						continue;
+					}
+					double t = costs.cost(qx, qy, d);
+					if(t == Float.POSITIVE_INFINITY) {
+						continue;
+					}
+					int nx = qx + Orienteering.DX[d];
+					int ny = qy + Orienteering.DY[d];
+					int n = (ny * width) + nx;
+					double ng = g[q] + t;
+
+					// Straight steps run on while every other step out of the next acre is skipped
+					if(d < 4) {
+						boolean dead = false;
+						while(n != goalId && space.state(n) == 0 && onlyStraight(pruning, nx, ny, d)) {
+							double s = costs.cost(nx, ny, d);
+							if(s == Float.POSITIVE_INFINITY) {
+								dead = true;
+								break;
+							}
+							ng += s;
+							nx += Orienteering.DX[d];
+							ny += Orienteering.DY[d];
+							n = (ny * width) + nx;
+						}
+						if(dead) {
+							continue;
+						}
+					}
+
+					byte nState = space.state(n);
+					if(nState == Orienteering.CLOSED) {
+						continue;
+					}
+					if(nState == Orienteering.OPEN && g[n] <= ng) {
+						continue;
+					}
+					g[n] = ng;
+					parent[n] = q;
+					dir[n] = (byte) d;
+					double f = ng + h.estimate(nx, ny, gx, gy);
+					pushed++;
+					if(nState == Orienteering.OPEN) {
+						open.decreaseKey(n, f);
+					} else {
+						open.add(n, f);
+						space.setState(n, Orienteering.OPEN);
+					}
+				}
+			}
+
+			ArrayList<Node> path = new ArrayList<Node>();
+			if(found) {
+				path = unpack(costs, goalId, parent, dir);
+			}
+			if(stats != null) {
+				stats.expanded = expanded;
+				stats.pushed = pushed;
+				stats.nanos = System.nanoTime() - startTime;
+				stats.cost = found ? g[goalId] : Double.POSITIVE_INFINITY;
+			}
+			return path;
+		}
+
+		/*
+		 * Returns true if the step d out of the acre at x, y, entered by step d0 and costing t,
+		 * is beaten by a route from the previous acre that avoids x, y
+		 */
+		static boolean skipped(EdgeCostTable costs, int x, int y, int d0, int d, double t) {
+			int px = x - Orienteering.DX[d0];
+			int py = y - Orienteering.DY[d0];
+			// Keep a margin so rounding in the travel time sums never decides a skip
+			double via = (costs.cost(px, py, d0) + t) * (1 - 1e-9);
+			if(DIRECT[d0][d] != -1 && costs.cost(px, py, DIRECT[d0][d]) < via) {
+				return true;
+			}
+			int[] pairs = DETOURS[d0][d];
+			for(int i=0; i<pairs.length; i+=2) {
+				float c1 = costs.cost(px, py, pairs[i]);
+				if(c1 >= via) {
+					continue;
+				}
+				float c2 = costs.cost(px + Orienteering.DX[pairs[i]], py + Orienteering.DY[pairs[i]], pairs[i+1]);
+				if((double) c1 + c2 < via) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+		/*
+		 * Returns true if every step out of the acre at x, y, entered by straight step d, is skipped except going straight on
+		 */
+		static boolean onlyStraight(Pruning pruning, int x, int y, int d) {
+			return ((((int) (pruning.get(x, y) >>> (d * 8))) | (1 << d)) & 0xFF) == 0xFF;
+		}
+
+		/*
+		 * Returns the bits Pruning keeps for the acre at x, y. Steps into it from outside the map are never taken.
+		 */
+		static long prune(EdgeCostTable costs, int x, int y) {
+			long bits = 0;
+			for(int d=0; d<8; d++) {
+				double t = costs.cost(x, y, d);
+				for(int d0=0; d0<8; d0++) {
+					if(t == Float.POSITIVE_INFINITY) {
+						bits |= 1L << ((d0 * 8) + d);
+					} else if(costs.map.contains(x - Orienteering.DX[d0], y - Orienteering.DY[d0]) && skipped(costs, x, y, d0, d, t)) {
+						bits |= 1L << ((d0 * 8) + d);
+					}
+				}
+			}
+			return bits;
+		}
+
+		/*
+		 * Rebuilds the path from the goal back to the start, filling in the acres jumped over
+		 */
+		static ArrayList<Node> unpack(EdgeCostTable costs, int goalId, int[] parent, byte[] dir) {
+			int width = costs.width;
+
+			// Acres from the goal back to the start, one step apart
+			ArrayList<Integer> cells = new ArrayList<Integer>();
+			for(int c=goalId; c!=-1; c=parent[c]) {
+				cells.add(c);
+				if(parent[c] != -1) {
+					int d = dir[c];
+					int step = (Orienteering.DY[d] * width) + Orienteering.DX[d];
+					for(int j=c-step; j!=parent[c]; j-=step) {
+						cells.add(j);
+					}
+				}
+			}
+
+			Node node = null;
+			for(int i=cells.size()-1; i>=0; i--) {
+				int x = cells.get(i) % width;
+				int y = cells.get(i) / width;
+				double g = 0;
+				if(node != null) {
+					g = node.g + costs.cost(node.x, node.y, BidirectionalSearch.direction(x - node.x, y - node.y));
+				}
+				node = new Node(x, y, g, 0, node);
+			}
+
+			ArrayList<Node> path = new ArrayList<Node>();
+			while(node != null) {
+				path.add(node);
+				node = node.parent;
+			}
+			return path;
+		}
+
+		/*
+		 * The pruning bits of every acre of a table, 64 for each acre, worked out a tile at a time the first time
+		 * a search reaches the tile. For the acre at x, y, bit 8 * d0 + d is set when skipped skips the step d
+		 * out of it after the step d0 into it, or step d cannot be travelled.
+		 */
+		static class Pruning {
+
+			private final EdgeCostTable costs;
+			private final long[] bits;
+			private final int tilesX;
+			private final AtomicIntegerArray ready;
+
+			Pruning(EdgeCostTable costs) {
+				this.costs = costs;
+				this.bits = new long[costs.map.cells()];
+				this.tilesX = (costs.width + EdgeCostTable.TILE - 1) / EdgeCostTable.TILE;
+				this.ready = new AtomicIntegerArray(tilesX * ((costs.height + EdgeCostTable.TILE - 1) / EdgeCostTable.TILE));
+			}
+
+			/*
+			 * Returns the bits of the acre at x, y, working out its tile if needed
+			 */
+			long get(int x, int y) {
+				int tile = ((y / EdgeCostTable.TILE) * tilesX) + (x / EdgeCostTable.TILE);
+				if(ready.get(tile) == 0) {
+					int x0 = (tile % tilesX) * EdgeCostTable.TILE;
+					int y0 = (tile / tilesX) * EdgeCostTable.TILE;
+					for(int py=y0; py<Math.min(y0 + EdgeCostTable.TILE, costs.height); py++) {
+						for(int px=x0; px<Math.min(x0 + EdgeCostTable.TILE, costs.width); px++) {
+							bits[(py * costs.width) + px] = prune(costs, px, py);
+						}
+					}
+					ready.set(tile, 1);
+				}
+				return bits[(y * costs.width) + x];
+			}
+
+			/*
+			 * Works out again the bits of the tiles already made around the acre at x, y after the table refreshed
+			 * it. The bits read the costs stored up to two acres away, and the changed costs are stored up to one
+			 * acre from x, y.
+			 */
+			void refresh(int x, int y) {
+				for(int ny=Math.max(0, y - 3); ny<=Math.min(costs.height - 1, y + 3); ny++) {
+					for(int nx=Math.max(0, x - 3); nx<=Math.min(costs.width - 1, x + 3); nx++) {
+						if(ready.get(((ny / EdgeCostTable.TILE) * tilesX) + (nx / EdgeCostTable.TILE)) != 0) {
+							bits[(ny * costs.width) + nx] = prune(costs, nx, ny);
+						}
+					}
+				}
+			}
+		}
+}
@@ -0,0 +1,299 @@
+package orienteering;
+
+/**
+ * Class LandmarkHeuristic is a Heuristic built from the exact travel
+ * times between a few landmark acres and every other acre (ALT: A*,
+ * Landmarks and the Triangle inequality). Since travel times are the same
+ * in both directions, the time from a to b is at least |d(L, b) - d(L, a)|
+ * for every landmark L, and the largest of these bounds, or of the base
+ * heuristic if it is larger, is the estimate.
+ *
+ * Landmarks are chosen one at a time as the acre farthest from those
+ * already chosen, and each needs a full Dijkstra over the EdgeCostTable,
+ * so the table is meant to be built once per map and season and saved.
+ */
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public class LandmarkHeuristic implements Heuristic {
+
+		// Identifies a saved landmark file
+		static final int MAGIC = 0x414c5431;
+
+		final int width;
+		final int[] landmarks;
+		final float[][] dist;
+		final Heuristic base;
+
+		public LandmarkHeuristic(int width, int[] landmarks, float[][] dist, Heuristic base) {
+			this.width = width;
+			this.landmarks = landmarks;
+			this.dist = dist;
+			this.base = base;
+		}
+
+		/*
+		 * Returns the largest landmark lower bound on the travel time between the two acres
+		 */
+		public double estimate(int x1, int y1, int x2, int y2) {
+			int a = (y1 * width) + x1;
+			int b = (y2 * width) + x2;
+			double best = base.estimate(x1, y1, x2, y2);
+			for(int k=0; k<dist.length; k++) {
+				float da = dist[k][a];
+				float db = dist[k][b];
+				// Acres a landmark cannot reach give no bound
+				if(da == Float.POSITIVE_INFINITY || db == Float.POSITIVE_INFINITY) {
+					continue;
+				}
+				// Distances were rounded to floats, so take off their rounding error
+				double bound = Math.abs(da - db) - (2 * Math.ulp(Math.max(da, db)));
+				if(bound > best) {
+					best = bound;
+				}
+			}
+			// Edge costs can differ by rounding between directions, so leave a little slack
+			return best * (1 - 1e-6);
+		}
+
+		/*
+		 * Chooses k landmarks on the map and computes the travel time from each to every acre
+		 */
+		public static LandmarkHeuristic build(EdgeCostTable costs, int k, Heuristic base) {
+			costs.buildAll();
+			int cells = costs.map.cells();
+			int[] landmarks = new int[k];
+			float[][] dist = new float[k][];
+
+			// Travel time from each acre to its nearest chosen landmark
+			float[] nearest = new float[cells];
+			java.util.Arrays.fill(nearest, Float.POSITIVE_INFINITY);
+
+			// The first landmark is the acre farthest from an acre of the largest connected region
+			int seed = largestRegion(costs);
+			int next = (seed == -1) ? 0 : farthest(dijkstra(costs, seed), null);
+			for(int i=0; i<k; i++) {
+				landmarks[i] = next;
+				dist[i] = dijkstra(costs, next);
+				for(int c=0; c<cells; c++) {
+					nearest[c] = Math.min(nearest[c], dist[i][c]);
+				}
+				next = farthest(nearest, dist[i]);
+			}
+			return new LandmarkHeuristic(costs.width, landmarks, dist, base);
+		}
+
+		/*
+		 * Loads the landmarks saved in file if they were built from the same edge costs, otherwise builds and saves them
+		 */
+		public static LandmarkHeuristic loadOrBuild(EdgeCostTable costs, int k, Heuristic base, Path file) throws IOException {
+			costs.buildAll();
+			long fingerprint = fingerprint(costs);
+			if(Files.exists(file)) {
+				LandmarkHeuristic saved = load(file, costs.width, costs.height, fingerprint, base);
+				if(saved != null && saved.landmarks.length == k) {
+					return saved;
+				}
+			}
+			LandmarkHeuristic built = build(costs, k, base);
+			built.save(file, costs.height, fingerprint);
+			return built;
+		}
+
+		/*
+		 * Writes the landmarks and their travel times to file
+		 */
+		public void save(Path file, int height, long fingerprint) throws IOException {
+			// Written to a temporary file first, so a run that stops part way leaves no broken landmarks
+			Path part = SeasonCache.partFile(file);
+			try {
+				try(DataOutputStream out = new DataOutputStream(new java.io.BufferedOutputStream(Files.newOutputStream(part)))) {
+					out.writeInt(MAGIC);
+					out.writeInt(width);
+					out.writeInt(height);
+					out.writeInt(landmarks.length);
+					out.writeLong(fingerprint);
+					for(int i=0; i<landmarks.length; i++) {
+						out.writeInt(landmarks[i]);
+					}
+					for(int i=0; i<dist.length; i++) {
+						for(int c=0; c<dist[i].length; c++) {
+							out.writeFloat(dist[i][c]);
+						}
+					}
+				}
+				Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(part);
+			}
+		}
+
+		/*
+		 * Reads landmarks saved by save, returning null if they are for a different map or season
+		 */
+		public static LandmarkHeuristic load(Path file, int width, int height, long fingerprint, Heuristic base) throws IOException {
+			try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				// The header and each landmark are mapped separately, since the whole file may pass 2 GB on large maps
+				int cells = MapModel.cells(width, height, 1);
+				long size = channel.size();
+				if(size < 24) {
+					return null;
+				}
+				MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, 0, 24);
+				buf.order(ByteOrder.BIG_ENDIAN);
+				if(buf.getInt() != MAGIC || buf.getInt() != width || buf.getInt() != height) {
+					return null;
+				}
+				int k = buf.getInt();
+				if(buf.getLong() != fingerprint || size != 24 + ((long) k * 4) + ((long) k * cells * 4)) {
+					return null;
+				}
+				long offset = 24;
+				buf = channel.map(FileChannel.MapMode.READ_ONLY, offset, (long) k * 4);
+				int[] landmarks = new int[k];
+				buf.asIntBuffer().get(landmarks);
+				offset += (long) k * 4;
+				float[][] dist = new float[k][cells];
+				for(int i=0; i<k; i++) {
+					buf = channel.map(FileChannel.MapMode.READ_ONLY, offset, (long) cells * 4);
+					buf.asFloatBuffer().get(dist[i]);
+					offset += (long) cells * 4;
+				}
+				return new LandmarkHeuristic(width, landmarks, dist, base);
+			}
+		}
+
+		/*
+		 * Returns a checksum of every edge cost, so saved landmarks are only reused for the same map and season
+		 */
+		public static long fingerprint(EdgeCostTable costs) {
+			CRC32 crc = new CRC32();
+			ByteBuffer buf = ByteBuffer.allocate(8 * 4096);
+			float[] all = costs.flat();
+			for(int i=0; i<all.length; i++) {
+				buf.putFloat(all[i]);
+				if(!buf.hasRemaining()) {
+					buf.flip();
+					crc.update(buf);
+					buf.clear();
+				}
+			}
+			buf.flip();
+			crc.update(buf);
+			return crc.getValue();
+		}
+
+		/*
+		 * Returns the travel time from the source acre to every acre, infinity where it cannot be reached
+		 */
+		static float[] dijkstra(EdgeCostTable costs, int source) {
+			int width = costs.width;
+			int height = costs.height;
+			int cells = costs.map.cells();
+			double[] g = new double[cells];
+			java.util.Arrays.fill(g, Double.POSITIVE_INFINITY);
+			boolean[] closed = new boolean[cells];
+			IndexedHeap open = new IndexedHeap(cells);
+			g[source] = 0;
+			open.add(source, 0);
+			while(!open.isEmpty()) {
+				int q = open.poll();
+				closed[q] = true;
+				int qx = q % width;
+				int qy = q / width;
+				for(int d=0; d<8; d++) {
+					int nx = qx + Orienteering.DX[d];
+					int ny = qy + Orienteering.DY[d];
+					if(nx < 0 || ny < 0 || nx >= width || ny >= height) {
+						continue;
+					}
+					int n = (ny * width) + nx;
+					float t = costs.cost(qx, qy, d);
+					if(closed[n] || t == Float.POSITIVE_INFINITY) {
+						continue;
+					}
+					double ng = g[q] + t;
+					if(ng < g[n]) {
+						if(open.contains(n)) {
+							open.decreaseKey(n, ng);
+						} else {
+							open.add(n, ng);
+						}
+						g[n] = ng;
+					}
+				}
+			}
+			float[] dist = new float[cells];
+			for(int c=0; c<cells; c++) {
+				dist[c] = (float) g[c];
+			}
+			return dist;
+		}
+
+		/*
+		 * Returns the acre with the largest finite distance, among those the latest landmark reaches if given
+		 */
+		static int farthest(float[] dist, float[] reach) {
+			int best = 0;
+			float far = -1;
+			for(int c=0; c<dist.length; c++) {
+				if(dist[c] != Float.POSITIVE_INFINITY && dist[c] > far && (reach == null || reach[c] != Float.POSITIVE_INFINITY)) {
+					far = dist[c];
+					best = c;
+				}
+			}
+			return best;
+		}
+
+		/*
+		 * Returns an acre of the largest region of acres connected by finite edges, or -1 if there are no such edges
+		 */
+		static int largestRegion(EdgeCostTable costs) {
+			int width = costs.width;
+			int height = costs.height;
+			int cells = costs.map.cells();
+			boolean[] seen = new boolean[cells];
+			int[] queue = new int[cells];
+			int best = -1;
+			int bestSize = 1;
+			for(int c=0; c<cells; c++) {
+				if(seen[c]) {
+					continue;
+				}
+				// Flood the region containing c
+				int head = 0;
+				int tail = 0;
+				queue[tail++] = c;
+				seen[c] = true;
+				while(head < tail) {
+					int q = queue[head++];
+					int qx = q % width;
+					int qy = q / width;
+					for(int d=0; d<8; d++) {
+						if(costs.cost(qx, qy, d) == Float.POSITIVE_INFINITY) {
+							continue;
+						}
+						int n = ((qy + Orienteering.DY[d]) * width) + qx + Orienteering.DX[d];
+						if(!seen[n]) {
+							seen[n] = true;
+							queue[tail++] = n;
+						}
+					}
+				}
+				if(tail > bestSize) {
+					bestSize = tail;
+					best = c;
+				}
+			}
+			return best;
+		}
+}
@@ -0,0 +1,68 @@
+package orienteering;
+
+/**
+ * Class MapModel is a helper class for Orienteering. It pairs the terrain
+ * of a map with its elevations and holds the size of the map, which is
+ * taken from the terrain image. The elevation file may cover more acres
+ * than the image, as the shipped one does, but never fewer.
+ *
+ * Every array over the acres of a map is indexed by an int cell id, so
+ * sizes are checked with cells before anything is allocated instead of
+ * letting width * height wrap around on large maps.
+ */
+public class MapModel {
+
+		final TerrainGrid terrain;
+		final ElevationGrid elGrid;
+		final int width;
+		final int height;
+
+		public MapModel(TerrainGrid terrain, ElevationGrid elGrid) {
+			if(elGrid.width < terrain.width || elGrid.height < terrain.height) {
+				throw new IllegalArgumentException("Elevations cover " + elGrid.width + " by " + elGrid.height
+						+ " acres but the terrain is " + terrain.width + " by " + terrain.height);
+			}
+			this.terrain = terrain;
+			this.elGrid = elGrid;
+			this.width = terrain.width;
+			this.height = terrain.height;
+		}
+
+		/*
+		 * Loads the terrain image for the given season and the elevation file
+		 */
+		public static MapModel load(String terrainFile, String elevationFile, String season) {
+			ElevationGrid elGrid = Orienteering.loadElevation(elevationFile);
+			return new MapModel(Orienteering.loadTerrain(terrainFile, elGrid, season), elGrid);
+		}
+
+		/*
+		 * Returns the number of acres on the map
+		 */
+		public int cells() {
+			return cells(width, height, 1);
+		}
+
+		/*
+		 * Returns true if x, y is an acre of the map
+		 */
+		public boolean contains(int x, int y) {
+			return x >= 0 && y >= 0 && x < width && y < height;
+		}
+
+		/*
+		 * Returns the length of an array holding perCell entries for each acre of a width by height map,
+		 * failing if it would not fit in a Java array
+		 */
+		static int cells(long width, long height, int perCell) {
+			if(width < 0 || height < 0) {
+				throw new IllegalArgumentException("Negative map size " + width + " by " + height);
+			}
+			long length = width * height * perCell;
+			if(length > Integer.MAX_VALUE - 8) {
+				throw new IllegalArgumentException("A " + width + " by " + height + " map needs " + length
+						+ " entries, more than an array can hold");
+			}
+			return (int) length;
+		}
+}
@@ -1,3 +1,5 @@
+package orienteering;
+
 /**
  * Class Node is a helper class for Orienteering. Each Node
  * contains information regarding the traversal of an acre.
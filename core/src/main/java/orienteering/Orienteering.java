@@ -0,0 +1,709 @@
+package orienteering;
+
+/**
+ * Class Orienteering uses an A* search algorithm to traverse an environment 
+ * consisting of varying terrains and elevations in order to reach a set of
+ * destinations. These terrains, elevations, and destinations are detailed in
+ * the various input files. This program creates two output files, path.png
+ * and directions.txt, that detail the solution found.
+ *
+ * Usage: java Orienteering terrain elevation course season [threads [metrics]]
+ *
+ * @author  Peter Hogya
+ * @version 26-Oct-2017
+ */
+import javax.imageio.ImageIO;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.awt.image.BufferedImage;
+
+public class Orienteering {    
+
+	// Successor offsets in the order N, S, E, W, NE, NW, SE, SW
+	static final int[] DX = {0, 0, 1, -1, 1, -1, 1, -1};
+	static final int[] DY = {1, -1, 0, 0, 1, 1, -1, -1};
+	
+	// Search state of a cell
+	static final byte OPEN = 1;
+	static final byte CLOSED = 2;
+	
+	// Search modes
+	static final int FORWARD = 0;
+	static final int BIDIRECTIONAL = 1;
+	static final int JUMP = 2;
+	static final int HIERARCHICAL = 3;
+	static final int HIERARCHICAL_EXACT = 4;
+	static final int CONTRACTED = 5;
+	static final int ANYTIME = 6;
+	
+	// Number of landmarks used by the landmark heuristic
+	static final int LANDMARKS = 8;
+	
+	// Color the path is drawn in
+	static final int PATH_COLOR = -3342235;
+
+	/*
+	 * Main function
+	 */
+    public static void main( String[] args ){
+    	
+    	// Argument checks
+    	if(args.length < 4 || args.length > 6) {
+    		System.err.println("Incorrect number of arguments");
+    		usage();
+    	}
+    	
+    	// Get Terrain file and check for seasonal changes, and parse elevation file, or read them back with
+    	// their edge costs from the cache of an earlier run on the same map and season
+    	CourseMetrics metrics = (args.length == 6) ? new CourseMetrics() : null;
+    	long phaseStart = System.nanoTime();
+    	EdgeCostTable costs = loadCosts(args[0], args[1], args[3]);
+    	phaseStart = phase(metrics, "load", phaseStart);
+    	TerrainGrid terrain = costs.terrain;
+    	
+    	// Parse course file
+    	int[] controls = loadCourse(args[2]);
+    	
+    	// Number of legs solved at once
+    	int threads = Runtime.getRuntime().availableProcessors();
+    	if(args.length >= 5) {
+    		threads = Integer.parseInt(args[4]);
+    	}
+    	
+    	// Landmark heuristic, built once per map and season and reused on later runs
+    	Heuristic h = loadLandmarks(costs, args[0], args[3]);
+    	phaseStart = phase(metrics, "landmarks", phaseStart);
+    	
+    	// Run A* algorithm on every leg in parallel
+    	ForkJoinPool pool = new ForkJoinPool(threads);
+    	ArrayList<Node> path = CourseSolver.solve(costs, h, controls, pool, metrics);
+    	pool.shutdown();
+    	phaseStart = phase(metrics, "search", phaseStart);
+    	
+    	// Produce output files
+    	getDirections(path);
+    	
+    	File outputfile = new File("path.png");
+    	try {
+			ImageIO.write(drawPath(terrain, path), "PNG", outputfile);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+    	phase(metrics, "output", phaseStart);
+    	
+    	// Write the metrics of the run, to standard output if the file is given as -
+    	if(metrics != null) {
+    		writeMetrics(metrics, args[5]);
+    	}
+    }
+    
+    /*
+     * Records in metrics, if it is not null, the time since the phase started and returns the time it ended
+     */
+    static long phase(CourseMetrics metrics, String name, long startTime) {
+    	long now = System.nanoTime();
+    	if(metrics != null) {
+    		metrics.phase(name, now - startTime);
+    	}
+    	return now;
+    }
+    
+    /*
+     * Writes the metrics as JSON to the file, or to standard output if the file is -
+     */
+    public static void writeMetrics(CourseMetrics metrics, String file) {
+    	if(file.equals("-")) {
+    		System.out.println(metrics.toJson());
+    		return;
+    	}
+    	try {
+    		Files.write(Paths.get(file), (metrics.toJson() + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+    	} catch (IOException e) {
+    		e.printStackTrace();
+    	}
+    }
+    
+    /*
+     * Performs an A* search from the start position at x1, y1 to the goal position gx, gy.
+     */
+    public static ArrayList<Node> aStarSearch(EdgeCostTable costs, int x1, int y1, int gx, int gy) {
+    	return aStarSearch(costs, Orienteering::minTTime, x1, y1, gx, gy, FORWARD, null);
+    }
+    
+    /*
+     * Performs an A* search from x1, y1 to gx, gy with the given heuristic, either forward
+     * only, from both ends at once, forward with jump point pruning, or over the sparse or
+     * exact cluster graph of the map, or a search up the contraction hierarchy of the map,
+     * which needs no heuristic once it is built, or an anytime search that improves its path for the time
+     * AnytimeSearch.BUDGET allows, and records what it did in stats if it is not null.
+     */
+    public static ArrayList<Node> aStarSearch(EdgeCostTable costs, Heuristic h, int x1, int y1, int gx, int gy,
+    											int mode, SearchStats stats) {
+    	if(mode == BIDIRECTIONAL) {
+    		return BidirectionalSearch.search(costs, h, x1, y1, gx, gy, stats);
+    	}
+    	if(mode == JUMP) {
+    		return JumpPointSearch.search(costs, h, x1, y1, gx, gy, stats);
+    	}
+    	if(mode == HIERARCHICAL || mode == HIERARCHICAL_EXACT) {
+    		return costs.clusters(mode == HIERARCHICAL_EXACT).search(h, x1, y1, gx, gy, stats);
+    	}
+    	if(mode == CONTRACTED) {
+    		// Searched from both ends with the heuristic until the hierarchy has been built in the background
+    		ContractionHierarchy ch = costs.hierarchy();
+    		if(ch == null) {
+    			return BidirectionalSearch.search(costs, h, x1, y1, gx, gy, stats);
+    		}
+    		return ch.search(x1, y1, gx, gy, stats);
+    	}
+    	if(mode == ANYTIME) {
+    		return AnytimeSearch.search(costs, h, AnytimeSearch.lowerBound(costs, h), x1, y1, gx, gy,
+    				AnytimeSearch.EPSILON, 1, AnytimeSearch.BUDGET, null, stats);
+    	}
+    	long startTime = System.nanoTime();
+    	long expanded = 0;
+    	long pushed = 1;
+    	long rejected = 0;
+    	long blocked = 0;
+    	long edges = 0;
+    	int peakOpen = 1;
+
+    	int width = costs.width;
+    	int height = costs.height;
+    	
+    	// Open list, state, travel times and parents of this thread, reused from its last search
+    	SearchSpace space = SearchSpace.acquire(costs.map.cells(), 0);
+    	IndexedHeap openList = space.open;
+    	double[] g = space.g;
+    	int[] parent = space.parent;
+    	
+    	// Add start node to list
+    	int startId = (y1 * width) + x1;
+    	int goalId = (gy * width) + gx;
+    	g[startId] = 0;
+    	parent[startId] = -1;
+    	openList.add(startId, h.estimate(x1,y1,gx,gy));
+    	space.setState(startId, OPEN);
+    	
+    	// TravelTime placeholder
+    	double t;
+    	boolean found = false;
+    	while( openList.isEmpty() != true ) {
+    		
+    		// Get and remove smallest f
+    		int qId = openList.poll();
+    		space.setState(qId, CLOSED);
+    		expanded++;
+    		
+    		// Check for goal node
+    		if( qId == goalId ){
+    			found = true;
+    			break;
+    		}
+    		int qx = qId % width;
+    		int qy = qId / width;
+    		
+    		// Generate successors with OOB checks and impassable terrain checks
+    		for(int d=0; d<8; d++) {
+    			int nx = qx + DX[d];
+    			int ny = qy + DY[d];
+    			if(nx < 0 || ny < 0 || nx >= width || ny >= height) {
+    				continue;
+    			}
+    			int nId = (ny * width) + nx;
+    			
+    			// Skip nodes that have already been expanded
+    			byte nState = space.state(nId);
+    			if(nState == CLOSED) {
+    				rejected++;
+    				continue;
+    			}
+    			
+    			t = costs.cost(qx,qy,d);
+    			edges++;
+    			if(t == Float.POSITIVE_INFINITY) {
+    				blocked++;
+    				continue;
+    			}
+    			
+    			// If there is already a better path to this node in openList skip it
+    			double ng = g[qId] + t;
+    			if(nState == OPEN && g[nId] <= ng) {
+    				rejected++;
+    				continue;
+    			}
+    			
+    			g[nId] = ng;
+    			parent[nId] = qId;
+    			double f = ng + h.estimate(nx,ny,gx,gy);
+    			pushed++;
+    			if(nState == OPEN) {
+    				openList.decreaseKey(nId, f);
+    			} else {
+    				openList.add(nId, f);
+    				space.setState(nId, OPEN);
+    				if(openList.size() > peakOpen) {
+    					peakOpen = openList.size();
+    				}
+    			}
+    		}
+    	}
+    	
+    	if(stats != null) {
+    		stats.expanded = expanded;
+    		stats.pushed = pushed;
+    		stats.rejected = rejected;
+    		stats.blocked = blocked;
+    		stats.edges = edges;
+    		stats.peakOpen = peakOpen;
+    		stats.nanos = System.nanoTime() - startTime;
+    		stats.cost = found ? g[goalId] : Double.POSITIVE_INFINITY;
+    	}
+    	
+    	ArrayList<Node> path = new ArrayList<Node>();
+    	if(found) {
+    		path = buildPath(space, width, h, goalId, gx, gy);
+    	}
+    	return path;
+    }
+    
+    /*
+     * Builds the Nodes of the path ending at goalId from the parents in space, returned from the goal back to the start
+     */
+    static ArrayList<Node> buildPath(SearchSpace space, int width, Heuristic h, int goalId, int gx, int gy) {
+    	int length = 0;
+    	for(int c=goalId; c!=-1; c=space.parent[c]) {
+    		length++;
+    	}
+    	int[] cells = new int[length];
+    	int i = length;
+    	for(int c=goalId; c!=-1; c=space.parent[c]) {
+    		cells[--i] = c;
+    	}
+    	
+    	Node node = null;
+    	for(i=0; i<length; i++) {
+    		int x = cells[i] % width;
+    		int y = cells[i] / width;
+    		node = new Node(x, y, space.g[cells[i]], h.estimate(x,y,gx,gy), node);
+    	}
+    	
+    	ArrayList<Node> path = new ArrayList<Node>(length);
+    	while(node != null) {
+    		path.add(node);
+    		node = node.parent;
+    	}
+    	return path;
+    }
+    
+    /*
+     * Heuristic function to estimate the cost of a path
+     */
+    public static double minTTime(int x1, int y1, int x2, int y2){
+    	
+    	// Find the distance from x1,y1 to x2,y2 using trig and weighting acres
+    	double dx = Math.sqrt( Math.pow(Math.abs(x1-x2) * 10.29, 2) + Math.pow(Math.abs(y1-y2) * 7.55,2) );
+    	
+    	// The max walking speed using Tobler's Hiking function
+    	double w = 6;
+    	
+    	// Return travel time as walking speed over distance
+    	return dx / w;
+    }
+    
+    /*
+     * Cost function to calculate actual cost of travel from one node to an adjacent node
+     */
+    public static double travelTime(ElevationGrid elGrid, TerrainGrid terrain, int x1, int y1, int x2, int y2) {
+    	return travelTime(terrain.get(x1, y1), elGrid.get(x1, y1), terrain.get(x2, y2), elGrid.get(x2, y2), x1, y1, x2, y2);
+    }
+    
+    /*
+     * Cost function for an acre of class c1 at elevation e1 at x1, y1 and an adjacent acre of class c2 at elevation e2 at x2, y2
+     */
+    public static double travelTime(byte c1, float e1, byte c2, float e2, int x1, int y1, int x2, int y2) {
+    	
+    	// Checks for terrain that cannot be traversed (Out of Bounds, Swamp/Lake/Marsh, Impassable Vegetation)
+    	if(!TerrainGrid.PASSABLE[c1] || !TerrainGrid.PASSABLE[c2]) {
+    		return -1;
+    	}
+    	
+    	double dh = 0; // Elevation difference
+    	double dx = 0; // Distance
+    	
+    	// Get distance based on direction moving and acre size
+    		// Moving North or South
+    	if(x1 == x2 && y1 != y2) {
+    		dx = 7.55;
+    	}
+    		// Moving East or West
+    	else if (x1 != x2 && y1 == y2) {
+    		dx = 10.29;
+    	}
+    		// Moving in an intermediate direction
+    	else {
+    		dx = 12.763;
+    	}
+    	
+    	// Get elevation difference
+    	dh = Math.abs(e1 - e2);
+    	
+    	// Get terrain multipliers
+    	double tm1 = TerrainGrid.MULTIPLIER[c1];
+    	double tm2 = TerrainGrid.MULTIPLIER[c2];
+    	
+    	// Walking speed based on Tobler's Hiking Function
+    	double w = 6*Math.exp(-3.5 * (Math.abs(dh/dx) + 0.05 ));
+    	
+    	// Total travel time = time to leave current acre + time to get the center of next acre
+    	double t = (((dx/2) / w) * tm1) + (((dx/2) / w) * tm2);
+    		
+		return t;
+    }
+    
+    /*
+     * Loads the terrain image and applies the changes for the given season
+     */
+    public static TerrainGrid loadTerrain(String file, String season) {
+    	return loadTerrain(file, null, season);
+    }
+    
+    /*
+     * Loads the terrain image and applies the changes for the given season, using the elevations for spring
+     */
+    public static TerrainGrid loadTerrain(String file, ElevationGrid elGrid, String season) {
+    	TerrainGrid terrain = TerrainGrid.fromImage(getImage(file));
+    	applySeason(terrain, elGrid, season);
+    	return terrain;
+    }
+    
+    /*
+     * Applies the changes for the given season to the terrain
+     */
+    public static void applySeason(TerrainGrid terrain, String season) {
+    	applySeason(terrain, null, season);
+    }
+    
+    /*
+     * Applies the changes for the given season to the terrain, using the elevations for spring
+     */
+    public static void applySeason(TerrainGrid terrain, ElevationGrid elGrid, String season) {
+    	if(season.compareToIgnoreCase("fall") == 0) {
+    		fallTerrain(terrain);
+    	}
+    	if(season.compareToIgnoreCase("winter") == 0) {
+    		winterTerrain(terrain);
+    	}
+    	if(season.compareToIgnoreCase("spring") == 0) {
+    		springTerrain(terrain, elGrid);
+    	}
+    }
+    
+    /*
+     * Loads the elevation file
+     */
+    public static ElevationGrid loadElevation(String file) {
+    	ElevationGrid elGrid = null;
+    	try {
+			elGrid = ElevationParser.load(resolve(file));
+		} catch (IOException e) {
+			e.printStackTrace();
+		} catch (URISyntaxException e) {
+			e.printStackTrace();
+		}
+    	return elGrid;
+    }
+    
+    /*
+     * Loads the course file as x, y pairs of controls
+     */
+    public static int[] loadCourse(String file) {
+    	String course = null;
+    	try {
+			course = new String(Files.readAllBytes(resolve(file)));
+		} catch (IOException e) {
+			e.printStackTrace();
+		} catch (URISyntaxException e) {
+			e.printStackTrace();
+		}
+    	return CourseSolver.parseCourse(course);
+    }
+    
+    /*
+     * Loads the map and its edge costs for this terrain file, elevation file and season from the cache
+     * saved next to the output, building and saving them if needed
+     */
+    public static EdgeCostTable loadCosts(String terrainFile, String elevationFile, String season) {
+    	Path file = Paths.get(Paths.get(terrainFile).getFileName() + "." + season.toLowerCase() + ".cache");
+    	return SeasonCache.loadOrBuild(terrainFile, elevationFile, season, file);
+    }
+    
+    /*
+     * Loads the landmark heuristic saved for this terrain file and season, building and saving it if needed
+     */
+    public static Heuristic loadLandmarks(EdgeCostTable costs, String terrainFile, String season) {
+    	Heuristic base = new DistanceHeuristic(costs.terrain);
+    	Path file = Paths.get(Paths.get(terrainFile).getFileName() + "." + season.toLowerCase() + ".landmarks");
+    	try {
+    		return LandmarkHeuristic.loadOrBuild(costs, LANDMARKS, base, file);
+    	} catch (IOException e) {
+    		e.printStackTrace();
+    		return base;
+    	}
+    }
+    
+    /*
+     * Loads the contraction hierarchy saved for this terrain file and season into the table, building and
+     * saving it if needed
+     */
+    public static ContractionHierarchy loadHierarchy(EdgeCostTable costs, String terrainFile, String season) {
+    	try {
+    		ContractionHierarchy ch = ContractionHierarchy.loadOrBuild(costs, hierarchyFile(terrainFile, season), ForkJoinPool.commonPool());
+    		costs.setHierarchy(ch);
+    		return ch;
+    	} catch (IOException e) {
+    		e.printStackTrace();
+    		return costs.awaitHierarchy();
+    	}
+    }
+    
+    /*
+     * Returns the file the contraction hierarchy for this terrain file and season is saved in, next to the output
+     */
+    static Path hierarchyFile(String terrainFile, String season) {
+    	return Paths.get(Paths.get(terrainFile).getFileName() + "." + season.toLowerCase() + ".ch");
+    }
+    
+    /*
+     * Finds an input file, either at the given path or at the top of the class path
+     */
+    public static Path resolve(String file) throws URISyntaxException {
+    	Path path = Paths.get(file);
+    	if(!Files.exists(path)) {
+    		URL url = Orienteering.class.getResource("/" + file);
+    		if(url != null) {
+    			path = Paths.get(url.toURI());
+    		}
+    	}
+    	return path;
+    }
+    
+    /*
+     * Function to get terrain image data
+     */
+    public static BufferedImage getImage(String file) {
+    	BufferedImage img = null;
+    	try {
+    	    img = ImageIO.read(resolve(file).toFile());
+    	} catch (IOException e) {
+    		System.err.println(e);
+    	} catch (URISyntaxException e) {
+			e.printStackTrace();
+		}
+    	return img;
+    }
+    
+    /*
+     * Draws the terrain with the path over it in red
+     */
+    public static BufferedImage drawPath(TerrainGrid terrain, ArrayList<Node> path) {
+    	BufferedImage image = terrain.toImage();
+    	for(int i=path.size()-1; i>=0; i--) {
+    		image.setRGB(path.get(i).x, path.get(i).y, PATH_COLOR);
+    	}
+    	return image;
+    }
+    
+    /*
+     * Outputs results to text file
+     */
+    public static void getDirections(ArrayList<Node> path) {
+    	getDirections(path, "directions.txt");
+    }
+    
+    /*
+     * Outputs results to the given text file
+     */
+    public static void getDirections(ArrayList<Node> path, String file) {
+    	
+    	PrintWriter writer = null;
+		try {
+			writer = new PrintWriter(file, "UTF-8");
+		} catch (FileNotFoundException e) {
+			e.printStackTrace();
+		} catch (UnsupportedEncodingException e) {
+			e.printStackTrace();
+		}
+    	writer.print(directions(path));
+    	writer.close();
+    }
+    
+    /*
+     * Returns the text directions along the path
+     */
+    public static String directions(ArrayList<Node> path) {
+    	
+    	StringWriter text = new StringWriter();
+    	PrintWriter writer = new PrintWriter(text);
+    	writer.println("Directions:");
+    	
+    	String heading = null;
+    	int acres = 0;
+    	
+    	for(int i=0; i<path.size()-1; i++) {
+    		
+    		// Heading North
+    		if(path.get(i).x == path.get(i+1).x && path.get(i).y+1 == path.get(i+1).y) {
+    			if(heading != "North"){
+    				heading = "North";
+    				if(acres != 0) {
+    					writer.println(acres + " acres.");
+    				}
+    				writer.print("Go North for ");
+    				acres = 1;
+    			} else {
+    				acres += 1;
+    			}
+    		}
+    		// Heading South
+    		if(path.get(i).x == path.get(i+1).x && path.get(i).y-1 == path.get(i+1).y) {
+    			if(heading != "South"){
+    				heading = "South";
+    				if(acres != 0) {
+    					writer.println(acres + " acres.");
+    				}
+    				writer.print("Go South for ");
+    				acres = 1;
+    			} else {
+    				acres += 1;
+    			}
+    		}
+    		// Heading East
+    		if(path.get(i).x+1 == path.get(i+1).x && path.get(i).y == path.get(i+1).y) {
+    			if(heading != "East"){
+    				heading = "East";
+    				if(acres != 0) {
+    					writer.println(acres + " acres.");
+    				}
+    				writer.print("Go East for ");
+    				acres = 1;
+    			} else {
+    				acres += 1;
+    			}
+    		}
+    		// Heading West
+    		if(path.get(i).x-1 == path.get(i+1).x && path.get(i).y == path.get(i+1).y) {
+    			if(heading != "West"){
+    				heading = "West";
+    				if(acres != 0) {
+    					writer.println(acres + " acres.");
+    				}
+    				writer.print("Go West for ");
+    				acres = 1;
+    			} else {
+    				acres += 1;
+    			}
+    		}
+    		// Heading Northeast
+    		if(path.get(i).x+1 == path.get(i+1).x && path.get(i).y+1 == path.get(i+1).y) {
+    			if(heading != "Northeast"){
+    				heading = "Northeast";
+    				if(acres != 0) {
+    					writer.println(acres + " acres.");
+    				}
+    				writer.print("Go Northeast for ");
+    				acres = 1;
+    			} else {
+    				acres += 1;
+    			}
+    		}
+    		// Heading Northwest
+    		if(path.get(i).x-1 == path.get(i+1).x && path.get(i).y+1 == path.get(i+1).y) {
+    			if(heading != "Northwest"){
+    				heading = "Northwest";
+    				if(acres != 0) {
+    					writer.println(acres + " acres.");
+    				}
+    				writer.print("Go Northwest for ");
+    				acres = 1;
+    			} else {
+    				acres += 1;
+    			}
+    		}
+    		// Heading Southeast
+    		if(path.get(i).x+1 == path.get(i+1).x && path.get(i).y-1 == path.get(i+1).y) {
+    			if(heading != "Southeast"){
+    				heading = "Southeast";
+    				if(acres != 0) {
+    					writer.println(acres + " acres.");
+    				}
+    				writer.print("Go Southeast for ");
+    				acres = 1;
+    			} else {
+    				acres += 1;
+    			}
+    		}
+    		// Heading Southwest
+    		if(path.get(i).x-1 == path.get(i+1).x && path.get(i).y-1 == path.get(i+1).y) {
+    			if(heading != "Southwest"){
+    				heading = "Southwest";
+    				if(acres != 0) {
+    					writer.println(acres + " acres.");
+    				}
+    				writer.print("Go Southwest for ");
+    				acres = 1;
+    			} else {
+    				acres += 1;
+    			}
+    		}
+    	}
+    	writer.println(acres + " acres.");
+    	writer.close();
+    	return text.toString();
+    }
+    
+    /*
+     * Adjusts terrain for fall weather
+     */
+    public static void fallTerrain(TerrainGrid terrain) {
+    	SeasonTransform.fall(terrain);
+    }
+    
+    /*
+     * Adjusts terrain for winter weather
+     */
+    public static void winterTerrain(TerrainGrid terrain) {
+    	SeasonTransform.winter(terrain);
+    }
+    
+    /*
+     * Adjusts terrain for spring weather, which needs the elevations of the map
+     */
+    public static void springTerrain(TerrainGrid terrain, ElevationGrid elGrid) {
+    	SeasonTransform.spring(terrain, elGrid);
+    }
+    
+    /*
+     * Prints usage message and exits
+     */
+    public static void usage(){
+    	System.err.println("Usage: Orienteering terrain elevation course season [threads [metrics]]");
+    	System.err.println("Arguments terrain, elevation, and course should be file names including their extensions and season should be "
+    			+ "a string for a season, summer, fall...");
+    	System.err.println("The optional threads argument is the number of legs solved at once, by default one per processor.");
+    	System.err.println("The optional metrics argument is a file to write the counts and times of each leg to as JSON, or - for standard output.");
+    	System.exit(1);
+    }
+}
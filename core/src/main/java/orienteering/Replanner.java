@@ -0,0 +1,124 @@
+package orienteering;
+
+/**
+ * Class Replanner is a helper class for Orienteering. It keeps every leg
+ * of a course planned while the map changes under it, as when trails are
+ * closed or ground floods during an event. Each leg is an
+ * IncrementalSearch, so after a batch of CellChanges only the part of
+ * each search the changed acres reach is searched again.
+ *
+ * LPA* is used rather than D* Lite, since the controls of a leg never
+ * move; D* Lite only pays for itself when the start moves along the path.
+ */
+import java.util.ArrayList;
+import java.util.List;
+
+public class Replanner {
+
+		private final EdgeCostTable costs;
+		private final IncrementalSearch[] legs;
+		private final boolean[] present;
+		private DistanceHeuristic h;
+
+		/*
+		 * Plans every leg of the course given as x, y pairs of controls on the map of costs
+		 */
+		public Replanner(EdgeCostTable costs, int[] controls) {
+			this.costs = costs;
+			this.present = DistanceHeuristic.present(costs.terrain);
+			this.h = new DistanceHeuristic(present);
+			this.legs = new IncrementalSearch[(controls.length / 2) - 1];
+			for(int i=0; i<legs.length; i++) {
+				legs[i] = new IncrementalSearch(costs, h, controls[i*2], controls[(i*2)+1],
+						controls[(i*2)+2], controls[(i*2)+3]);
+				legs[i].search();
+			}
+		}
+
+		/*
+		 * Returns the number of legs
+		 */
+		public int legs() {
+			return legs.length;
+		}
+
+		/*
+		 * Returns the search of leg i
+		 */
+		public IncrementalSearch leg(int i) {
+			return legs[i];
+		}
+
+		/*
+		 * Returns the current path of every leg, each from its goal back to its start
+		 */
+		public List<ArrayList<Node>> paths() {
+			List<ArrayList<Node>> paths = new ArrayList<ArrayList<Node>>();
+			for(IncrementalSearch leg : legs) {
+				paths.add(leg.path());
+			}
+			return paths;
+		}
+
+		/*
+		 * Applies a batch of changes to the map and repairs every leg they affect, returning the
+		 * updated paths. The whole batch is refused, leaving the map alone, if the table is patched by
+		 * season tables, if a change lies off the map or names no terrain class, or if the table patches
+		 * the summer table and a change moves an elevation the two share.
+		 */
+		public List<ArrayList<Node>> apply(List<CellChange> changes) {
+			if(costs.isShared()) {
+				throw new IllegalStateException("Cannot replan on a table that season tables patch");
+			}
+			for(CellChange change : changes) {
+				if(!costs.map.contains(change.x, change.y)) {
+					throw new IllegalArgumentException("Change outside the map at " + change.x + ", " + change.y);
+				}
+				if(change.terrainClass != CellChange.KEEP_CLASS
+						&& (change.terrainClass < 0 || change.terrainClass >= TerrainGrid.CLASSES)) {
+					throw new IllegalArgumentException("No terrain class " + change.terrainClass + " for "
+							+ change.x + ", " + change.y);
+				}
+				if(costs.base != null && !Float.isNaN(change.elevation)) {
+					throw new IllegalArgumentException("Elevation at " + change.x + ", " + change.y
+							+ " is shared with the summer table and cannot change on a season table");
+				}
+			}
+			int[] cells = new int[changes.size()];
+			boolean added = false;
+			for(int i=0; i<changes.size(); i++) {
+				CellChange change = changes.get(i);
+				if(change.terrainClass != CellChange.KEEP_CLASS) {
+					costs.terrain.set(change.x, change.y, change.terrainClass);
+					if(!present[change.terrainClass]) {
+						present[change.terrainClass] = true;
+						added = true;
+					}
+				}
+				if(!Float.isNaN(change.elevation)) {
+					costs.elGrid.set(change.x, change.y, change.elevation);
+				}
+				cells[i] = (change.y * costs.width) + change.x;
+			}
+			for(int i=0; i<changes.size(); i++) {
+				costs.refresh(changes.get(i).x, changes.get(i).y);
+			}
+
+			// A faster class than any before would make the heuristic overestimate
+			if(added) {
+				DistanceHeuristic next = new DistanceHeuristic(present);
+				if(next.perMetre < h.perMetre) {
+					h = next;
+					for(IncrementalSearch leg : legs) {
+						leg.setHeuristic(h);
+					}
+				}
+			}
+			for(IncrementalSearch leg : legs) {
+				if(leg.changed(cells)) {
+					leg.search();
+				}
+			}
+			return paths();
+		}
+}
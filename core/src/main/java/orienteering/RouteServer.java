@@ -0,0 +1,430 @@
+package orienteering;
+
+/**
+ * Class RouteServer answers route requests over HTTP on localhost from
+ * maps loaded once and kept in memory, so a query costs only its search
+ * instead of a JVM start, an image decode and an elevation parse.
+ *
+ *	GET  /route?season=summer&from=x,y&to=x,y	one leg
+ *	POST /course?season=summer					a course file as the body
+ *	GET  /health
+ *
+ * Either search can be given budget=ms to run the anytime search for about
+ * that long per leg instead of to the shortest path, and bound=b to stop
+ * it early once its path is proven within b times the shortest. Each leg
+ * then also answers with the bound its path is proven within.
+ *
+ * Each season of the map is loaded when the server starts, and kept. The
+ * summer map is read through the same SeasonCache as the command line,
+ * and the other seasons are SeasonOverlays on it, whose edge cost tables
+ * patch the summer one only where the season changes the terrain, so
+ * the four seasons hold about as much terrain and as many edge costs as
+ * one map. Each season still has its own landmark file.
+ * Searches run on a fixed pool of worker threads with a bounded queue.
+ * Requests are taken off the connection by the server's own thread and
+ * handed to the pool, and when the queue is full they are answered at
+ * once with 503 and a Retry-After header instead of waiting, so a burst
+ * of requests cannot pile up without limit.
+ *
+ * Usage: java RouteServer terrain elevation [port] [threads] [queue]
+ */
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+public class RouteServer {
+
+		// Seasons the server keeps loaded
+		static final String[] SEASONS = {"summer", "fall", "winter", "spring"};
+
+		// Defaults for the port, worker threads and requests waiting for a worker
+		static final int PORT = 8080;
+		static final int QUEUE = 64;
+
+		// Largest course file accepted
+		static final int MAX_BODY = 1 << 20;
+
+		private final String terrainFile;
+		private final String elevationFile;
+		private final Map<String, Season> seasons = new ConcurrentHashMap<String, Season>();
+		private EdgeCostTable summer;
+		private final ThreadPoolExecutor workers;
+		private final HttpServer server;
+
+		/*
+		 * The edge costs and heuristic of one season of the map
+		 */
+		private static class Season {
+
+				final EdgeCostTable costs;
+				final Heuristic h;
+
+				Season(EdgeCostTable costs, Heuristic h) {
+					this.costs = costs;
+					this.h = h;
+				}
+		}
+
+		/*
+		 * A server for the map on the given port of localhost, 0 for any free port, searching on the given
+		 * number of threads with at most queue requests waiting. Programs that start one should run with
+		 * -Dsun.net.httpserver.nodelay=true, as main does, or small responses wait out the client's delayed
+		 * ACK, about 40 ms each; the setting is for the whole JVM, so it is left to them.
+		 */
+		public RouteServer(String terrainFile, String elevationFile, int port, int threads, int queue) throws IOException {
+			this.terrainFile = terrainFile;
+			this.elevationFile = elevationFile;
+			this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS,
+					new ArrayBlockingQueue<Runnable>(queue), new ThreadPoolExecutor.AbortPolicy());
+			this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+			server.createContext("/route", exchange -> dispatch(exchange, "GET", () -> route(exchange)));
+			server.createContext("/course", exchange -> dispatch(exchange, "POST", () -> course(exchange)));
+			server.createContext("/health", exchange -> respond(exchange, 200, "{\"status\":\"ok\"}"));
+		}
+
+		/*
+		 * Loads every season of the map and starts answering requests
+		 */
+		public void start() {
+			for(String season : SEASONS) {
+				season(season);
+			}
+			server.start();
+		}
+
+		/*
+		 * Stops answering requests, letting searches already running finish
+		 */
+		public void stop() {
+			server.stop(0);
+			workers.shutdown();
+		}
+
+		/*
+		 * Returns the port the server listens on
+		 */
+		public int port() {
+			return server.getAddress().getPort();
+		}
+
+		/*
+		 * Returns the loaded season, loading it the first time it is asked for
+		 */
+		private Season season(String name) {
+			return seasons.computeIfAbsent(name, s -> {
+				EdgeCostTable costs = s.equals("summer") ? summer() : EdgeCostTable.season(summer(), s);
+				return new Season(costs, Orienteering.loadLandmarks(costs, terrainFile, s));
+			});
+		}
+
+		/*
+		 * Returns the summer edge costs, which the other seasons patch, loading them the first time
+		 */
+		private synchronized EdgeCostTable summer() {
+			if(summer == null) {
+				summer = Orienteering.loadCosts(terrainFile, elevationFile, "summer");
+			}
+			return summer;
+		}
+
+		/*
+		 * Work done for a request on a worker thread, throwing to answer with an error
+		 */
+		private interface Request {
+			void run() throws IOException;
+		}
+
+		/*
+		 * Hands the request to a worker if it uses the expected method and a worker or queue slot is free,
+		 * answering it straight away otherwise
+		 */
+		private void dispatch(HttpExchange exchange, String method, Request request) throws IOException {
+			if(!exchange.getRequestMethod().equals(method)) {
+				exchange.getResponseHeaders().set("Allow", method);
+				respond(exchange, 405, error("Use " + method));
+				return;
+			}
+			try {
+				workers.execute(() -> {
+					try {
+						request.run();
+					} catch (IllegalArgumentException e) {
+						quietly(exchange, 400, error(e.getMessage()));
+					} catch (IOException e) {
+						e.printStackTrace();
+						exchange.close();
+					} catch (RuntimeException e) {
+						e.printStackTrace();
+						quietly(exchange, 500, error("Search failed"));
+					}
+				});
+			} catch (RejectedExecutionException e) {
+				exchange.getResponseHeaders().set("Retry-After", "1");
+				respond(exchange, 503, error("Too many requests waiting"));
+			}
+		}
+
+		/*
+		 * Answers a request for one leg
+		 */
+		private void route(HttpExchange exchange) throws IOException {
+			Map<String, String> query = query(exchange);
+			Season season = season(query);
+			int[] from = point(query, "from", season);
+			int[] to = point(query, "to", season);
+
+			SearchStats stats = new SearchStats();
+			ArrayList<Node> path = search(season, query, from[0], from[1], to[0], to[1], stats);
+			StringBuilder json = new StringBuilder();
+			json.append("{\"season\":\"").append(query.get("season")).append("\",");
+			stats.appendJson(json);
+			json.append(",\"path\":");
+			path(json, path);
+			json.append('}');
+			respond(exchange, 200, json.toString());
+		}
+
+		/*
+		 * Answers a request for a whole course, given as the body in the course file format
+		 */
+		private void course(HttpExchange exchange) throws IOException {
+			Map<String, String> query = query(exchange);
+			Season season = season(query);
+			int[] controls;
+			try {
+				controls = CourseSolver.parseCourse(body(exchange));
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Course must be pairs of whole numbers");
+			}
+			if(controls.length < 4 || controls.length % 2 != 0) {
+				throw new IllegalArgumentException("Course needs at least two controls as x y pairs");
+			}
+			for(int i=0; i<controls.length; i+=2) {
+				check(season, controls[i], controls[i+1]);
+			}
+
+			StringBuilder json = new StringBuilder();
+			json.append("{\"season\":\"").append(query.get("season")).append("\",\"legs\":[");
+			double total = 0;
+			for(int i=0; i<(controls.length-2); i+=2) {
+				SearchStats stats = new SearchStats();
+				ArrayList<Node> path = search(season, query, controls[i], controls[i+1], controls[i+2], controls[i+3], stats);
+				total += stats.cost;
+				json.append((i == 0) ? "{" : ",{");
+				stats.appendJson(json);
+				json.append(",\"path\":");
+				path(json, path);
+				json.append('}');
+			}
+			json.append("],\"cost\":").append(SearchStats.number(total)).append('}');
+			respond(exchange, 200, json.toString());
+		}
+
+		/*
+		 * Searches one leg, to the shortest path, or with the anytime search if the query gives a budget
+		 */
+		private static ArrayList<Node> search(Season season, Map<String, String> query, int x1, int y1, int x2, int y2,
+												SearchStats stats) {
+			if(!query.containsKey("budget")) {
+				return Orienteering.aStarSearch(season.costs, season.h, x1, y1, x2, y2, Orienteering.FORWARD, stats);
+			}
+			double budget = amount(query, "budget", 0);
+			double target = amount(query, "bound", 1);
+			return AnytimeSearch.search(season.costs, season.h, AnytimeSearch.lowerBound(season.costs, season.h), x1, y1, x2, y2,
+					AnytimeSearch.EPSILON, target, (long) (budget * 1e6), null, stats);
+		}
+
+		/*
+		 * Returns the number given by the query parameter, or fallback if it is missing
+		 */
+		private static double amount(Map<String, String> query, String name, double fallback) {
+			String value = query.get(name);
+			if(value == null) {
+				return fallback;
+			}
+			try {
+				double number = Double.parseDouble(value.trim());
+				if(!(number >= 0) || Double.isInfinite(number)) {
+					throw new IllegalArgumentException(name + " must be a number of at least 0");
+				}
+				return number;
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(name + " must be a number of at least 0");
+			}
+		}
+
+		/*
+		 * Returns the season named in the query
+		 */
+		private Season season(Map<String, String> query) {
+			String name = query.getOrDefault("season", "summer").toLowerCase();
+			for(String s : SEASONS) {
+				if(s.equals(name)) {
+					query.put("season", name);
+					return season(name);
+				}
+			}
+			throw new IllegalArgumentException("Unknown season " + name);
+		}
+
+		/*
+		 * Returns the acre given as x,y by the query parameter
+		 */
+		private static int[] point(Map<String, String> query, String name, Season season) {
+			String value = query.get(name);
+			if(value == null) {
+				throw new IllegalArgumentException("Missing " + name);
+			}
+			String[] parts = value.split(",");
+			if(parts.length != 2) {
+				throw new IllegalArgumentException(name + " must be x,y");
+			}
+			try {
+				int x = Integer.parseInt(parts[0].trim());
+				int y = Integer.parseInt(parts[1].trim());
+				check(season, x, y);
+				return new int[] {x, y};
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException(name + " must be x,y");
+			}
+		}
+
+		/*
+		 * Fails if x, y is not an acre of the map
+		 */
+		private static void check(Season season, int x, int y) {
+			if(!season.costs.map.contains(x, y)) {
+				throw new IllegalArgumentException(x + "," + y + " is off the map");
+			}
+		}
+
+		/*
+		 * Returns the parameters of the request's query string
+		 */
+		private static Map<String, String> query(HttpExchange exchange) {
+			Map<String, String> query = new HashMap<String, String>();
+			String raw = exchange.getRequestURI().getRawQuery();
+			if(raw == null) {
+				return query;
+			}
+			for(String pair : raw.split("&")) {
+				int eq = pair.indexOf('=');
+				if(eq > 0) {
+					query.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+							URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+				}
+			}
+			return query;
+		}
+
+		/*
+		 * Reads the request body, refusing bodies over MAX_BODY bytes
+		 */
+		private static String body(HttpExchange exchange) throws IOException {
+			try(InputStream in = exchange.getRequestBody()) {
+				byte[] body = in.readNBytes(MAX_BODY + 1);
+				if(body.length > MAX_BODY) {
+					throw new IllegalArgumentException("Course is over " + MAX_BODY + " bytes");
+				}
+				return new String(body, StandardCharsets.UTF_8);
+			}
+		}
+
+		/*
+		 * Appends the acres of a path, which is given from the goal back to the start, from the start on
+		 */
+		private static void path(StringBuilder json, ArrayList<Node> path) {
+			json.append('[');
+			for(int i=path.size()-1; i>=0; i--) {
+				json.append('[').append(path.get(i).x).append(',').append(path.get(i).y).append(']');
+				if(i > 0) {
+					json.append(',');
+				}
+			}
+			json.append(']');
+		}
+
+		/*
+		 * Returns an error message as JSON, escaping quotes, backslashes and control characters, which
+		 * can come from the request
+		 */
+		static String error(String message) {
+			if(message == null) {
+				message = "Bad request";
+			}
+			StringBuilder json = new StringBuilder("{\"error\":\"");
+			for(int i=0; i<message.length(); i++) {
+				char c = message.charAt(i);
+				if(c == '"' || c == '\\') {
+					json.append('\\').append(c);
+				} else if(c < 0x20) {
+					json.append(String.format("\\u%04x", (int) c));
+				} else {
+					json.append(c);
+				}
+			}
+			return json.append("\"}").toString();
+		}
+
+		/*
+		 * Sends the JSON body with the status code and ends the exchange
+		 */
+		private static void respond(HttpExchange exchange, int status, String json) throws IOException {
+			byte[] body = json.getBytes(StandardCharsets.UTF_8);
+			exchange.getResponseHeaders().set("Content-Type", "application/json");
+			exchange.sendResponseHeaders(status, body.length);
+			try(OutputStream out = exchange.getResponseBody()) {
+				out.write(body);
+			}
+		}
+
+		/*
+		 * Sends an error, closing the exchange if the client has gone
+		 */
+		private static void quietly(HttpExchange exchange, int status, String json) {
+			try {
+				respond(exchange, status, json);
+			} catch (IOException e) {
+				exchange.close();
+			}
+		}
+
+		/*
+		 * Main function
+		 */
+		public static void main(String[] args) {
+			if(args.length < 2 || args.length > 5) {
+				System.err.println("Usage: RouteServer terrain elevation [port] [threads] [queue]");
+				System.exit(1);
+			}
+			int port = (args.length > 2) ? Integer.parseInt(args[2]) : PORT;
+			int threads = (args.length > 3) ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+			int queue = (args.length > 4) ? Integer.parseInt(args[4]) : QUEUE;
+			// Read once by the JDK's HTTP server for the whole JVM, before the first server is made
+			if(System.getProperty("sun.net.httpserver.nodelay") == null) {
+				System.setProperty("sun.net.httpserver.nodelay", "true");
+			}
+			try {
+				RouteServer server = new RouteServer(args[0], args[1], port, threads, queue);
+				server.start();
+				System.out.println("Listening on http://localhost:" + server.port());
+			} catch (IOException e) {
+				e.printStackTrace();
+				System.exit(1);
+			}
+		}
+}
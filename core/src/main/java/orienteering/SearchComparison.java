@@ -0,0 +1,114 @@
+package orienteering;
+
+/**
+ * Class SearchComparison runs every leg of a course with each search mode,
+ * forward, bidirectional and jump point, and each heuristic, and over the
+ * clusters and the contraction hierarchy of the map, and the anytime search,
+ * and prints the nodes each one expanded on every leg, then the totals of
+ * expansions, time and cost, and the proven bound of the anytime paths. Every mode except the minTTime
+ * one uses a consistent heuristic and should find optimal paths, so legs
+ * where their costs disagree are flagged.
+ *
+ * Usage: java SearchComparison terrain elevation course season
+ */
+public class SearchComparison {
+
+	/*
+	 * Main function
+	 */
+	public static void main(String[] args) {
+		if(args.length != 4) {
+			System.err.println("Usage: SearchComparison terrain elevation course season");
+			System.exit(1);
+		}
+		MapModel map = MapModel.load(args[0], args[1], args[3]);
+		int[] controls = Orienteering.loadCourse(args[2]);
+		EdgeCostTable costs = new EdgeCostTable(map);
+		costs.buildAll();
+		Heuristic distance = new DistanceHeuristic(map.terrain);
+		Heuristic landmarks = Orienteering.loadLandmarks(costs, args[0], args[3]);
+		Orienteering.loadHierarchy(costs, args[0], args[3]);
+
+		String[] names = {"minTTime", "distance", "distance-bi", "distance-jump", "landmarks", "landmarks-bi", "landmarks-jump",
+				"landmarks-hpa", "landmarks-hpa-x", "contraction", "minTTime-any", "landmarks-any"};
+		Heuristic[] heuristics = {Orienteering::minTTime, distance, distance, distance, landmarks, landmarks, landmarks,
+				landmarks, landmarks, landmarks, Orienteering::minTTime, landmarks};
+		int[] modes = {Orienteering.FORWARD, Orienteering.FORWARD, Orienteering.BIDIRECTIONAL, Orienteering.JUMP,
+				Orienteering.FORWARD, Orienteering.BIDIRECTIONAL, Orienteering.JUMP,
+				Orienteering.HIERARCHICAL, Orienteering.HIERARCHICAL_EXACT, Orienteering.CONTRACTED,
+				Orienteering.ANYTIME, Orienteering.ANYTIME};
+		boolean[] optimal = {false, true, true, true, true, true, true, false, true, true, false, false};
+		int legs = (controls.length / 2) - 1;
+
+		// Warm up the JIT before timing anything
+		for(int i=0; i<legs; i++) {
+			for(int m=0; m<names.length; m++) {
+				run(costs, heuristics[m], controls, i, modes[m]);
+			}
+		}
+
+		SearchStats[] totals = new SearchStats[names.length];
+		System.out.print("leg ");
+		for(int m=0; m<names.length; m++) {
+			totals[m] = new SearchStats();
+			System.out.printf(" %14s", names[m]);
+		}
+		System.out.println("   (nodes expanded)");
+
+		int mismatches = 0;
+		for(int i=0; i<legs; i++) {
+			System.out.printf("%3d ", i + 1);
+			double reference = Double.NaN;
+			boolean match = true;
+			for(int m=0; m<names.length; m++) {
+				SearchStats stats = run(costs, heuristics[m], controls, i, modes[m]);
+				System.out.printf(" %14d", stats.expanded);
+				add(totals[m], stats);
+				if(optimal[m]) {
+					if(Double.isNaN(reference)) {
+						reference = stats.cost;
+					} else if(Math.abs(stats.cost - reference) > 1e-5 * Math.max(1, reference)) {
+						match = false;
+					}
+				}
+			}
+			if(!match) {
+				mismatches++;
+				System.out.print("   COST MISMATCH");
+			}
+			System.out.println();
+		}
+
+		System.out.println();
+		for(int m=0; m<names.length; m++) {
+			System.out.printf("%-14s %s%n", names[m], totals[m]);
+		}
+		if(mismatches > 0) {
+			System.out.println(mismatches + " legs with mismatched costs");
+			System.exit(1);
+		}
+	}
+
+	/*
+	 * Runs one leg of the course and returns its stats
+	 */
+	static SearchStats run(EdgeCostTable costs, Heuristic h, int[] controls, int leg, int mode) {
+		int i = leg * 2;
+		SearchStats stats = new SearchStats();
+		Orienteering.aStarSearch(costs, h, controls[i], controls[i+1], controls[i+2], controls[i+3], mode, stats);
+		return stats;
+	}
+
+	/*
+	 * Adds the stats of one leg to a running total
+	 */
+	static void add(SearchStats total, SearchStats leg) {
+		total.expanded += leg.expanded;
+		total.pushed += leg.pushed;
+		total.nanos += leg.nanos;
+		total.cost += leg.cost;
+		if(!Double.isNaN(leg.bound)) {
+			total.bound = Double.isNaN(total.bound) ? leg.bound : Math.max(total.bound, leg.bound);
+		}
+	}
+}
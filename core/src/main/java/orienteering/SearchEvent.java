@@ -0,0 +1,79 @@
+package orienteering;
+
+/**
+ * Class SearchEvent is a helper class for Orienteering. It is the Java
+ * Flight Recorder event committed for each leg CourseSolver searches,
+ * holding the leg's ends and its SearchStats, so a recording shows which
+ * legs of a course were slow and why. It costs next to nothing when no
+ * recording has it enabled.
+ *
+ * Record with: java -XX:StartFlightRecording=filename=run.jfr ...
+ * and read with: jfr print --events orienteering.Search run.jfr
+ */
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("orienteering.Search")
+@Label("Leg Search")
+@Category("Orienteering")
+@Description("One control to control leg searched by aStarSearch")
+@StackTrace(false)
+public class SearchEvent extends Event {
+
+		@Label("Leg")
+		int leg;
+
+		@Label("Start X")
+		int x1;
+
+		@Label("Start Y")
+		int y1;
+
+		@Label("Goal X")
+		int gx;
+
+		@Label("Goal Y")
+		int gy;
+
+		@Label("Travel Time")
+		double cost;
+
+		@Label("Expanded")
+		long expanded;
+
+		@Label("Pushed")
+		long pushed;
+
+		@Label("Rejected")
+		@Description("Successors skipped because they were closed or already open with a path no longer")
+		long rejected;
+
+		@Label("Blocked")
+		@Description("Successors skipped because the edge to them cannot be travelled")
+		long blocked;
+
+		@Label("Edges")
+		@Description("Edge costs looked up")
+		long edges;
+
+		@Label("Peak Open")
+		@Description("Most nodes on the open list at once")
+		int peakOpen;
+
+		/*
+		 * Copies the stats of the leg into the event
+		 */
+		void set(SearchStats stats) {
+			cost = stats.cost;
+			expanded = stats.expanded;
+			pushed = stats.pushed;
+			rejected = stats.rejected;
+			blocked = stats.blocked;
+			edges = stats.edges;
+			peakOpen = stats.peakOpen;
+		}
+}
@@ -0,0 +1,82 @@
+package orienteering;
+
+/**
+ * Class SearchSpace is a helper class for Orienteering. It holds the per
+ * acre bookkeeping of one search as flat arrays indexed by cell id: the
+ * open list, the open/closed state, the best travel time found, the parent
+ * acre and the direction of the step into the acre.
+ *
+ * Each thread keeps its spaces and reuses them for every search it runs,
+ * so a search allocates nothing but the path it returns. Instead of
+ * clearing the arrays between searches, every state written is stamped
+ * with the number of the search that wrote it, and a state with an older
+ * stamp reads as unvisited. The travel time, parent and direction of an
+ * acre are only meaningful while its state is not unvisited.
+ */
+public class SearchSpace {
+
+		// Spaces of the current thread, one for each side of a bidirectional search
+		private static final ThreadLocal<SearchSpace[]> SPACES = ThreadLocal.withInitial(() -> new SearchSpace[2]);
+
+		final int capacity;
+		final IndexedHeap open;
+		final double[] g;
+		final int[] parent;
+		final byte[] dir;
+		private final byte[] state;
+		private final int[] stamp;
+		private int generation;
+
+		public SearchSpace(int capacity) {
+			this.capacity = capacity;
+			this.open = new IndexedHeap(capacity);
+			this.g = new double[capacity];
+			this.parent = new int[capacity];
+			this.dir = new byte[capacity];
+			this.state = new byte[capacity];
+			this.stamp = new int[capacity];
+			this.generation = 0;
+		}
+
+		/*
+		 * Returns space number side of the current thread, reset for a search over the given number of cells
+		 */
+		static SearchSpace acquire(int cells, int side) {
+			SearchSpace[] spaces = SPACES.get();
+			SearchSpace space = spaces[side];
+			if(space == null || space.capacity < cells) {
+				space = new SearchSpace(cells);
+				spaces[side] = space;
+			}
+			space.reset();
+			return space;
+		}
+
+		/*
+		 * Empties the open list and marks every acre unvisited
+		 */
+		public void reset() {
+			open.clear();
+			generation++;
+			// Stamps only need clearing once every few billion searches
+			if(generation == 0) {
+				java.util.Arrays.fill(stamp, 0);
+				generation = 1;
+			}
+		}
+
+		/*
+		 * Returns the state of the cell, 0 if this search has not reached it yet
+		 */
+		public byte state(int id) {
+			return (stamp[id] == generation) ? state[id] : 0;
+		}
+
+		/*
+		 * Sets the state of the cell for this search
+		 */
+		public void setState(int id, byte s) {
+			state[id] = s;
+			stamp[id] = generation;
+		}
+}
@@ -0,0 +1,85 @@
+package orienteering;
+
+/**
+ * Class SearchStats is a helper class for Orienteering. A search fills
+ * one in, when given one, with the work it did and what it found. Stats
+ * of several legs can be added into one for the whole course. Searches
+ * given no stats keep their counts in locals and record nothing.
+ *
+ * The forward and anytime searches fill in every count. The other search
+ * modes fill in expanded, pushed, nanos and cost only. Only the anytime
+ * search fills in bound.
+ */
+public class SearchStats {
+
+		long expanded;
+		long pushed;
+		long nanos;
+		double cost;
+
+		// Successors skipped because they were closed or already open with a path no longer
+		long rejected;
+
+		// Successors skipped because the edge to them cannot be travelled
+		long blocked;
+
+		// Edge costs looked up
+		long edges;
+
+		// Most nodes on the open list at once
+		int peakOpen;
+
+		// Searches added into these stats
+		int legs = 1;
+
+		// Proven bound on how many times longer than the shortest the path is, NaN if the search gives none
+		double bound = Double.NaN;
+
+		/*
+		 * Adds the counts of another search into these, as one more leg of the same course
+		 */
+		public void add(SearchStats other) {
+			expanded += other.expanded;
+			pushed += other.pushed;
+			nanos += other.nanos;
+			cost += other.cost;
+			rejected += other.rejected;
+			blocked += other.blocked;
+			edges += other.edges;
+			peakOpen = Math.max(peakOpen, other.peakOpen);
+			legs += other.legs;
+			// A course is within the largest bound of its legs
+			if(!Double.isNaN(other.bound)) {
+				bound = Double.isNaN(bound) ? other.bound : Math.max(bound, other.bound);
+			}
+		}
+
+		/*
+		 * Appends the counts as the members of a JSON object, without its braces
+		 */
+		public void appendJson(StringBuilder json) {
+			json.append("\"cost\":").append(number(cost));
+			json.append(",\"expanded\":").append(expanded);
+			json.append(",\"pushed\":").append(pushed);
+			json.append(",\"rejected\":").append(rejected);
+			json.append(",\"blocked\":").append(blocked);
+			json.append(",\"edges\":").append(edges);
+			json.append(",\"peakOpen\":").append(peakOpen);
+			json.append(",\"millis\":").append(String.format("%.3f", nanos / 1e6));
+			if(!Double.isNaN(bound)) {
+				json.append(",\"bound\":").append(number(bound));
+			}
+		}
+
+		/*
+		 * Returns a travel time as JSON, null when there is no path
+		 */
+		static String number(double value) {
+			return Double.isInfinite(value) ? "null" : String.format("%.4f", value);
+		}
+
+		public String toString() {
+			String text = expanded + " expanded, " + pushed + " pushed, " + String.format("%.3f", nanos / 1e6) + " ms, cost " + String.format("%.4f", cost);
+			return Double.isNaN(bound) ? text : text + String.format(", bound %.4f", bound);
+		}
+}
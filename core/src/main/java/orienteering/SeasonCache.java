@@ -0,0 +1,217 @@
+package orienteering;
+
+/**
+ * Class SeasonCache is a helper class for Orienteering. It saves a map
+ * changed for one season, its terrain classes, elevations and the cost
+ * of every edge, in a binary file, so later runs on the same map and
+ * season read it straight back instead of decoding the terrain image,
+ * parsing the elevation file, changing the terrain for the season and
+ * working out the edge costs again.
+ *
+ * The file is a header followed by one byte per acre of terrain class,
+ * the elevations as floats and the edge costs as floats, eight per acre,
+ * each read back with one bulk get from a mapped section of the file.
+ * The header holds a checksum of the contents of the terrain and
+ * elevation files and of the season, so a cache is only used for the
+ * inputs it was made from. VERSION changes whenever the season
+ * transforms or travelTime change, so caches from older code are not
+ * used.
+ */
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+public class SeasonCache {
+
+		// Identifies a season cache file and the version of its contents
+		static final int MAGIC = 0x53454153;
+		static final int VERSION = 1;
+
+		// Bytes before the terrain classes
+		static final int HEADER = 32;
+
+		/*
+		 * Reads the edge costs, and the map under them, cached in file for the given terrain and elevation
+		 * files and season, or loads the map, saves it to file and returns it if the cache is missing or
+		 * was made from other inputs. The returned table is filled.
+		 */
+		public static EdgeCostTable loadOrBuild(String terrainFile, String elevationFile, String season, Path file) {
+			Long key = null;
+			try {
+				key = key(Orienteering.resolve(terrainFile), Orienteering.resolve(elevationFile), season);
+				if(Files.exists(file)) {
+					EdgeCostTable cached = load(file, key);
+					if(cached != null) {
+						return cached;
+					}
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
+			} catch (URISyntaxException e) {
+				e.printStackTrace();
+			}
+
+			EdgeCostTable costs = new EdgeCostTable(MapModel.load(terrainFile, elevationFile, season));
+			costs.buildAll();
+			// Inputs that could not be read to work out the key are not cached
+			if(key != null) {
+				try {
+					save(costs, file, key);
+				} catch (IOException e) {
+					e.printStackTrace();
+				}
+			}
+			return costs;
+		}
+
+		/*
+		 * Returns a checksum of the contents of the terrain and elevation files and the season
+		 */
+		public static long key(Path terrainFile, Path elevationFile, String season) throws IOException {
+			CRC32 terrain = new CRC32();
+			update(terrain, terrainFile);
+			terrain.update(season.toLowerCase().getBytes(StandardCharsets.UTF_8));
+			CRC32 elevation = new CRC32();
+			update(elevation, elevationFile);
+			return (terrain.getValue() << 32) | elevation.getValue();
+		}
+
+		/*
+		 * Adds the contents of the file to the checksum, a mapped section at a time
+		 */
+		private static void update(CRC32 crc, Path file) throws IOException {
+			try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				long size = channel.size();
+				for(long offset=0; offset<size; offset+=Integer.MAX_VALUE) {
+					crc.update(channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(Integer.MAX_VALUE, size - offset)));
+				}
+			}
+		}
+
+		/*
+		 * Writes the map and filled edge costs of the table to file under the given key
+		 */
+		public static void save(EdgeCostTable costs, Path file, long key) throws IOException {
+			costs.buildAll();
+			MapModel map = costs.map;
+			ElevationGrid elGrid = map.elGrid;
+			// Written to a temporary file first, so a run that stops part way leaves no broken cache
+			Path part = partFile(file);
+			try {
+				try(FileChannel channel = FileChannel.open(part, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+					ByteBuffer header = ByteBuffer.allocate(HEADER);
+					header.putInt(MAGIC);
+					header.putInt(VERSION);
+					header.putInt(map.width);
+					header.putInt(map.height);
+					header.putInt(elGrid.width);
+					header.putInt(elGrid.height);
+					header.putLong(key);
+					header.flip();
+					write(channel, header);
+					write(channel, ByteBuffer.wrap(map.terrain.flat()));
+					writeFloats(channel, elGrid.values);
+					writeFloats(channel, costs.flat());
+				}
+				Files.move(part, file, StandardCopyOption.REPLACE_EXISTING);
+			} finally {
+				Files.deleteIfExists(part);
+			}
+		}
+
+		/*
+		 * Creates a new temporary file beside file to write it in, named apart from any other save
+		 * writing the same file at once so the two cannot write into each other
+		 */
+		static Path partFile(Path file) throws IOException {
+			return Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".part");
+		}
+
+		/*
+		 * Reads the table saved in file, returning null if it was saved under another key or by other code
+		 */
+		public static EdgeCostTable load(Path file, long key) throws IOException {
+			try(FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+				long size = channel.size();
+				if(size < HEADER) {
+					return null;
+				}
+				MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER);
+				if(header.getInt() != MAGIC || header.getInt() != VERSION) {
+					return null;
+				}
+				int width = header.getInt();
+				int height = header.getInt();
+				int elWidth = header.getInt();
+				int elHeight = header.getInt();
+				if(header.getLong() != key) {
+					return null;
+				}
+				int cells = MapModel.cells(width, height, 1);
+				int elCells = MapModel.cells(elWidth, elHeight, 1);
+				int edges = MapModel.cells(width, height, 8);
+				if(size != HEADER + (long) cells + ((long) elCells * 4) + ((long) edges * 4)) {
+					return null;
+				}
+
+				long offset = HEADER;
+				byte[] classes = new byte[cells];
+				channel.map(FileChannel.MapMode.READ_ONLY, offset, cells).get(classes);
+				offset += cells;
+				float[] elevations = new float[elCells];
+				readFloats(channel, offset, elevations);
+				offset += (long) elCells * 4;
+				float[] edgeCosts = new float[edges];
+				readFloats(channel, offset, edgeCosts);
+
+				MapModel map = new MapModel(new TerrainGrid(width, height, classes), new ElevationGrid(elWidth, elHeight, elevations));
+				return new EdgeCostTable(map, edgeCosts);
+			}
+		}
+
+		/*
+		 * Writes all of the buffer to the channel
+		 */
+		private static void write(FileChannel channel, ByteBuffer buf) throws IOException {
+			while(buf.hasRemaining()) {
+				channel.write(buf);
+			}
+		}
+
+		/*
+		 * Writes the floats to the channel a block at a time
+		 */
+		private static void writeFloats(FileChannel channel, float[] values) throws IOException {
+			ByteBuffer buf = ByteBuffer.allocate(1 << 20);
+			for(int i=0; i<values.length; ) {
+				int n = Math.min(values.length - i, buf.capacity() / 4);
+				buf.clear();
+				buf.asFloatBuffer().put(values, i, n);
+				buf.limit(n * 4);
+				write(channel, buf);
+				i += n;
+			}
+		}
+
+		/*
+		 * Fills values from the floats at offset in the channel, one mapped section of at most 2 GB at a time
+		 */
+		private static void readFloats(FileChannel channel, long offset, float[] values) throws IOException {
+			int perSection = Integer.MAX_VALUE / 4;
+			for(int i=0; i<values.length; i+=perSection) {
+				int n = Math.min(values.length - i, perSection);
+				MappedByteBuffer buf = channel.map(FileChannel.MapMode.READ_ONLY, offset + ((long) i * 4), (long) n * 4);
+				buf.order(ByteOrder.BIG_ENDIAN);
+				buf.asFloatBuffer().get(values, i, n);
+			}
+		}
+}
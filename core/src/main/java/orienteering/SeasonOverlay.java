@@ -0,0 +1,137 @@
+package orienteering;
+
+/**
+ * Class SeasonOverlay is a helper class for Orienteering. It holds only
+ * the acres a season changes on the summer terrain, as their cell ids in
+ * increasing order and the class each one takes, so every season of a
+ * map can share one summer TerrainGrid instead of each holding a copy.
+ * Seasons change acres next to paths and shores only, a few percent of
+ * the map, so an overlay is much smaller than the terrain it changes.
+ *
+ * A bit for each acre tells whether the overlay changes it, so looking
+ * up an acre the season leaves alone is one read, and only the changed
+ * acres are found by binary search.
+ */
+import java.util.Arrays;
+
+public class SeasonOverlay {
+
+		// Changed acres in increasing order and the class of each, the first size entries used
+		private int[] cells;
+		private byte[] classes;
+		private int size;
+
+		// A bit for each acre of the map, set for the changed acres
+		private final long[] changed;
+
+		SeasonOverlay(int acres, int[] cells, byte[] classes, int size) {
+			this.cells = cells;
+			this.classes = classes;
+			this.size = size;
+			this.changed = new long[(acres + 63) >>> 6];
+			for(int i=0; i<size; i++) {
+				changed[cells[i] >>> 6] |= 1L << cells[i];
+			}
+		}
+
+		/*
+		 * Returns the acres the season changes on the base terrain, which is changed on a copy and compared
+		 */
+		public static SeasonOverlay of(TerrainGrid base, ElevationGrid elGrid, String season) {
+			TerrainGrid terrain = base.copy();
+			Orienteering.applySeason(terrain, elGrid, season);
+			return diff(base, terrain);
+		}
+
+		/*
+		 * Returns the acres whose class differs between the two grids, with their classes in the second
+		 */
+		public static SeasonOverlay diff(TerrainGrid base, TerrainGrid season) {
+			if(base.width != season.width || base.height != season.height) {
+				throw new IllegalArgumentException("Terrain of " + season.width + " by " + season.height
+						+ " acres does not match the base of " + base.width + " by " + base.height);
+			}
+			int acres = base.cells();
+			int count = 0;
+			for(int c=0; c<acres; c++) {
+				if(base.at(c) != season.at(c)) {
+					count++;
+				}
+			}
+			int[] cells = new int[count];
+			byte[] classes = new byte[count];
+			int i = 0;
+			for(int c=0; c<acres; c++) {
+				byte s = season.at(c);
+				if(base.at(c) != s) {
+					cells[i] = c;
+					classes[i] = s;
+					i++;
+				}
+			}
+			return new SeasonOverlay(acres, cells, classes, count);
+		}
+
+		/*
+		 * Returns the number of changed acres
+		 */
+		public int size() {
+			return size;
+		}
+
+		/*
+		 * Returns the cell id of the i-th changed acre, in increasing order
+		 */
+		int cell(int i) {
+			return cells[i];
+		}
+
+		/*
+		 * Returns true if the overlay changes acre c
+		 */
+		boolean contains(int c) {
+			return (changed[c >>> 6] & (1L << c)) != 0;
+		}
+
+		/*
+		 * Returns the class of acre c, or base if the overlay leaves it alone
+		 */
+		byte get(int c, byte base) {
+			if((changed[c >>> 6] & (1L << c)) == 0) {
+				return base;
+			}
+			return classes[Arrays.binarySearch(cells, 0, size, c)];
+		}
+
+		/*
+		 * Gives acre c the class v, adding it to the overlay unless v is its class in the base anyway
+		 */
+		void set(int c, byte v, byte base) {
+			if(contains(c)) {
+				classes[Arrays.binarySearch(cells, 0, size, c)] = v;
+				return;
+			}
+			if(v == base) {
+				return;
+			}
+			if(size == cells.length) {
+				int grown = Math.max(16, size * 2);
+				cells = Arrays.copyOf(cells, grown);
+				classes = Arrays.copyOf(classes, grown);
+			}
+			int at = -(Arrays.binarySearch(cells, 0, size, c) + 1);
+			System.arraycopy(cells, at, cells, at + 1, size - at);
+			System.arraycopy(classes, at, classes, at + 1, size - at);
+			cells[at] = c;
+			classes[at] = v;
+			size++;
+			changed[c >>> 6] |= 1L << c;
+		}
+
+		/*
+		 * Returns a copy of this overlay that can be changed independently
+		 */
+		SeasonOverlay copy() {
+			return new SeasonOverlay(changed.length * 64, Arrays.copyOf(cells, size), Arrays.copyOf(classes, size), size);
+		}
+}
@@ -0,0 +1,319 @@
+package orienteering;
+
+/**
+ * Class SeasonTransform is a helper class for Orienteering. It changes a
+ * summer terrain for fall, winter or spring with passes straight over
+ * the class bytes of the TerrainGrid, row by row. Each pass is split
+ * into bands of rows that run in parallel on the common ForkJoinPool.
+ *
+ * Winter ice and spring floods spread out from the shore a few acres at
+ * most, so each band runs its own multi-source breadth first search over
+ * its rows plus that many rows either side. Nothing further away can
+ * reach the band's rows, so the bands agree with one search over the
+ * whole map. Each band only writes its own rows, and what it writes, ice
+ * over water or mud over land, reads the same to the searches of the
+ * bands either side, so the bands can change the terrain in place.
+ * A season grid, which shares its classes with its base, cannot be
+ * changed this way; SeasonOverlay.of makes one from a copy instead.
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+public class SeasonTransform {
+
+		// Rows in each band of a pass
+		static final int BAND_ROWS = 64;
+
+		// Acres from the shore that water freezes to in winter
+		static final int ICE_REACH = 7;
+
+		// Acres from the shore that spring floods spread to, and the metres they can rise above the water
+		static final int FLOOD_REACH = 15;
+		static final float FLOOD_RISE = 1;
+
+		// Marks an acre a search has not reached
+		private static final byte UNREACHED = -1;
+
+		/*
+		 * Work done on the rows from y0 up to y1
+		 */
+		private interface Band {
+			void run(int y0, int y1);
+		}
+
+		/*
+		 * Turns footpaths next to easy movement forest into leaves
+		 */
+		public static void fall(TerrainGrid terrain) {
+			fall(terrain, bandRows(terrain.height));
+		}
+
+		/*
+		 * Turns footpaths next to easy movement forest into leaves, in bands of the given number of rows
+		 */
+		static void fall(TerrainGrid terrain, int bandRows) {
+			own(terrain);
+			byte[] c = terrain.classes;
+			int w = terrain.width;
+			int h = terrain.height;
+			// Only footpaths change and only forest is looked for, so bands can change the terrain in place
+			bands(h, bandRows, (y0, y1) -> {
+				for(int y=y0; y<y1; y++) {
+					int row = y * w;
+					for(int x=0; x<w; x++) {
+						int i = row + x;
+						if(c[i] == TerrainGrid.FOOTPATH
+								&& ((x > 0 && c[i-1] == TerrainGrid.EASY_FOREST)
+								|| (x < w-1 && c[i+1] == TerrainGrid.EASY_FOREST)
+								|| (y > 0 && c[i-w] == TerrainGrid.EASY_FOREST)
+								|| (y < h-1 && c[i+w] == TerrainGrid.EASY_FOREST))) {
+							c[i] = TerrainGrid.LEAVES;
+						}
+					}
+				}
+			});
+		}
+
+		/*
+		 * Freezes water within ICE_REACH acres of land, counted in steps through water, into walkable ice
+		 */
+		public static void winter(TerrainGrid terrain) {
+			winter(terrain, bandRows(terrain.height));
+		}
+
+		/*
+		 * Freezes water near land into walkable ice, in bands of the given number of rows
+		 */
+		static void winter(TerrainGrid terrain, int bandRows) {
+			own(terrain);
+			byte[] c = terrain.classes;
+			int w = terrain.width;
+			int h = terrain.height;
+			bands(h, bandRows, (y0, y1) -> freeze(c, w, h, y0, y1));
+		}
+
+		/*
+		 * Turns land within FLOOD_REACH acres of water, counted in steps through flooded land, that is
+		 * no more than FLOOD_RISE metres above the water it spread from into mud. Mud is slow but can
+		 * still be crossed, so a control on low ground near water can still be reached.
+		 */
+		public static void spring(TerrainGrid terrain, ElevationGrid elGrid) {
+			spring(terrain, elGrid, bandRows(terrain.height));
+		}
+
+		/*
+		 * Turns low land near water into mud, in bands of the given number of rows
+		 */
+		static void spring(TerrainGrid terrain, ElevationGrid elGrid, int bandRows) {
+			if(elGrid == null) {
+				throw new IllegalArgumentException("Spring needs the elevations of the map");
+			}
+			if(elGrid.width < terrain.width || elGrid.height < terrain.height) {
+				throw new IllegalArgumentException("Elevations cover " + elGrid.width + " by " + elGrid.height
+						+ " acres but the terrain is " + terrain.width + " by " + terrain.height);
+			}
+			own(terrain);
+			byte[] c = terrain.classes;
+			int w = terrain.width;
+			int h = terrain.height;
+			bands(h, bandRows, (y0, y1) -> flood(c, elGrid, w, h, y0, y1));
+		}
+
+		/*
+		 * Fails if the terrain shares its classes with a base grid, which changing them in place would change too
+		 */
+		private static void own(TerrainGrid terrain) {
+			if(terrain.overlay != null) {
+				throw new IllegalArgumentException("A season grid shares the classes of its base and cannot be changed in place");
+			}
+		}
+
+		/*
+		 * Returns true if acres of class c count as water, frozen or not
+		 */
+		private static boolean water(byte c) {
+			return c == TerrainGrid.WATER || c == TerrainGrid.ICE;
+		}
+
+		/*
+		 * Returns true if acres of class c count as land that water can freeze or flood from
+		 */
+		private static boolean land(byte c) {
+			return !water(c) && c != TerrainGrid.OUT_OF_BOUNDS;
+		}
+
+		/*
+		 * Freezes the water on rows y0 up to y1 within ICE_REACH steps of land
+		 */
+		private static void freeze(byte[] c, int w, int h, int y0, int y1) {
+			int lo = Math.max(0, y0 - ICE_REACH);
+			int hi = Math.min(h, y1 + ICE_REACH);
+			int base = lo * w;
+			byte[] dist = new byte[(hi - lo) * w];
+			Arrays.fill(dist, UNREACHED);
+			// Only water near the shore is queued, so the queue starts small and grows as needed
+			int[] queue = new int[Math.max(1024, w * 4)];
+			int tail = 0;
+
+			// Water next to land is one step out
+			for(int y=lo; y<hi; y++) {
+				for(int x=0; x<w; x++) {
+					int g = (y * w) + x;
+					if(water(c[g]) && nextToLand(c, w, lo, hi, x, y, g)) {
+						if(tail == queue.length) {
+							queue = Arrays.copyOf(queue, queue.length * 2);
+						}
+						dist[g - base] = 1;
+						queue[tail++] = g - base;
+					}
+				}
+			}
+			for(int head=0; head<tail; head++) {
+				int i = queue[head];
+				if(dist[i] == ICE_REACH) {
+					continue;
+				}
+				// Room for all four neighbours
+				if(tail + 4 > queue.length) {
+					queue = Arrays.copyOf(queue, queue.length * 2);
+				}
+				int x = i % w;
+				if(x > 0) tail = step(c, base, dist, queue, tail, i, i - 1);
+				if(x < w-1) tail = step(c, base, dist, queue, tail, i, i + 1);
+				if(i >= w) tail = step(c, base, dist, queue, tail, i, i - w);
+				if(i + w < dist.length) tail = step(c, base, dist, queue, tail, i, i + w);
+			}
+
+			for(int i=(y0-lo)*w; i<(y1-lo)*w; i++) {
+				if(dist[i] != UNREACHED) {
+					c[base + i] = TerrainGrid.ICE;
+				}
+			}
+		}
+
+		/*
+		 * Reaches water acre n one step beyond acre i if nothing has reached it yet, returning the new queue tail
+		 */
+		private static int step(byte[] c, int base, byte[] dist, int[] queue, int tail, int i, int n) {
+			if(dist[n] == UNREACHED && water(c[base + n])) {
+				dist[n] = (byte) (dist[i] + 1);
+				queue[tail++] = n;
+			}
+			return tail;
+		}
+
+		/*
+		 * Returns true if the water acre g at x, y has land to the north, south, east or west within rows lo up to hi
+		 */
+		private static boolean nextToLand(byte[] c, int w, int lo, int hi, int x, int y, int g) {
+			return (x > 0 && land(c[g-1])) || (x < w-1 && land(c[g+1]))
+					|| (y > lo && land(c[g-w])) || (y < hi-1 && land(c[g+w]));
+		}
+
+		/*
+		 * Turns the land on rows y0 up to y1 that spring water floods into mud. The flood spreads one
+		 * step at a time, and an acre reached by several floods in the same step keeps the highest level.
+		 */
+		private static void flood(byte[] c, ElevationGrid elGrid, int w, int h, int y0, int y1) {
+			int lo = Math.max(0, y0 - FLOOD_REACH);
+			int hi = Math.min(h, y1 + FLOOD_REACH);
+			int base = lo * w;
+			int cells = (hi - lo) * w;
+			byte[] dist = new byte[cells];
+			Arrays.fill(dist, UNREACHED);
+			float[] level = new float[cells];
+			int[] frontier = new int[cells];
+			int[] next = new int[cells];
+			int size = 0;
+
+			// Water on the shore floods at its own level
+			for(int y=lo; y<hi; y++) {
+				for(int x=0; x<w; x++) {
+					int g = (y * w) + x;
+					if(c[g] == TerrainGrid.WATER && nextToLand(c, w, lo, hi, x, y, g)) {
+						dist[g - base] = 0;
+						level[g - base] = elGrid.get(x, y);
+						frontier[size++] = g - base;
+					}
+				}
+			}
+			for(int d=1; d<=FLOOD_REACH && size > 0; d++) {
+				int count = 0;
+				for(int k=0; k<size; k++) {
+					int i = frontier[k];
+					int x = i % w;
+					if(x > 0) count = spread(c, elGrid, w, base, dist, level, next, count, i, i - 1, d);
+					if(x < w-1) count = spread(c, elGrid, w, base, dist, level, next, count, i, i + 1, d);
+					if(i >= w) count = spread(c, elGrid, w, base, dist, level, next, count, i, i - w, d);
+					if(i + w < cells) count = spread(c, elGrid, w, base, dist, level, next, count, i, i + w, d);
+				}
+				int[] t = frontier;
+				frontier = next;
+				next = t;
+				size = count;
+			}
+
+			for(int i=(y0-lo)*w; i<(y1-lo)*w; i++) {
+				if(dist[i] > 0) {
+					c[base + i] = TerrainGrid.MUD;
+				}
+			}
+		}
+
+		/*
+		 * Floods land acre n from acre i on step d if it is low enough, or raises the level it was already
+		 * flooded at on this step, returning the new size of the next frontier
+		 */
+		private static int spread(byte[] c, ElevationGrid elGrid, int w, int base, byte[] dist, float[] level,
+									int[] next, int count, int i, int n, int d) {
+			int g = base + n;
+			if(!land(c[g]) || (dist[n] != UNREACHED && dist[n] != d)) {
+				return count;
+			}
+			if(elGrid.get(g % w, g / w) - level[i] > FLOOD_RISE) {
+				return count;
+			}
+			if(dist[n] == UNREACHED) {
+				dist[n] = (byte) d;
+				level[n] = level[i];
+				next[count++] = n;
+			} else if(level[i] > level[n]) {
+				level[n] = level[i];
+			}
+			return count;
+		}
+
+		/*
+		 * Returns the rows in each band of a pass over a map of the given height: BAND_ROWS, or the whole
+		 * map in one band when there is only one thread to run them, which saves searching the rows around
+		 * each band again
+		 */
+		private static int bandRows(int height) {
+			if(ForkJoinPool.getCommonPoolParallelism() <= 1) {
+				return height;
+			}
+			return BAND_ROWS;
+		}
+
+		/*
+		 * Runs the band over the rows of a map of the given height, split into bands of bandRows rows
+		 * run in parallel
+		 */
+		private static void bands(int height, int bandRows, Band band) {
+			if(height <= bandRows) {
+				band.run(0, height);
+				return;
+			}
+			ArrayList<ForkJoinTask<?>> tasks = new ArrayList<ForkJoinTask<?>>();
+			for(int y=0; y<height; y+=bandRows) {
+				final int y0 = y;
+				final int y1 = Math.min(height, y + bandRows);
+				tasks.add(ForkJoinPool.commonPool().submit(() -> band.run(y0, y1)));
+			}
+			for(ForkJoinTask<?> task : tasks) {
+				task.join();
+			}
+		}
+}
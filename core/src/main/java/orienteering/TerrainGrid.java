@@ -0,0 +1,250 @@
+package orienteering;
+
+/**
+ * Class TerrainGrid is a helper class for Orienteering. It holds the
+ * terrain class of every acre as one byte in row major order, decoded
+ * once from the colors of the terrain image, along with the tables that
+ * map each class to its color, whether it can be crossed, and its travel
+ * time multiplier.
+ *
+ * A grid can also be a season over another grid: it shares the classes
+ * of that base grid, which it never changes, and keeps the acres the
+ * season changes in a SeasonOverlay, so the seasons of a map do not
+ * each hold a copy of the terrain. Such grids are read through get and
+ * at rather than classes, which holds the base's classes.
+ */
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+public class TerrainGrid {
+
+		// Terrain classes
+		static final byte OPEN_LAND = 0;
+		static final byte ROUGH_MEADOW = 1;
+		static final byte EASY_FOREST = 2;
+		static final byte SLOW_FOREST = 3;
+		static final byte WALK_FOREST = 4;
+		static final byte IMPASSABLE_VEGETATION = 5;
+		static final byte WATER = 6;
+		static final byte PAVED_ROAD = 7;
+		static final byte FOOTPATH = 8;
+		static final byte LEAVES = 9;
+		static final byte ICE = 10;
+		static final byte OUT_OF_BOUNDS = 11;
+		static final byte UNKNOWN = 12;
+		static final byte MUD = 13;
+		static final int CLASSES = 14;
+
+		// Pixels decoded at once when reading a terrain image in bands
+		static final int BAND_PIXELS = 1 << 24;
+
+		// Color of each class in the terrain image
+		static final int[] COLOR = {
+				-486382,	// Open land
+				-16384,		// Rough meadow
+				-1,			// Easy movement forest
+				-16592836,	// Slow run forest
+				-16611288,	// Walk forest
+				-16430824,	// Impassable vegetation
+				-16776961,	// Swamp/Lake/Marsh
+				-12111101,	// Paved road
+				-16777216,	// Footpath
+				-16777215,	// Leaves
+				-16776962,	// Walkable ice
+				-3342235,	// Out of bounds
+				0,			// Any other color
+				-7650029	// Spring mud
+		};
+
+		// Whether each class can be crossed
+		static final boolean[] PASSABLE = {
+				true, true, true, true, true, false, false, true, true, true, true, false, true, true
+		};
+
+		// Travel time multiplier of each class
+		static final double[] MULTIPLIER = {
+				1, 0.6, 0.8, 0.7, 0.6, 0, 0, 1, 1, 0.9, 0.5, 0, 0, 2
+		};
+
+		final int width;
+		final int height;
+		final byte[] classes;
+
+		// Acres changed from classes for a season, null for a grid that holds all of its own classes
+		final SeasonOverlay overlay;
+
+		public TerrainGrid(int width, int height, byte[] classes) {
+			this(width, height, classes, null);
+		}
+
+		/*
+		 * A grid of the base grid's classes with the acres of the overlay changed, sharing the base's classes
+		 */
+		public TerrainGrid(TerrainGrid base, SeasonOverlay overlay) {
+			this(base.width, base.height, base.classes, overlay);
+			if(base.overlay != null) {
+				throw new IllegalArgumentException("An overlay can only change a grid that holds all of its own classes");
+			}
+		}
+
+		private TerrainGrid(int width, int height, byte[] classes, SeasonOverlay overlay) {
+			if(classes.length != MapModel.cells(width, height, 1)) {
+				throw new IllegalArgumentException("Expected " + ((long) width * height) + " acres but got " + classes.length);
+			}
+			this.width = width;
+			this.height = height;
+			this.classes = classes;
+			this.overlay = overlay;
+		}
+
+		/*
+		 * Returns the terrain class of the acre at x, y
+		 */
+		public byte get(int x, int y) {
+			return at((y * width) + x);
+		}
+
+		/*
+		 * Returns the terrain class of the acre with cell id c
+		 */
+		public byte at(int c) {
+			return (overlay == null) ? classes[c] : overlay.get(c, classes[c]);
+		}
+
+		/*
+		 * Sets the terrain class of the acre at x, y. A season grid keeps the change in its overlay.
+		 */
+		public void set(int x, int y, byte c) {
+			int i = (y * width) + x;
+			if(overlay == null) {
+				classes[i] = c;
+			} else {
+				overlay.set(i, c, classes[i]);
+			}
+		}
+
+		/*
+		 * Returns the number of acres in the grid
+		 */
+		public int cells() {
+			return classes.length;
+		}
+
+		/*
+		 * Returns the class of every acre in row major order, the grid's own array unless it is a season grid
+		 */
+		public byte[] flat() {
+			if(overlay == null) {
+				return classes;
+			}
+			byte[] all = classes.clone();
+			for(int i=0; i<overlay.size(); i++) {
+				int c = overlay.cell(i);
+				all[c] = overlay.get(c, all[c]);
+			}
+			return all;
+		}
+
+		/*
+		 * Returns a copy of this grid that can be changed independently. A season grid still shares its base.
+		 */
+		public TerrainGrid copy() {
+			if(overlay == null) {
+				return new TerrainGrid(width, height, classes.clone());
+			}
+			return new TerrainGrid(width, height, classes, overlay.copy());
+		}
+
+		/*
+		 * Returns the terrain class with the given image color
+		 */
+		public static byte classify(int rgb) {
+			// Footpaths are drawn either opaque or fully transparent
+			if(rgb == 0) {
+				return FOOTPATH;
+			}
+			for(byte c=0; c<CLASSES; c++) {
+				if(c != UNKNOWN && COLOR[c] == rgb) {
+					return c;
+				}
+			}
+			return UNKNOWN;
+		}
+
+		/*
+		 * Decodes the terrain image into a grid of terrain classes
+		 */
+		public static TerrainGrid fromImage(BufferedImage image) {
+			int width = image.getWidth();
+			int height = image.getHeight();
+			byte[] classes = new byte[MapModel.cells(width, height, 1)];
+			int[] row = new int[width];
+			for(int y=0; y<height; y++) {
+				image.getRGB(0, y, width, 1, row, 0, width);
+				for(int x=0; x<width; x++) {
+					classes[(y * width) + x] = classify(row[x]);
+				}
+			}
+			return new TerrainGrid(width, height, classes);
+		}
+
+		/*
+		 * Decodes a terrain image file a band of rows at a time, so only the class grid and one band
+		 * of pixels are held at once instead of the whole image
+		 */
+		public static TerrainGrid read(Path file) throws IOException {
+			try(ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+				Iterator<ImageReader> readers = (in == null) ? null : ImageIO.getImageReaders(in);
+				if(readers == null || !readers.hasNext()) {
+					throw new IOException("No image reader for " + file);
+				}
+				ImageReader reader = readers.next();
+				try {
+					reader.setInput(in);
+					int width = reader.getWidth(0);
+					int height = reader.getHeight(0);
+					byte[] classes = new byte[MapModel.cells(width, height, 1)];
+					int[] row = new int[width];
+					// About 16 million pixels per band; each band decodes the image up to its last row again
+					int bandRows = Math.max(1, BAND_PIXELS / width);
+					ImageReadParam param = reader.getDefaultReadParam();
+					for(int y0=0; y0<height; y0+=bandRows) {
+						int rows = Math.min(bandRows, height - y0);
+						param.setSourceRegion(new Rectangle(0, y0, width, rows));
+						BufferedImage band = reader.read(0, param);
+						for(int y=0; y<rows; y++) {
+							band.getRGB(0, y, width, 1, row, 0, width);
+							for(int x=0; x<width; x++) {
+								classes[((y0 + y) * width) + x] = classify(row[x]);
+							}
+						}
+					}
+					return new TerrainGrid(width, height, classes);
+				} finally {
+					reader.dispose();
+				}
+			}
+		}
+
+		/*
+		 * Draws the grid back into an image using the color of each class
+		 */
+		public BufferedImage toImage() {
+			BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+			int[] row = new int[width];
+			for(int y=0; y<height; y++) {
+				for(int x=0; x<width; x++) {
+					row[x] = COLOR[at((y * width) + x)];
+				}
+				image.setRGB(0, y, width, 1, row, 0, width);
+			}
+			return image;
+		}
+}
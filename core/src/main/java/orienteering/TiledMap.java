@@ -0,0 +1,332 @@
+package orienteering;
+
+/**
+ * Class TiledMap is a map stored on disk in square tiles, for maps too
+ * large to hold in memory. Each tile holds the terrain class and the
+ * elevation of its acres and is memory mapped the first time a search
+ * reaches it. At most a fixed number of tiles stay mapped, the least
+ * recently used being dropped first, so a search only ever keeps the
+ * tiles around its frontier.
+ *
+ * The file starts with a header of MAGIC, version, width, height, tile
+ * size and a bit mask of the terrain classes on the map. Tiles follow in
+ * row major order, each with one class byte per acre followed by one
+ * float elevation per acre, both in row major order within the tile.
+ * Tiles on the right and bottom edges are padded with out of bounds
+ * acres to full size.
+ *
+ * Usage: java TiledMap convert terrain elevation season map
+ *        java TiledMap route map course [tiles]
+ */
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class TiledMap implements Closeable {
+
+		// "TMAP"
+		static final int MAGIC = 0x544d4150;
+		static final int VERSION = 1;
+		static final int HEADER = 24;
+
+		// Default width and height of a tile in acres, and number of tiles kept mapped
+		static final int TILE = 256;
+		static final int CACHE = 1024;
+
+		final int width;
+		final int height;
+		final int tile;
+		final int tilesX;
+		final int tilesY;
+		final boolean[] present;
+
+		private final FileChannel channel;
+		private final LinkedHashMap<Integer, ByteBuffer> cache;
+		private long mapped;
+
+		private TiledMap(FileChannel channel, int width, int height, int tile, boolean[] present, int maxTiles) {
+			this.channel = channel;
+			this.width = width;
+			this.height = height;
+			this.tile = tile;
+			this.tilesX = (width + tile - 1) / tile;
+			this.tilesY = (height + tile - 1) / tile;
+			this.present = present;
+			this.cache = new LinkedHashMap<Integer, ByteBuffer>(16, 0.75f, true) {
+				protected boolean removeEldestEntry(Map.Entry<Integer, ByteBuffer> eldest) {
+					return size() > maxTiles;
+				}
+			};
+		}
+
+		/*
+		 * Opens a tiled map file keeping at most maxTiles tiles mapped
+		 */
+		public static TiledMap open(Path file, int maxTiles) throws IOException {
+			FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+			try {
+				ByteBuffer header = ByteBuffer.allocate(HEADER);
+				while(header.hasRemaining() && channel.read(header, header.position()) > 0) {
+				}
+				header.flip();
+				if(header.remaining() < HEADER || header.getInt() != MAGIC || header.getInt() != VERSION) {
+					throw new IOException(file + " is not a tiled map");
+				}
+				int width = header.getInt();
+				int height = header.getInt();
+				int tile = header.getInt();
+				int mask = header.getInt();
+				boolean[] present = new boolean[TerrainGrid.CLASSES];
+				for(int c=0; c<TerrainGrid.CLASSES; c++) {
+					present[c] = (mask & (1 << c)) != 0;
+				}
+				TiledMap map = new TiledMap(channel, width, height, tile, present, maxTiles);
+				if(channel.size() != HEADER + ((long) map.tilesX * map.tilesY * map.tileBytes())) {
+					throw new IOException(file + " is truncated");
+				}
+				return map;
+			} catch (IOException e) {
+				channel.close();
+				throw e;
+			}
+		}
+
+		/*
+		 * Returns the number of bytes one tile takes in the file
+		 */
+		long tileBytes() {
+			return (long) tile * tile * 5;
+		}
+
+		/*
+		 * Returns tile number t, mapping it if it is not mapped already
+		 */
+		synchronized ByteBuffer tile(int t) {
+			ByteBuffer buf = cache.get(t);
+			if(buf == null) {
+				try {
+					buf = channel.map(FileChannel.MapMode.READ_ONLY, HEADER + (t * tileBytes()), tileBytes());
+				} catch (IOException e) {
+					throw new UncheckedIOException(e);
+				}
+				cache.put(t, buf);
+				mapped++;
+			}
+			return buf;
+		}
+
+		/*
+		 * Returns how many times a tile has been mapped since the map was opened
+		 */
+		public synchronized long tilesMapped() {
+			return mapped;
+		}
+
+		/*
+		 * Returns a reader for one search, which remembers the last few tiles it used
+		 */
+		public Reader reader() {
+			return new Reader(this);
+		}
+
+		public void close() throws IOException {
+			synchronized(this) {
+				cache.clear();
+			}
+			channel.close();
+		}
+
+		/**
+		 * Class Reader reads the acres of a TiledMap for one search. It
+		 * keeps the tiles it used last so neighbouring acres do not go
+		 * through the shared cache every time.
+		 */
+		public static class Reader {
+
+			// Number of tiles remembered, a power of two
+			private static final int SLOTS = 16;
+
+			private final TiledMap map;
+			private final int[] ids = new int[SLOTS];
+			private final ByteBuffer[] tiles = new ByteBuffer[SLOTS];
+
+			Reader(TiledMap map) {
+				this.map = map;
+				java.util.Arrays.fill(ids, -1);
+			}
+
+			/*
+			 * Returns the tile holding the acre at x, y
+			 */
+			private ByteBuffer tileOf(int x, int y) {
+				int t = ((y / map.tile) * map.tilesX) + (x / map.tile);
+				int slot = t & (SLOTS - 1);
+				if(ids[slot] != t) {
+					tiles[slot] = map.tile(t);
+					ids[slot] = t;
+				}
+				return tiles[slot];
+			}
+
+			/*
+			 * Returns the index of the acre at x, y within its tile
+			 */
+			private int offset(int x, int y) {
+				return ((y % map.tile) * map.tile) + (x % map.tile);
+			}
+
+			/*
+			 * Returns the terrain class of the acre at x, y
+			 */
+			public byte classAt(int x, int y) {
+				return tileOf(x, y).get(offset(x, y));
+			}
+
+			/*
+			 * Returns the elevation of the acre at x, y
+			 */
+			public float elevation(int x, int y) {
+				return tileOf(x, y).getFloat((map.tile * map.tile) + (offset(x, y) * 4));
+			}
+
+			/*
+			 * Returns the travel time from the acre at x, y in direction d, or infinity if it cannot be
+			 * travelled, rounded to a float like the costs of an EdgeCostTable
+			 */
+			public double cost(int x, int y, int d) {
+				int nx = x + Orienteering.DX[d];
+				int ny = y + Orienteering.DY[d];
+				if(nx < 0 || ny < 0 || nx >= map.width || ny >= map.height) {
+					return Float.POSITIVE_INFINITY;
+				}
+				double t = Orienteering.travelTime(classAt(x, y), elevation(x, y), classAt(nx, ny), elevation(nx, ny), x, y, nx, ny);
+				if(t == -1) {
+					return Float.POSITIVE_INFINITY;
+				}
+				return (float) t;
+			}
+		}
+
+		/*
+		 * Writes the terrain image, changed for the season, and the elevation file as a tiled map. The
+		 * terrain is held as one byte per acre while the elevations are streamed a row of tiles at a time,
+		 * except in spring, when they are also loaded whole to work out the floods.
+		 */
+		public static void convert(Path terrainFile, Path elevationFile, String season, Path out, int tile) throws IOException {
+			TerrainGrid terrain = TerrainGrid.read(terrainFile);
+			// Spring floods depend on the elevations around the water, so only spring reads them all at once
+			ElevationGrid springElevations = null;
+			if(season.compareToIgnoreCase("spring") == 0) {
+				springElevations = ElevationParser.load(elevationFile);
+			}
+			Orienteering.applySeason(terrain, springElevations, season);
+			boolean[] present = DistanceHeuristic.present(terrain);
+			int mask = 0;
+			for(int c=0; c<TerrainGrid.CLASSES; c++) {
+				if(present[c]) {
+					mask |= 1 << c;
+				}
+			}
+			int tilesX = (terrain.width + tile - 1) / tile;
+
+			try(FileChannel channel = FileChannel.open(out, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer header = ByteBuffer.allocate(HEADER);
+				header.putInt(MAGIC).putInt(VERSION).putInt(terrain.width).putInt(terrain.height).putInt(tile).putInt(mask);
+				header.flip();
+				write(channel, header, 0);
+
+				ByteBuffer buf = ByteBuffer.allocate(tile * tile * 5);
+				long tileBytes = (long) tile * tile * 5;
+				int[] size = ElevationParser.loadBands(elevationFile, tile, (y0, rows, elWidth, values) -> {
+					if(y0 >= terrain.height) {
+						return;
+					}
+					if(elWidth < terrain.width) {
+						throw new IOException("Elevations cover " + elWidth + " acres across but the terrain is " + terrain.width);
+					}
+					for(int tx=0; tx<tilesX; tx++) {
+						buf.clear();
+						for(int r=0; r<tile; r++) {
+							for(int c=0; c<tile; c++) {
+								int x = (tx * tile) + c;
+								int y = y0 + r;
+								boolean inside = r < rows && x < terrain.width && y < terrain.height;
+								buf.put(inside ? terrain.get(x, y) : TerrainGrid.OUT_OF_BOUNDS);
+							}
+						}
+						for(int r=0; r<tile; r++) {
+							for(int c=0; c<tile; c++) {
+								int x = (tx * tile) + c;
+								int y = y0 + r;
+								boolean inside = r < rows && x < terrain.width && y < terrain.height;
+								buf.putFloat(inside ? values[(r * elWidth) + x] : 0);
+							}
+						}
+						buf.flip();
+						long t = ((long) (y0 / tile) * tilesX) + tx;
+						write(channel, buf, HEADER + (t * tileBytes));
+					}
+				});
+				if(size[1] < terrain.height) {
+					throw new IOException("Elevations cover " + size[1] + " acres down but the terrain is " + terrain.height);
+				}
+			} catch (IOException e) {
+				Files.deleteIfExists(out);
+				throw e;
+			}
+		}
+
+		/*
+		 * Writes all of buf to the channel at position
+		 */
+		private static void write(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+			while(buf.hasRemaining()) {
+				position += channel.write(buf, position);
+			}
+		}
+
+		/*
+		 * Main function
+		 */
+		public static void main(String[] args) {
+			if(args.length == 5 && args[0].equals("convert")) {
+				try {
+					convert(Paths.get(args[1]), Paths.get(args[2]), args[3], Paths.get(args[4]), TILE);
+				} catch (IOException e) {
+					e.printStackTrace();
+					System.exit(1);
+				}
+			} else if((args.length == 3 || args.length == 4) && args[0].equals("route")) {
+				int maxTiles = (args.length == 4) ? Integer.parseInt(args[3]) : CACHE;
+				try(TiledMap map = open(Paths.get(args[1]), maxTiles)) {
+					int[] controls = Orienteering.loadCourse(args[2]);
+					Heuristic h = new DistanceHeuristic(map.present);
+					ArrayList<Node> path = new ArrayList<Node>();
+					SearchStats stats = new SearchStats();
+					for(int i=0; i<(controls.length-2); i+=2) {
+						path.addAll(TiledSearch.search(map, h, controls[i], controls[i+1], controls[i+2], controls[i+3], stats));
+						System.out.println("Leg " + ((i / 2) + 1) + ": " + stats);
+					}
+					System.out.println(map.tilesMapped() + " tiles mapped of " + ((long) map.tilesX * map.tilesY));
+					Orienteering.getDirections(path);
+				} catch (IOException e) {
+					e.printStackTrace();
+					System.exit(1);
+				}
+			} else {
+				System.err.println("Usage: TiledMap convert terrain elevation season map");
+				System.err.println("       TiledMap route map course [tiles]");
+				System.exit(1);
+			}
+		}
+}
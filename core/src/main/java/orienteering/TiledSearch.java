@@ -0,0 +1,156 @@
+package orienteering;
+
+/**
+ * Class TiledSearch is A* over a TiledMap. Unlike the searches on an
+ * EdgeCostTable it keeps nothing per acre of the map: the acres it reaches
+ * are numbered in the order they are reached by a CellNumbering, and
+ * their state, travel time and parent live in arrays that grow with the
+ * search. Its memory therefore follows the size of the
+ * search rather than the size of the map, and the map itself is only read
+ * from the tiles the frontier passes through.
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+
+public class TiledSearch {
+
+		// Acres reached by a search, numbered in the order they were reached
+		private final int width;
+		private final CellNumbering numbering;
+		private double[] g;
+		private int[] parent;
+		private byte[] state;
+
+		private TiledSearch(int width) {
+			this.width = width;
+			this.numbering = new CellNumbering(1024);
+			g = new double[1024];
+			parent = new int[1024];
+			state = new byte[1024];
+		}
+
+		/*
+		 * Searches from x1, y1 to gx, gy and returns the path from the goal back to the start
+		 */
+		public static ArrayList<Node> search(TiledMap map, Heuristic h, int x1, int y1, int gx, int gy, SearchStats stats) {
+			long startTime = System.nanoTime();
+			TiledMap.Reader reader = map.reader();
+			TiledSearch cells = new TiledSearch(map.width);
+			IndexedHeap open = new IndexedHeap(cells.g.length);
+
+			int start = cells.number(x1, y1);
+			cells.g[start] = 0;
+			cells.parent[start] = -1;
+			cells.state[start] = Orienteering.OPEN;
+			open.add(start, h.estimate(x1, y1, gx, gy));
+
+			long expanded = 0;
+			long pushed = 1;
+			int goal = -1;
+			while(!open.isEmpty()) {
+				int q = open.poll();
+				cells.state[q] = Orienteering.CLOSED;
+				expanded++;
+				int qx = cells.x(q);
+				int qy = cells.y(q);
+				if(qx == gx && qy == gy) {
+					goal = q;
+					break;
+				}
+
+				for(int d=0; d<8; d++) {
+					double t = reader.cost(qx, qy, d);
+					if(t == Float.POSITIVE_INFINITY) {
+						continue;
+					}
+					int nx = qx + Orienteering.DX[d];
+					int ny = qy + Orienteering.DY[d];
+					int n = cells.number(nx, ny);
+					if(cells.state[n] == Orienteering.CLOSED) {
+						continue;
+					}
+					double ng = cells.g[q] + t;
+					if(cells.state[n] == Orienteering.OPEN && cells.g[n] <= ng) {
+						continue;
+					}
+					cells.g[n] = ng;
+					cells.parent[n] = q;
+					double f = ng + h.estimate(nx, ny, gx, gy);
+					pushed++;
+					if(cells.state[n] == Orienteering.OPEN) {
+						open.decreaseKey(n, f);
+					} else {
+						open.ensureCapacity(cells.g.length);
+						open.add(n, f);
+						cells.state[n] = Orienteering.OPEN;
+					}
+				}
+			}
+
+			if(stats != null) {
+				stats.expanded = expanded;
+				stats.pushed = pushed;
+				stats.nanos = System.nanoTime() - startTime;
+				stats.cost = (goal != -1) ? cells.g[goal] : Double.POSITIVE_INFINITY;
+			}
+
+			ArrayList<Node> path = new ArrayList<Node>();
+			if(goal != -1) {
+				path = cells.path(goal, h, gx, gy);
+			}
+			return path;
+		}
+
+		/*
+		 * Returns the number of the acre at x, y, numbering it as unvisited if it has not been reached before
+		 */
+		private int number(int x, int y) {
+			int before = numbering.size();
+			int n = numbering.number(((long) y * width) + x);
+			if(n == before) {
+				if(n == g.length) {
+					int capacity = g.length * 2;
+					g = Arrays.copyOf(g, capacity);
+					parent = Arrays.copyOf(parent, capacity);
+					state = Arrays.copyOf(state, capacity);
+				}
+				state[n] = 0;
+			}
+			return n;
+		}
+
+		/*
+		 * Returns the x coordinate of acre number n
+		 */
+		private int x(int n) {
+			return (int) (numbering.id(n) % width);
+		}
+
+		/*
+		 * Returns the y coordinate of acre number n
+		 */
+		private int y(int n) {
+			return (int) (numbering.id(n) / width);
+		}
+
+		/*
+		 * Builds the Nodes of the path ending at acre goal, returned from the goal back to the start
+		 */
+		private ArrayList<Node> path(int goal, Heuristic h, int gx, int gy) {
+			ArrayList<Integer> acres = new ArrayList<Integer>();
+			for(int c=goal; c!=-1; c=parent[c]) {
+				acres.add(c);
+			}
+			Node node = null;
+			for(int i=acres.size()-1; i>=0; i--) {
+				int c = acres.get(i);
+				node = new Node(x(c), y(c), g[c], h.estimate(x(c), y(c), gx, gy), node);
+			}
+			ArrayList<Node> path = new ArrayList<Node>();
+			while(node != null) {
+				path.add(node);
+				node = node.parent;
+			}
+			return path;
+		}
+}
@@ -0,0 +1,93 @@
+package orienteering;
+
+/**
+ * Class AnytimeSearchTest checks the bounds ARA* proves: every path it
+ * reports is no more than its bound times the shortest travel time, the
+ * bounds never grow from one path to the next, whichever heuristic
+ * guides the search, and with a heuristic that never overestimates the
+ * pass with epsilon 1 ends with the shortest path. The distance heuristic
+ * proving the bounds of minTTime is kept by the table until an acre
+ * changes, and the bounds still hold when the change brings in ice.
+ */
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class AnytimeSearchTest {
+
+		private static final int LEGS = 40;
+
+		@Test
+		void boundsHoldOnShippedMap() throws Exception {
+			check(new EdgeCostTable(TestMaps.shippedElevation(), TestMaps.shippedTerrain()));
+		}
+
+		@Test
+		void boundsHoldOnSyntheticMap() {
+			check(new EdgeCostTable(TestMaps.synthetic(120, 100, 13)));
+		}
+
+		@Test
+		void lowerBoundKeptUntilRefresh() {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(80, 70, 15));
+			Heuristic minTTime = Orienteering::minTTime;
+			DistanceHeuristic before = (DistanceHeuristic) AnytimeSearch.lowerBound(costs, minTTime);
+			assertSame(before, AnytimeSearch.lowerBound(costs, minTTime));
+			assertSame(before, AnytimeSearch.lowerBound(costs, before));
+
+			// Ice is faster than any class of the synthetic map, so the bound has to come down with it
+			for(int x=10; x<70; x++) {
+				costs.terrain.set(x, 35, TerrainGrid.ICE);
+				costs.refresh(x, 35);
+			}
+			DistanceHeuristic after = (DistanceHeuristic) AnytimeSearch.lowerBound(costs, minTTime);
+			assertNotSame(before, after);
+			assertTrue(after.perMetre < before.perMetre);
+			check(costs);
+		}
+
+		/*
+		 * Runs random legs to the end guided by minTTime and by the distance heuristic, checking every path found
+		 */
+		private static void check(EdgeCostTable costs) {
+			Heuristic distance = new DistanceHeuristic(costs.terrain);
+			Heuristic[] guides = {Orienteering::minTTime, distance};
+			int[] ends = TestMaps.controls(costs, LEGS * 2, 14);
+			for(int i=0; i<LEGS; i++) {
+				int x1 = ends[i*4];
+				int y1 = ends[(i*4)+1];
+				int gx = ends[(i*4)+2];
+				int gy = ends[(i*4)+3];
+				String leg = "Leg " + x1 + ", " + y1 + " to " + gx + ", " + gy;
+				double shortest = TestMaps.shortest(costs, x1, y1, gx, gy);
+				for(Heuristic h : guides) {
+					List<double[]> found = new ArrayList<double[]>();
+					ArrayList<Node> path = AnytimeSearch.search(costs, h, AnytimeSearch.lowerBound(costs, h), x1, y1, gx, gy,
+							AnytimeSearch.EPSILON, 1, Long.MAX_VALUE,
+							(p, cost, epsilon, bound, nanos) -> found.add(new double[] {cost, bound}), new SearchStats());
+					double cost = TestMaps.cost(costs, path, x1, y1, gx, gy);
+					if(h == distance || Double.isInfinite(shortest)) {
+						TestMaps.assertSameCost(shortest, cost, leg);
+					}
+					if(Double.isInfinite(shortest)) {
+						continue;
+					}
+					assertFalse(found.isEmpty(), leg + " reported no paths");
+					double last = Double.POSITIVE_INFINITY;
+					for(double[] solution : found) {
+						assertTrue(solution[1] >= 1, leg + " proved a bound below 1");
+						assertTrue(solution[0] <= solution[1] * shortest * (1 + 1e-9), leg + " took " + solution[0]
+								+ " but proved it within " + solution[1] + " of " + shortest);
+						assertTrue(solution[1] <= last, leg + " proved a looser bound than before");
+						last = solution[1];
+					}
+					assertTrue(cost <= last * shortest * (1 + 1e-9), leg + " returned a path slower than its bound");
+				}
+			}
+		}
+}
@@ -0,0 +1,139 @@
+package orienteering;
+
+/**
+ * Class BatchRunnerTest runs small manifests over synthetic maps written
+ * to a temp folder, and checks that each job writes its files, that two
+ * terrain files with the same name in different folders get caches of
+ * their own, that a second run reads the caches back to the same
+ * directions, and that the runner lets go of every map and season once
+ * the jobs using them are done, failed jobs included.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchRunnerTest {
+
+		@TempDir
+		Path folder;
+
+		@Test
+		void jobsWriteTheirFilesAndShareCaches() throws Exception {
+			writeMap("north", 50, 40, 51);
+			writeMap("south", 45, 50, 52);
+			List<BatchRunner.Job> jobs = manifest(
+					"# Two courses on one map, the same map in winter, and another map with a terrain file of the same name",
+					"north/terrain.png north/mpp.txt north/course.txt summer out/north-summer",
+					"north/terrain.png north/mpp.txt north/course2.txt Summer out/north-summer2",
+					"north/terrain.png north/mpp.txt north/course.txt winter out/north-winter",
+					"",
+					"south/terrain.png south/mpp.txt south/course.txt summer out/south-summer");
+			Path cacheDir = folder.resolve("cache");
+			Files.createDirectories(cacheDir);
+
+			BatchRunner runner = new BatchRunner(2, 2, cacheDir);
+			assertEquals(0, runner.run(jobs));
+			runner.shutdown();
+			assertReleased(runner);
+			for(BatchRunner.Job job : jobs) {
+				for(String file : new String[] {"path.png", "directions.txt", "metrics.json"}) {
+					assertTrue(Files.size(job.output.resolve(file)) > 0, job.output + " has no " + file);
+				}
+			}
+			assertEquals(3, count(cacheDir, ".cache"));
+			assertEquals(3, count(cacheDir, ".landmarks"));
+			assertNotEquals(runner.cacheFile(jobs.get(0), "cache"), runner.cacheFile(jobs.get(3), "cache"));
+			assertEquals(runner.cacheFile(jobs.get(0), "cache"), runner.cacheFile(jobs.get(1), "cache"));
+
+			// A second run finds every map and season in the caches
+			String[] before = new String[jobs.size()];
+			for(int i=0; i<jobs.size(); i++) {
+				before[i] = Files.readString(jobs.get(i).output.resolve("directions.txt"));
+				Files.delete(jobs.get(i).output.resolve("directions.txt"));
+			}
+			BatchRunner again = new BatchRunner(1, 1, cacheDir);
+			assertEquals(0, again.run(jobs));
+			again.shutdown();
+			assertReleased(again);
+			for(int i=0; i<jobs.size(); i++) {
+				assertEquals(before[i], Files.readString(jobs.get(i).output.resolve("directions.txt")), "Job " + i);
+			}
+			assertEquals(3, count(cacheDir, ".cache"));
+		}
+
+		@Test
+		void failedJobsLetGoOfTheirMaps() throws Exception {
+			writeMap("north", 40, 40, 53);
+			List<BatchRunner.Job> jobs = manifest(
+					"north/terrain.png north/mpp.txt north/missing.txt summer out/missing",
+					"north/terrain.png north/mpp.txt north/course.txt fall out/fall",
+					"north/terrain.png north/nothing.txt north/course.txt fall out/no-elevation");
+			BatchRunner runner = new BatchRunner(1, 1, folder);
+			assertEquals(2, runner.run(jobs));
+			runner.shutdown();
+			assertReleased(runner);
+			assertTrue(Files.exists(jobs.get(1).output.resolve("path.png")));
+		}
+
+		/*
+		 * Writes a synthetic map and two courses on it into the named folder
+		 */
+		private void writeMap(String name, int width, int height, long seed) throws Exception {
+			Path dir = folder.resolve(name);
+			Files.createDirectories(dir);
+			MapModel map = TestMaps.synthetic(width, height, seed);
+			TestMaps.write(map, dir.resolve("terrain.png"), dir.resolve("mpp.txt"));
+			EdgeCostTable costs = new EdgeCostTable(map);
+			writeCourse(dir.resolve("course.txt"), TestMaps.controls(costs, 3, seed));
+			writeCourse(dir.resolve("course2.txt"), TestMaps.controls(costs, 4, seed + 100));
+		}
+
+		/*
+		 * Writes controls given as x, y pairs as a course file
+		 */
+		private static void writeCourse(Path file, int[] controls) throws Exception {
+			StringBuilder course = new StringBuilder();
+			for(int i=0; i<controls.length; i+=2) {
+				course.append(controls[i]).append(' ').append(controls[i+1]).append('\n');
+			}
+			Files.writeString(file, course);
+		}
+
+		/*
+		 * Writes the lines as a manifest in the temp folder and reads its jobs back
+		 */
+		private List<BatchRunner.Job> manifest(String... lines) throws Exception {
+			Path file = folder.resolve("jobs.txt");
+			Files.write(file, List.of(lines));
+			return BatchRunner.readManifest(file);
+		}
+
+		/*
+		 * Returns the number of files in the folder whose names end with the suffix
+		 */
+		private static long count(Path dir, String suffix) throws Exception {
+			try(Stream<Path> files = Files.list(dir)) {
+				return files.filter(f -> f.getFileName().toString().endsWith(suffix)).count();
+			}
+		}
+
+		/*
+		 * Checks that the runner holds no maps, seasons or counts of jobs using them
+		 */
+		private static void assertReleased(BatchRunner runner) throws Exception {
+			for(String name : new String[] {"maps", "seasons", "mapUsers", "seasonUsers"}) {
+				Field field = BatchRunner.class.getDeclaredField(name);
+				field.setAccessible(true);
+				assertTrue(((Map<?, ?>) field.get(runner)).isEmpty(), name + " still holds " + field.get(runner));
+			}
+		}
+}
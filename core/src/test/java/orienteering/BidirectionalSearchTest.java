@@ -0,0 +1,52 @@
+package orienteering;
+
+/**
+ * Class BidirectionalSearchTest checks that searching from both ends with
+ * the distance heuristic finds every leg as fast as the forward search,
+ * on the shipped course in each season and on random legs of a
+ * synthetic map with lakes and thickets to go around.
+ */
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.util.ArrayList;
+import org.junit.jupiter.api.Test;
+
+class BidirectionalSearchTest {
+
+		private static final int LEGS = 60;
+
+		@Test
+		void shippedCourseMatchesForward() throws Exception {
+			MapModel summer = new MapModel(TestMaps.shippedTerrain(), TestMaps.shippedElevation());
+			int[] course = CourseSolver.parseCourse(new String(Files.readAllBytes(TestMaps.DATA.resolve("course.txt"))));
+			for(String season : new String[] {"summer", "fall", "winter", "spring"}) {
+				TerrainGrid terrain = summer.terrain.copy();
+				Orienteering.applySeason(terrain, summer.elGrid, season);
+				EdgeCostTable costs = new EdgeCostTable(summer.elGrid, terrain);
+				for(int i=0; i+3<course.length; i+=2) {
+					check(costs, course[i], course[i+1], course[i+2], course[i+3], season + " leg " + (i / 2));
+				}
+			}
+		}
+
+		@Test
+		void randomLegsMatchForward() {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(120, 110, 15));
+			int[] ends = TestMaps.controls(costs, LEGS * 2, 15);
+			for(int i=0; i<LEGS; i++) {
+				check(costs, ends[i*4], ends[(i*4)+1], ends[(i*4)+2], ends[(i*4)+3], "Leg " + i);
+			}
+		}
+
+		/*
+		 * Compares both searches on one leg, counting what the bidirectional search expanded
+		 */
+		private static void check(EdgeCostTable costs, int x1, int y1, int gx, int gy, String leg) {
+			SearchStats stats = new SearchStats();
+			ArrayList<Node> path = BidirectionalSearch.search(costs, new DistanceHeuristic(costs.terrain), x1, y1, gx, gy, stats);
+			double expected = TestMaps.shortest(costs, x1, y1, gx, gy);
+			TestMaps.assertSameCost(expected, TestMaps.cost(costs, path, x1, y1, gx, gy), leg);
+			assertTrue(stats.expanded > 0 || (x1 == gx && y1 == gy), leg + " expanded nothing");
+		}
+}
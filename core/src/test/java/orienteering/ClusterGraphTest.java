@@ -0,0 +1,118 @@
+package orienteering;
+
+/**
+ * Class ClusterGraphTest checks the HPA* searches: the exact graph finds
+ * legs as fast as A*, the sparse graph finds a connected path for every
+ * leg A* can finish, never faster than A*, and a graph updated for a
+ * season, for refreshed acres or for other costs holds the same clusters
+ * as one built for the new costs from scratch while redoing fewer.
+ */
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ClusterGraphTest {
+
+		private static final int LEGS = 200;
+
+		// Clusters smaller than the default so the synthetic map has plenty of them
+		private static final int SIZE = 16;
+
+		@Test
+		void exactGraphMatchesAStar() {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(100, 90, 8));
+			check(costs, new ClusterGraph(costs, SIZE, true), true);
+		}
+
+		@Test
+		void sparseGraphFindsValidPaths() {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(100, 90, 9));
+			check(costs, new ClusterGraph(costs, SIZE, false), false);
+		}
+
+		@Test
+		void seasonUpdateMatchesFreshGraph() {
+			EdgeCostTable summer = new EdgeCostTable(TestMaps.synthetic(100, 90, 10));
+			EdgeCostTable winter = EdgeCostTable.season(summer, "winter");
+			for(boolean exact : new boolean[] {true, false}) {
+				ClusterGraph updated = new ClusterGraph(summer, SIZE, exact).update(winter);
+				assertSameGraph(new ClusterGraph(winter, SIZE, exact), updated);
+			}
+		}
+
+		@Test
+		void refreshedUpdateMatchesFreshGraph() {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(100, 90, 11));
+			ClusterGraph exactBefore = costs.clusters(true);
+			ClusterGraph sparseBefore = costs.clusters(false);
+			Random random = new Random(11);
+			for(int k=0; k<6; k++) {
+				int x = random.nextInt(costs.width);
+				int y = random.nextInt(costs.height);
+				costs.terrain.set(x, y, TerrainGrid.WATER);
+				costs.refresh(x, y);
+			}
+			// Acres on a cluster border change the entrances of the clusters across it
+			for(int y=3; y<12; y++) {
+				costs.terrain.set(ClusterGraph.SIZE, y, TerrainGrid.WATER);
+				costs.refresh(ClusterGraph.SIZE, y);
+			}
+			EdgeCostTable fresh = new EdgeCostTable(TestMaps.copy(costs.elGrid), costs.terrain.copy());
+			assertTrue(costs.clusters(true) != exactBefore && costs.clusters(false) != sparseBefore, "Refresh kept the graphs");
+			assertSameGraph(new ClusterGraph(fresh, ClusterGraph.SIZE, true), costs.clusters(true));
+			assertSameGraph(new ClusterGraph(fresh, ClusterGraph.SIZE, false), costs.clusters(false));
+		}
+
+		@Test
+		void otherCostsUpdateMatchesFreshGraph() {
+			MapModel map = TestMaps.synthetic(100, 90, 12);
+			EdgeCostTable first = new EdgeCostTable(map);
+			TerrainGrid terrain = map.terrain.copy();
+			for(int x=10; x<30; x++) {
+				terrain.set(x, 40, TerrainGrid.IMPASSABLE_VEGETATION);
+			}
+			EdgeCostTable second = new EdgeCostTable(map.elGrid, terrain);
+			for(boolean exact : new boolean[] {true, false}) {
+				assertSameGraph(new ClusterGraph(second, SIZE, exact), new ClusterGraph(first, SIZE, exact).update(second));
+			}
+		}
+
+		/*
+		 * Checks that the updated graph holds the same entrances and travel times between them as the fresh one,
+		 * having redone fewer clusters
+		 */
+		private static void assertSameGraph(ClusterGraph fresh, ClusterGraph updated) {
+			assertTrue(updated.rebuilt < fresh.rebuilt, "Update redid all " + updated.rebuilt + " clusters");
+			assertTrue(updated.rebuilt > 0, "Update redid no clusters");
+			for(int k=0; k<fresh.entrances.length; k++) {
+				assertArrayEquals(fresh.entrances[k], updated.entrances[k], "Entrances of cluster " + k);
+				assertArrayEquals(fresh.within[k], updated.within[k], "Travel times in cluster " + k);
+			}
+			assertArrayEquals(fresh.local, updated.local);
+		}
+
+		/*
+		 * Compares the graph with A* over random legs, some of which cannot be finished
+		 */
+		private static void check(EdgeCostTable costs, ClusterGraph graph, boolean exact) {
+			Heuristic h = new DistanceHeuristic(costs.terrain);
+			int[] ends = TestMaps.controls(costs, LEGS * 2, 12);
+			for(int i=0; i<LEGS; i++) {
+				int x1 = ends[i*4];
+				int y1 = ends[(i*4)+1];
+				int gx = ends[(i*4)+2];
+				int gy = ends[(i*4)+3];
+				String leg = "Leg " + x1 + ", " + y1 + " to " + gx + ", " + gy;
+				double expected = TestMaps.shortest(costs, x1, y1, gx, gy);
+				double actual = TestMaps.cost(costs, graph.search(h, x1, y1, gx, gy, new SearchStats()), x1, y1, gx, gy);
+				if(exact || Double.isInfinite(expected)) {
+					TestMaps.assertSameCost(expected, actual, leg);
+				} else {
+					assertTrue(actual >= expected * (1 - 1e-9) && !Double.isInfinite(actual), leg + " took " + actual
+							+ " but A* took " + expected);
+				}
+			}
+		}
+}
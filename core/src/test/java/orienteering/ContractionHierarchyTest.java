@@ -0,0 +1,56 @@
+package orienteering;
+
+/**
+ * Class ContractionHierarchyTest checks that searches up a contraction
+ * hierarchy find legs exactly as fast as A* on the acre grid, and that a
+ * saved hierarchy reads back the same. The shipped map takes over a
+ * minute to contract, so a small synthetic map is used.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ContractionHierarchyTest {
+
+		private static final int LEGS = 300;
+
+		@TempDir
+		Path folder;
+
+		@Test
+		void costsMatchAStar() throws Exception {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(70, 60, 5));
+			ContractionHierarchy ch = ContractionHierarchy.build(costs, ForkJoinPool.commonPool());
+			check(costs, ch);
+
+			long fingerprint = LandmarkHeuristic.fingerprint(costs);
+			Path file = folder.resolve("map.ch");
+			ch.save(file, fingerprint);
+			ContractionHierarchy loaded = ContractionHierarchy.load(costs, file, fingerprint);
+			assertNotNull(loaded);
+			assertEquals(ch.edges(), loaded.edges());
+			check(costs, loaded);
+			assertNull(ContractionHierarchy.load(costs, file, fingerprint + 1));
+		}
+
+		/*
+		 * Compares the hierarchy with A* over random legs, some of which cannot be finished
+		 */
+		private static void check(EdgeCostTable costs, ContractionHierarchy ch) {
+			int[] ends = TestMaps.controls(costs, LEGS * 2, 6);
+			for(int i=0; i<LEGS; i++) {
+				int x1 = ends[i*4];
+				int y1 = ends[(i*4)+1];
+				int gx = ends[(i*4)+2];
+				int gy = ends[(i*4)+3];
+				double expected = TestMaps.shortest(costs, x1, y1, gx, gy);
+				double actual = TestMaps.cost(costs, ch.search(x1, y1, gx, gy, new SearchStats()), x1, y1, gx, gy);
+				TestMaps.assertSameCost(expected, actual, "Leg " + x1 + ", " + y1 + " to " + gx + ", " + gy);
+			}
+		}
+}
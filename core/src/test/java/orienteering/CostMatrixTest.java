@@ -0,0 +1,89 @@
+package orienteering;
+
+/**
+ * Class CostMatrixTest checks that the travel time between every pair of
+ * controls found by the sweeps is that of a forward search for the pair,
+ * and that the path traced back for each pair runs between the two
+ * controls and takes that travel time, in either direction, with a
+ * control visited twice and with controls cut off from the rest.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class CostMatrixTest {
+
+		@Test
+		void shippedCourseMatchesForward() throws Exception {
+			MapModel summer = new MapModel(TestMaps.shippedTerrain(), TestMaps.shippedElevation());
+			int[] course = CourseSolver.parseCourse(new String(Files.readAllBytes(TestMaps.DATA.resolve("course.txt"))));
+			check(new EdgeCostTable(summer), course);
+		}
+
+		@Test
+		void syntheticControlsMatchForward() {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(90, 80, 21));
+			int[] random = TestMaps.controls(costs, 9, 21);
+
+			// The first control again at the end, as on a course that finishes where it starts
+			int[] controls = new int[random.length + 2];
+			System.arraycopy(random, 0, controls, 0, random.length);
+			controls[random.length] = random[0];
+			controls[random.length + 1] = random[1];
+			check(costs, controls);
+		}
+
+		@Test
+		void enclosedControlIsUnreachable() {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(50, 50, 22));
+			for(int y=19; y<=23; y++) {
+				for(int x=19; x<=23; x++) {
+					costs.terrain.set(x, y, (x == 21 && y == 21) ? TerrainGrid.OPEN_LAND : TerrainGrid.WATER);
+				}
+			}
+			costs = new EdgeCostTable(costs.elGrid, costs.terrain);
+			int[] random = TestMaps.controls(costs, 4, 22);
+			int[] controls = new int[random.length + 2];
+			System.arraycopy(random, 0, controls, 0, random.length);
+			controls[random.length] = 21;
+			controls[random.length + 1] = 21;
+			CostMatrix matrix = check(costs, controls);
+			int last = matrix.size() - 1;
+			for(int i=0; i<last; i++) {
+				if(controls[i*2] != 21 || controls[(i*2)+1] != 21) {
+					assertEquals(Double.POSITIVE_INFINITY, matrix.cost(i, last));
+					assertTrue(matrix.path(last, i).isEmpty());
+				}
+			}
+		}
+
+		/*
+		 * Compares every pair of the matrix with a forward search, and the path traced for it with its travel time
+		 */
+		private static CostMatrix check(EdgeCostTable costs, int[] controls) {
+			ForkJoinPool pool = new ForkJoinPool(2);
+			CostMatrix matrix;
+			try {
+				matrix = CostMatrix.build(costs, controls, pool);
+			} finally {
+				pool.shutdown();
+			}
+			assertEquals(controls.length / 2, matrix.size());
+			for(int i=0; i<matrix.size(); i++) {
+				for(int j=0; j<matrix.size(); j++) {
+					int x1 = controls[i*2];
+					int y1 = controls[(i*2)+1];
+					int gx = controls[j*2];
+					int gy = controls[(j*2)+1];
+					String pair = "Controls " + i + " to " + j;
+					double expected = TestMaps.shortest(costs, x1, y1, gx, gy);
+					TestMaps.assertSameCost(expected, matrix.cost(i, j), pair);
+					TestMaps.assertSameCost(expected, TestMaps.cost(costs, matrix.path(i, j), x1, y1, gx, gy), pair + " traced");
+				}
+			}
+			return matrix;
+		}
+}
@@ -0,0 +1,167 @@
+package orienteering;
+
+/**
+ * Class CourseOptimizerTest checks that the order chosen for a course
+ * visits every control once between the fixed start and finish and is no
+ * slower than the file order, that on small courses it is as fast as the
+ * best order found by trying them all, and that a score-O course stays
+ * within its budget and comes close to the best choice of controls. The
+ * choice is greedy, so it is only held to the best on most courses.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CourseOptimizerTest {
+
+		// Controls of the small courses, including the start and finish
+		private static final int CONTROLS = 8;
+
+		private static ForkJoinPool pool;
+
+		@BeforeAll
+		static void startPool() {
+			pool = new ForkJoinPool(2);
+		}
+
+		@AfterAll
+		static void stopPool() {
+			pool.shutdown();
+		}
+
+		@Test
+		void orderMatchesEveryOrder() {
+			for(long seed=1; seed<=20; seed++) {
+				double[][] cost = plane(CONTROLS, seed);
+				CourseOptimizer optimizer = new CourseOptimizer(cost);
+				int[] tour = optimizer.solve(pool);
+				checkTour(tour, 0, CONTROLS - 1, true);
+				assertEquals(best(cost, null, Double.POSITIVE_INFINITY, new int[CONTROLS], 1, new boolean[CONTROLS])[1],
+						optimizer.time(tour), 1e-9, "Course " + seed);
+			}
+		}
+
+		@Test
+		void courseOrderBeatsFileOrder() {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(90, 80, 31));
+			int[] controls = TestMaps.controls(costs, 12, 31);
+			CostMatrix matrix = CostMatrix.build(costs, controls, pool);
+			CourseOptimizer optimizer = new CourseOptimizer(matrix.cost);
+			int[] fileOrder = new int[matrix.size()];
+			for(int i=0; i<fileOrder.length; i++) {
+				fileOrder[i] = i;
+			}
+			int[] tour = optimizer.solve(pool);
+			checkTour(tour, 0, matrix.size() - 1, true);
+			assertTrue(optimizer.time(tour) <= optimizer.time(fileOrder) + 1e-9);
+			assertTrue(optimizer.time(tour) <= optimizer.time(optimizer.solve(0)) + 1e-9);
+
+			int[] ordered = CourseOptimizer.reorder(controls, tour);
+			for(int i=0; i<tour.length; i++) {
+				assertEquals(controls[tour[i]*2], ordered[i*2]);
+				assertEquals(controls[(tour[i]*2)+1], ordered[(i*2)+1]);
+			}
+		}
+
+		@Test
+		void scoreNearEveryChoice() {
+			int matched = 0;
+			for(long seed=1; seed<=20; seed++) {
+				double[][] cost = plane(CONTROLS, seed);
+				Random random = new Random(seed);
+				double[] score = new double[CONTROLS];
+				for(int c=1; c<CONTROLS-1; c++) {
+					score[c] = 1 + random.nextInt(5);
+				}
+				double budget = cost[0][CONTROLS - 1] + (random.nextDouble() * 2);
+				CourseOptimizer optimizer = new CourseOptimizer(cost, score, 0, CONTROLS - 1, budget);
+				int[] tour = optimizer.solve(pool);
+				checkTour(tour, 0, CONTROLS - 1, false);
+				assertTrue(optimizer.time(tour) <= budget, "Course " + seed + " over budget");
+				double[] best = best(cost, score, budget, new int[CONTROLS], 1, new boolean[CONTROLS]);
+				double points = optimizer.points(tour);
+				assertTrue(points >= 0.75 * best[0], "Course " + seed + " scores " + points + " of " + best[0]);
+				if(points == best[0]) {
+					matched++;
+				}
+			}
+			assertTrue(matched >= 15, "Best choice found on " + matched + " of 20 courses");
+		}
+
+		/*
+		 * Returns straight line travel times between controls at random in the unit square
+		 */
+		private static double[][] plane(int n, long seed) {
+			Random random = new Random(seed);
+			double[] x = new double[n];
+			double[] y = new double[n];
+			for(int i=0; i<n; i++) {
+				x[i] = random.nextDouble();
+				y[i] = random.nextDouble();
+			}
+			double[][] cost = new double[n][n];
+			for(int i=0; i<n; i++) {
+				for(int j=0; j<n; j++) {
+					cost[i][j] = Math.hypot(x[i] - x[j], y[i] - y[j]);
+				}
+			}
+			return cost;
+		}
+
+		/*
+		 * Checks that a tour runs from start to finish visiting no control twice, and every control if all is set
+		 */
+		private static void checkTour(int[] tour, int start, int finish, boolean all) {
+			assertEquals(start, tour[0]);
+			assertEquals(finish, tour[tour.length - 1]);
+			boolean[] seen = new boolean[Math.max(CONTROLS, tour.length)];
+			for(int c : tour) {
+				assertTrue(!seen[c], "Control " + c + " visited twice");
+				seen[c] = true;
+			}
+			if(all) {
+				for(int c=0; c<tour.length; c++) {
+					assertTrue(seen[c], "Control " + c + " left out");
+				}
+			}
+		}
+
+		/*
+		 * Returns the most points and then the least travel time of any tour that begins with the first
+		 * length controls of tour, ends at the last control and fits the budget, trying every way on.
+		 * Without a score every control must be visited.
+		 */
+		private static double[] best(double[][] cost, double[] score, double budget, int[] tour, int length, boolean[] used) {
+			int finish = cost.length - 1;
+			double time = 0;
+			double points = 0;
+			for(int i=1; i<length; i++) {
+				time += cost[tour[i-1]][tour[i]];
+				points += (score == null) ? 0 : score[tour[i]];
+			}
+			double[] best = {Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY};
+			double total = time + cost[tour[length - 1]][finish];
+			if((score != null || length == finish) && total <= budget) {
+				best[0] = points;
+				best[1] = total;
+			}
+			for(int c=1; c<finish; c++) {
+				if(used[c]) {
+					continue;
+				}
+				used[c] = true;
+				tour[length] = c;
+				double[] on = best(cost, score, budget, tour, length + 1, used);
+				used[c] = false;
+				if(on[0] > best[0] || (on[0] == best[0] && on[1] < best[1])) {
+					best = on;
+				}
+			}
+			return best;
+		}
+}
@@ -0,0 +1,85 @@
+package orienteering;
+
+/**
+ * Class ElevationParserTest checks the memory mapped elevation parser
+ * against Float.parseFloat on every value, for the shipped mpp.txt and
+ * for files with signs, exponents, tabs and Windows line endings, read
+ * whole and in bands, and that broken files are refused.
+ */
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ElevationParserTest {
+
+		@TempDir
+		Path folder;
+
+		@Test
+		void shippedFileMatchesParseFloat() throws Exception {
+			check(TestMaps.DATA.resolve("mpp.txt"));
+		}
+
+		@Test
+		void numberFormatsMatchParseFloat() throws Exception {
+			check(write("formats.txt", "1 -2.5 +3.25 0.000125\r\n"
+					+ "1e3\t-4.5E-2   7. .5\r\n"
+					+ "  123456.789 -0 2.5e+1 99999999\n"
+					+ "1.17549435E-38 3.4028235e38 0.1 -0.3\n"));
+		}
+
+		@Test
+		void brokenFilesAreRefused() throws Exception {
+			Path ragged = write("ragged.txt", "1 2 3\n4 5\n");
+			assertThrows(IOException.class, () -> ElevationParser.load(ragged));
+			Path empty = write("empty.txt", "\n \n");
+			assertThrows(IOException.class, () -> ElevationParser.load(empty));
+		}
+
+		/*
+		 * Parses the file whole and in bands of several heights and compares every value with Float.parseFloat
+		 */
+		private static void check(Path file) throws IOException {
+			List<String> lines = new ArrayList<String>();
+			for(String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+				if(!line.isBlank()) {
+					lines.add(line.trim());
+				}
+			}
+			int width = lines.get(0).split("\\s+").length;
+			float[] expected = new float[width * lines.size()];
+			for(int y=0; y<lines.size(); y++) {
+				String[] tokens = lines.get(y).split("\\s+");
+				assertEquals(width, tokens.length, "Values on row " + y);
+				for(int x=0; x<width; x++) {
+					expected[(y * width) + x] = Float.parseFloat(tokens[x]);
+				}
+			}
+
+			ElevationGrid elGrid = ElevationParser.load(file);
+			assertEquals(width, elGrid.width);
+			assertEquals(lines.size(), elGrid.height);
+			assertArrayEquals(expected, elGrid.values);
+
+			for(int bandRows : new int[] {1, 3, 64}) {
+				float[] banded = new float[expected.length];
+				int[] size = ElevationParser.loadBands(file, bandRows, (y0, rows, w, values) ->
+						System.arraycopy(values, 0, banded, y0 * w, rows * w));
+				assertArrayEquals(new int[] {width, lines.size()}, size);
+				assertArrayEquals(expected, banded, "Bands of " + bandRows + " rows");
+			}
+		}
+
+		private Path write(String name, String contents) throws IOException {
+			return Files.write(folder.resolve(name), contents.getBytes(StandardCharsets.US_ASCII));
+		}
+}
@@ -0,0 +1,90 @@
+package orienteering;
+
+/**
+ * Class JumpPointSearchTest checks that jump point search finds legs as
+ * fast as the forward search, also after acres change under pruning bits
+ * already worked out, and that a table only holds the bits once a search
+ * in that mode has asked for them.
+ */
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.lang.reflect.Field;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class JumpPointSearchTest {
+
+		private static final int LEGS = 60;
+
+		@Test
+		void costsMatchForward() {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(120, 110, 16));
+			check(costs, 16);
+		}
+
+		@Test
+		void pruningOnlyMadeForJumpSearches() {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(60, 60, 17));
+			Orienteering.aStarSearch(costs, new DistanceHeuristic(costs.terrain), 1, 1, 50, 50, Orienteering.FORWARD, null);
+			assertNull(readPruning(costs));
+			Orienteering.aStarSearch(costs, new DistanceHeuristic(costs.terrain), 1, 1, 50, 50, Orienteering.JUMP, null);
+			assertNotNull(readPruning(costs));
+		}
+
+		@Test
+		void refreshedBitsMatchFreshTable() {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(100, 90, 18));
+			check(costs, 18);
+			Random random = new Random(18);
+			for(int k=0; k<200; k++) {
+				int x = random.nextInt(costs.width);
+				int y = random.nextInt(costs.height);
+				costs.terrain.set(x, y, (byte) random.nextInt(TerrainGrid.CLASSES));
+				costs.refresh(x, y);
+			}
+			check(costs, 19);
+
+			EdgeCostTable fresh = new EdgeCostTable(TestMaps.copy(costs.elGrid), costs.terrain.copy());
+			long[] expected = new long[costs.map.cells()];
+			long[] actual = new long[costs.map.cells()];
+			for(int y=0; y<costs.height; y++) {
+				for(int x=0; x<costs.width; x++) {
+					expected[(y * costs.width) + x] = fresh.pruning().get(x, y);
+					actual[(y * costs.width) + x] = costs.pruning().get(x, y);
+				}
+			}
+			assertArrayEquals(expected, actual);
+		}
+
+		/*
+		 * Compares jump point search with the forward search over random legs
+		 */
+		private static void check(EdgeCostTable costs, long seed) {
+			Heuristic h = new DistanceHeuristic(costs.terrain);
+			int[] ends = TestMaps.controls(costs, LEGS * 2, seed);
+			for(int i=0; i<LEGS; i++) {
+				int x1 = ends[i*4];
+				int y1 = ends[(i*4)+1];
+				int gx = ends[(i*4)+2];
+				int gy = ends[(i*4)+3];
+				double expected = TestMaps.shortest(costs, x1, y1, gx, gy);
+				double actual = TestMaps.cost(costs, JumpPointSearch.search(costs, h, x1, y1, gx, gy, null), x1, y1, gx, gy);
+				TestMaps.assertSameCost(expected, actual, "Leg " + x1 + ", " + y1 + " to " + gx + ", " + gy);
+			}
+		}
+
+		/*
+		 * Returns the pruning bits the table holds without making them
+		 */
+		private static Object readPruning(EdgeCostTable costs) {
+			try {
+				Field field = EdgeCostTable.class.getDeclaredField("pruning");
+				field.setAccessible(true);
+				return field.get(costs);
+			} catch(ReflectiveOperationException e) {
+				throw new AssertionError(e);
+			}
+		}
+}
@@ -0,0 +1,121 @@
+package orienteering;
+
+/**
+ * Class ReplannerTest checks that legs repaired by LPA* after batches of
+ * changes to the map are as fast as a fresh A* search over a table built
+ * from scratch for the changed map, including changes that block a leg,
+ * open it again, and bring in a class faster than any on the map before.
+ * Unknown acres cost nothing to cross, so paths through them are traced
+ * back through equal travel times, and a batch with a class that does not
+ * exist is refused before it changes anything.
+ */
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class ReplannerTest {
+
+		// Classes changed acres take, impassable ones and walkable ice, which is faster than any on the synthetic maps
+		private static final byte[] CLASSES = {
+				TerrainGrid.OPEN_LAND, TerrainGrid.WALK_FOREST, TerrainGrid.WATER, TerrainGrid.IMPASSABLE_VEGETATION,
+				TerrainGrid.MUD, TerrainGrid.ICE
+		};
+
+		@Test
+		void repairedLegsMatchFreshSearches() {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(80, 70, 7));
+			int[] controls = TestMaps.controls(costs, 6, 7);
+			Replanner replanner = new Replanner(costs, controls);
+			check(costs, controls, replanner);
+
+			Random random = new Random(7);
+			for(int batch=0; batch<12; batch++) {
+				List<CellChange> changes = new ArrayList<CellChange>();
+				// A patch of acres around a point on a leg, so most batches change a path
+				ArrayList<Node> path = replanner.leg(random.nextInt(replanner.legs())).path();
+				Node at = path.isEmpty() ? new Node(random.nextInt(costs.width), random.nextInt(costs.height), 0, 0, null)
+						: path.get(random.nextInt(path.size()));
+				for(int k=0; k<20; k++) {
+					int x = Math.max(0, Math.min(costs.width - 1, at.x + random.nextInt(7) - 3));
+					int y = Math.max(0, Math.min(costs.height - 1, at.y + random.nextInt(7) - 3));
+					if(random.nextInt(3) == 0) {
+						changes.add(CellChange.elevation(x, y, costs.elGrid.get(x, y) + (random.nextFloat() * 6) - 3));
+					} else {
+						changes.add(CellChange.terrain(x, y, CLASSES[random.nextInt(CLASSES.length)]));
+					}
+				}
+				replanner.apply(changes);
+				check(costs, controls, replanner);
+			}
+		}
+
+		@Test
+		void unknownAcresMatchFreshSearches() {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(60, 50, 8));
+			for(int y=10; y<40; y++) {
+				for(int x=5; x<55; x++) {
+					if(TerrainGrid.PASSABLE[costs.terrain.get(x, y)]) {
+						costs.terrain.set(x, y, TerrainGrid.UNKNOWN);
+					}
+				}
+			}
+			costs = new EdgeCostTable(costs.elGrid, costs.terrain);
+			int[] controls = TestMaps.controls(costs, 8, 8);
+			Replanner replanner = new Replanner(costs, controls);
+			check(costs, controls, replanner);
+
+			// Ground and water dropped into the unknown acres, then unknown acres over the rest
+			Random random = new Random(8);
+			for(int batch=0; batch<6; batch++) {
+				List<CellChange> changes = new ArrayList<CellChange>();
+				for(int k=0; k<30; k++) {
+					int x = random.nextInt(costs.width);
+					int y = random.nextInt(costs.height);
+					byte c = (batch < 3) ? CLASSES[random.nextInt(CLASSES.length)] : TerrainGrid.UNKNOWN;
+					changes.add(CellChange.terrain(x, y, c));
+				}
+				replanner.apply(changes);
+				check(costs, controls, replanner);
+			}
+		}
+
+		@Test
+		void unknownClassIsRefused() {
+			EdgeCostTable costs = new EdgeCostTable(TestMaps.synthetic(40, 40, 9));
+			int[] controls = TestMaps.controls(costs, 4, 9);
+			Replanner replanner = new Replanner(costs, controls);
+			byte[] before = costs.terrain.flat().clone();
+			float[] heights = costs.elGrid.values.clone();
+
+			for(byte c : new byte[] {(byte) TerrainGrid.CLASSES, -2, Byte.MAX_VALUE}) {
+				List<CellChange> changes = new ArrayList<CellChange>();
+				changes.add(new CellChange(3, 4, TerrainGrid.WATER, 120));
+				changes.add(CellChange.terrain(5, 6, c));
+				assertThrows(IllegalArgumentException.class, () -> replanner.apply(changes));
+				assertArrayEquals(before, costs.terrain.flat());
+				assertArrayEquals(heights, costs.elGrid.values);
+			}
+			check(costs, controls, replanner);
+		}
+
+		/*
+		 * Compares every leg with A* over a new table for copies of the changed terrain and elevations
+		 */
+		private static void check(EdgeCostTable costs, int[] controls, Replanner replanner) {
+			EdgeCostTable fresh = new EdgeCostTable(TestMaps.copy(costs.elGrid), costs.terrain.copy());
+			for(int i=0; i<replanner.legs(); i++) {
+				int x1 = controls[i*2];
+				int y1 = controls[(i*2)+1];
+				int gx = controls[(i*2)+2];
+				int gy = controls[(i*2)+3];
+				IncrementalSearch leg = replanner.leg(i);
+				double expected = TestMaps.shortest(fresh, x1, y1, gx, gy);
+				TestMaps.assertSameCost(expected, TestMaps.cost(fresh, leg.path(), x1, y1, gx, gy), "Leg " + i);
+				TestMaps.assertSameCost(expected, leg.cost(), "Travel time of leg " + i);
+			}
+		}
+}
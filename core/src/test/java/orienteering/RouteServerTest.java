@@ -0,0 +1,173 @@
+package orienteering;
+
+/**
+ * Class RouteServerTest starts the server on a free port of localhost for
+ * a synthetic map written to files, and checks that legs and courses come
+ * back as fast as the forward search in each season, and that bad requests
+ * are answered with JSON errors that stay valid whatever the request held.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class RouteServerTest {
+
+		private static final Pattern COST = Pattern.compile("\"cost\":([0-9.]+|null)");
+		private static final Pattern ACRE = Pattern.compile("\\[(\\d+),(\\d+)\\]");
+
+		@TempDir
+		static Path folder;
+
+		private static Path terrainFile;
+		private static EdgeCostTable summer;
+		private static RouteServer server;
+		private static HttpClient client;
+
+		@BeforeAll
+		static void start() throws Exception {
+			if(System.getProperty("sun.net.httpserver.nodelay") == null) {
+				System.setProperty("sun.net.httpserver.nodelay", "true");
+			}
+			terrainFile = folder.resolve("route-server-test.png");
+			Path elevationFile = folder.resolve("route-server-test.txt");
+			TestMaps.write(TestMaps.synthetic(70, 60, 41), terrainFile, elevationFile);
+			TestMaps.forget(terrainFile);
+			server = new RouteServer(terrainFile.toString(), elevationFile.toString(), 0, 2, 4);
+			server.start();
+			summer = Orienteering.loadCosts(terrainFile.toString(), elevationFile.toString(), "summer");
+			client = HttpClient.newHttpClient();
+		}
+
+		@AfterAll
+		static void stop() throws Exception {
+			server.stop();
+			TestMaps.forget(terrainFile);
+		}
+
+		@Test
+		void legsMatchForward() throws Exception {
+			int[] ends = TestMaps.controls(summer, 12, 41);
+			for(String season : RouteServer.SEASONS) {
+				EdgeCostTable costs = season.equals("summer") ? summer : EdgeCostTable.season(summer, season);
+				for(int i=0; i+3<ends.length; i+=4) {
+					String leg = season + " leg " + (i / 4);
+					HttpResponse<String> response = get("/route?season=" + season + "&from=" + ends[i] + "," + ends[i+1]
+							+ "&to=" + ends[i+2] + "," + ends[i+3]);
+					assertEquals(200, response.statusCode(), leg);
+					double expected = TestMaps.shortest(costs, ends[i], ends[i+1], ends[i+2], ends[i+3]);
+					assertCost(expected, response.body(), leg);
+
+					ArrayList<int[]> path = acres(response.body());
+					if(!Double.isInfinite(expected)) {
+						assertEquals(ends[i], path.get(0)[0], leg);
+						assertEquals(ends[i+1], path.get(0)[1], leg);
+						assertEquals(ends[i+2], path.get(path.size() - 1)[0], leg);
+						assertEquals(ends[i+3], path.get(path.size() - 1)[1], leg);
+					}
+				}
+			}
+		}
+
+		@Test
+		void courseAddsUpLegs() throws Exception {
+			int[] controls = TestMaps.controls(summer, 4, 42);
+			StringBuilder course = new StringBuilder();
+			double expected = 0;
+			for(int i=0; i<controls.length; i+=2) {
+				course.append(controls[i]).append(' ').append(controls[i+1]).append('\n');
+				if(i > 0) {
+					expected += TestMaps.shortest(summer, controls[i-2], controls[i-1], controls[i], controls[i+1]);
+				}
+			}
+			HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/course?season=summer"))
+					.POST(HttpRequest.BodyPublishers.ofString(course.toString())).build(), HttpResponse.BodyHandlers.ofString());
+			assertEquals(200, response.statusCode());
+			// The total comes last, after every leg
+			Matcher m = COST.matcher(response.body());
+			String total = null;
+			while(m.find()) {
+				total = m.group(1);
+			}
+			assertCost(expected, "\"cost\":" + total, "Course");
+		}
+
+		@Test
+		void badRequestsAnsweredWithJson() throws Exception {
+			HttpResponse<String> response = get("/route?season=%0Ax%22%5C&from=1,1&to=2,2");
+			assertEquals(400, response.statusCode());
+			assertEquals("{\"error\":\"Unknown season \\u000ax\\\"\\\\\"}", response.body());
+
+			response = get("/route?to=2,2");
+			assertEquals(400, response.statusCode());
+			assertEquals("{\"error\":\"Missing from\"}", response.body());
+
+			response = get("/route?from=1,1&to=" + summer.width + ",2");
+			assertEquals(400, response.statusCode());
+			assertEquals("{\"error\":\"" + summer.width + ",2 is off the map\"}", response.body());
+
+			response = client.send(HttpRequest.newBuilder(uri("/route")).POST(HttpRequest.BodyPublishers.noBody()).build(),
+					HttpResponse.BodyHandlers.ofString());
+			assertEquals(405, response.statusCode());
+			assertEquals("GET", response.headers().firstValue("Allow").orElse(null));
+
+			response = get("/health");
+			assertEquals(200, response.statusCode());
+		}
+
+		@Test
+		void errorWithoutMessageIsBadRequest() {
+			assertEquals("{\"error\":\"Bad request\"}", RouteServer.error(null));
+			assertEquals("{\"error\":\"\\u0000\\u001f\\u0009\\\\\"}", RouteServer.error("\u0000\u001f\t\\"));
+		}
+
+		/*
+		 * Returns the response to a GET of the path on the server
+		 */
+		private static HttpResponse<String> get(String path) throws Exception {
+			return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+		}
+
+		/*
+		 * Returns the address of the path on the server
+		 */
+		private static URI uri(String path) {
+			return URI.create("http://localhost:" + server.port() + path);
+		}
+
+		/*
+		 * Checks the first travel time of the JSON against the expected one, which the server rounds to 4 places
+		 */
+		private static void assertCost(double expected, String json, String leg) {
+			Matcher m = COST.matcher(json);
+			assertTrue(m.find(), leg + " has no cost in " + json);
+			if(Double.isInfinite(expected)) {
+				assertEquals("null", m.group(1), leg);
+			} else {
+				assertEquals(expected, Double.parseDouble(m.group(1)), 0.00005, leg);
+			}
+		}
+
+		/*
+		 * Returns the acres of the path in the JSON, from the start on
+		 */
+		private static ArrayList<int[]> acres(String json) {
+			ArrayList<int[]> acres = new ArrayList<int[]>();
+			Matcher m = ACRE.matcher(json.substring(json.indexOf("\"path\":")));
+			while(m.find()) {
+				acres.add(new int[] {Integer.parseInt(m.group(1)), Integer.parseInt(m.group(2))});
+			}
+			return acres;
+		}
+}
@@ -0,0 +1,76 @@
+package orienteering;
+
+/**
+ * Class SeasonOverlayTest checks that a season table patching the summer
+ * table reads exactly as a full table built from a changed copy of the
+ * terrain: the same class for every acre and the same bits for every
+ * edge cost, and that the summer table it shares cannot change under it.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SeasonOverlayTest {
+
+		@Test
+		void shippedSeasonsMatchFullTables() throws Exception {
+			MapModel summer = new MapModel(TestMaps.shippedTerrain(), TestMaps.shippedElevation());
+			check(summer);
+		}
+
+		@Test
+		void syntheticSeasonsMatchFullTables() {
+			check(TestMaps.synthetic(150, 140, 3));
+		}
+
+		@Test
+		void sharedSummerTableRefusesChanges() {
+			EdgeCostTable summer = new EdgeCostTable(TestMaps.synthetic(60, 60, 4));
+			EdgeCostTable winter = EdgeCostTable.season(summer, "winter");
+			assertTrue(summer.isShared());
+			assertThrows(IllegalStateException.class, () -> summer.refresh(10, 10));
+
+			int[] course = TestMaps.controls(summer, 2, 4);
+			assertThrows(IllegalStateException.class, () -> new Replanner(summer, course)
+					.apply(List.of(CellChange.terrain(5, 5, TerrainGrid.WATER))));
+			// The whole batch is refused, so the terrain change before the elevation change is not made either
+			float elevation = summer.elGrid.get(5, 5);
+			byte terrain = winter.terrain.get(6, 6);
+			Replanner replanner = new Replanner(winter, course);
+			assertThrows(IllegalArgumentException.class, () -> replanner.apply(List.of(
+					CellChange.terrain(6, 6, TerrainGrid.ROUGH_MEADOW), CellChange.elevation(5, 5, elevation + 10))));
+			assertEquals(elevation, summer.elGrid.get(5, 5));
+			assertEquals(terrain, winter.terrain.get(6, 6));
+		}
+
+		/*
+		 * Compares the patched table of each season with a full table of the summer terrain changed in place
+		 */
+		private static void check(MapModel summerMap) {
+			EdgeCostTable summer = new EdgeCostTable(summerMap);
+			for(String season : new String[] {"fall", "winter", "spring"}) {
+				EdgeCostTable patched = EdgeCostTable.season(summer, season);
+				TerrainGrid terrain = summerMap.terrain.copy();
+				Orienteering.applySeason(terrain, summerMap.elGrid, season);
+				EdgeCostTable full = new EdgeCostTable(summerMap.elGrid, terrain);
+
+				int changed = 0;
+				for(int y=0; y<terrain.height; y++) {
+					for(int x=0; x<terrain.width; x++) {
+						assertEquals(terrain.get(x, y), patched.terrain.get(x, y), season + " class at " + x + ", " + y);
+						if(terrain.get(x, y) != summerMap.terrain.get(x, y)) {
+							changed++;
+						}
+						for(int d=0; d<8; d++) {
+							assertEquals(Float.floatToRawIntBits(full.cost(x, y, d)), Float.floatToRawIntBits(patched.cost(x, y, d)),
+									season + " cost at " + x + ", " + y + " in direction " + d);
+						}
+					}
+				}
+				assertTrue(changed > 0, season + " changes nothing on the map");
+			}
+		}
+}
@@ -0,0 +1,63 @@
+package orienteering;
+
+/**
+ * Class SeasonTransformTest checks that the season passes give the same
+ * terrain however the map is cut into bands, down to bands much thinner
+ * than the reach of ice and floods, as one search over the whole map.
+ */
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+
+class SeasonTransformTest {
+
+		// Band heights tried against the whole map in one band
+		private static final int[] BANDS = {1, 5, 16, SeasonTransform.BAND_ROWS};
+
+		@Test
+		void bandedWinterMatchesWholeMap() throws Exception {
+			check(TestMaps.shippedTerrain(), null, "winter");
+			check(TestMaps.synthetic(90, 300, 1).terrain, null, "winter");
+		}
+
+		@Test
+		void bandedSpringMatchesWholeMap() throws Exception {
+			check(TestMaps.shippedTerrain(), TestMaps.shippedElevation(), "spring");
+			MapModel map = TestMaps.synthetic(90, 300, 2);
+			check(map.terrain, map.elGrid, "spring");
+		}
+
+		@Test
+		void bandedFallMatchesWholeMap() throws Exception {
+			check(TestMaps.shippedTerrain(), null, "fall");
+		}
+
+		/*
+		 * Runs the season over the whole map in one band, then in each of the band heights, and compares
+		 */
+		private static void check(TerrainGrid summer, ElevationGrid elGrid, String season) {
+			TerrainGrid whole = summer.copy();
+			run(whole, elGrid, season, whole.height);
+			assertFalse(Arrays.equals(summer.flat(), whole.flat()), season + " changes nothing on the map");
+			for(int rows : BANDS) {
+				TerrainGrid banded = summer.copy();
+				run(banded, elGrid, season, rows);
+				assertArrayEquals(whole.flat(), banded.flat(), season + " in bands of " + rows + " rows");
+			}
+		}
+
+		/*
+		 * Runs the named season over the terrain in bands of the given number of rows
+		 */
+		private static void run(TerrainGrid terrain, ElevationGrid elGrid, String season, int rows) {
+			if(season.equals("fall")) {
+				SeasonTransform.fall(terrain, rows);
+			} else if(season.equals("winter")) {
+				SeasonTransform.winter(terrain, rows);
+			} else {
+				SeasonTransform.spring(terrain, elGrid, rows);
+			}
+		}
+}
@@ -0,0 +1,199 @@
+package orienteering;
+
+/**
+ * Class TestMaps makes the maps the tests search: small synthetic maps
+ * built from a seed, with forest, meadow and footpaths, lakes, thickets
+ * and a road over gently rolling ground, and the shipped map in data/.
+ * It also checks paths and works out the shortest travel times the
+ * other searches are compared with, and writes synthetic maps to files
+ * for the tests of programs that load them.
+ */
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import javax.imageio.ImageIO;
+
+final class TestMaps {
+
+		// Classes the ground of a synthetic map is drawn from
+		private static final byte[] GROUND = {
+				TerrainGrid.OPEN_LAND, TerrainGrid.ROUGH_MEADOW, TerrainGrid.EASY_FOREST, TerrainGrid.EASY_FOREST,
+				TerrainGrid.SLOW_FOREST, TerrainGrid.WALK_FOREST, TerrainGrid.FOOTPATH
+		};
+
+		// Folder of the shipped map, seen from the core module the tests run in
+		static final Path DATA = Paths.get("..", "data");
+
+		private TestMaps() {
+		}
+
+		/*
+		 * Returns a synthetic map of the given size, the same for the same seed
+		 */
+		static MapModel synthetic(int width, int height, long seed) {
+			Random random = new Random(seed);
+			byte[] classes = new byte[width * height];
+			for(int i=0; i<classes.length; i++) {
+				classes[i] = GROUND[random.nextInt(GROUND.length)];
+			}
+			TerrainGrid terrain = new TerrainGrid(width, height, classes);
+			int acres = width * height;
+			blobs(terrain, random, Math.max(1, acres / 600), TerrainGrid.WATER, 6);
+			blobs(terrain, random, Math.max(1, acres / 900), TerrainGrid.IMPASSABLE_VEGETATION, 3);
+			int road = random.nextInt(height);
+			for(int x=0; x<width; x++) {
+				terrain.set(x, road, TerrainGrid.PAVED_ROAD);
+			}
+
+			float[] values = new float[acres];
+			for(int y=0; y<height; y++) {
+				for(int x=0; x<width; x++) {
+					values[(y * width) + x] = (float) (100 + (4 * Math.sin(x / 9.0)) + (3 * Math.cos(y / 7.0))
+							+ (0.4 * random.nextDouble()));
+				}
+			}
+			return new MapModel(terrain, new ElevationGrid(width, height, values));
+		}
+
+		/*
+		 * Paints count round patches of class c with radius up to r at random places
+		 */
+		private static void blobs(TerrainGrid terrain, Random random, int count, byte c, int r) {
+			for(int k=0; k<count; k++) {
+				int cx = random.nextInt(terrain.width);
+				int cy = random.nextInt(terrain.height);
+				int radius = 1 + random.nextInt(r);
+				for(int y=Math.max(0, cy-radius); y<=Math.min(terrain.height-1, cy+radius); y++) {
+					for(int x=Math.max(0, cx-radius); x<=Math.min(terrain.width-1, cx+radius); x++) {
+						if(((x-cx)*(x-cx)) + ((y-cy)*(y-cy)) <= radius*radius) {
+							terrain.set(x, y, c);
+						}
+					}
+				}
+			}
+		}
+
+		/*
+		 * Returns the shipped terrain as summer
+		 */
+		static TerrainGrid shippedTerrain() throws IOException {
+			return TerrainGrid.read(DATA.resolve("terrain.png"));
+		}
+
+		/*
+		 * Returns the shipped elevations
+		 */
+		static ElevationGrid shippedElevation() throws IOException {
+			return ElevationParser.load(DATA.resolve("mpp.txt"));
+		}
+
+		/*
+		 * Writes the terrain of the map as a PNG image and its elevations as text, the way the shipped map
+		 * is given, to the two files
+		 */
+		static void write(MapModel map, Path terrainFile, Path elevationFile) throws IOException {
+			BufferedImage image = new BufferedImage(map.width, map.height, BufferedImage.TYPE_INT_ARGB);
+			for(int y=0; y<map.height; y++) {
+				for(int x=0; x<map.width; x++) {
+					image.setRGB(x, y, TerrainGrid.COLOR[map.terrain.get(x, y)]);
+				}
+			}
+			ImageIO.write(image, "PNG", terrainFile.toFile());
+			try(Writer out = Files.newBufferedWriter(elevationFile)) {
+				for(int y=0; y<map.height; y++) {
+					for(int x=0; x<map.width; x++) {
+						out.write("   " + map.elGrid.get(x, y));
+					}
+					out.write('\n');
+				}
+			}
+		}
+
+		/*
+		 * Deletes the edge costs and landmarks the command line saved in the working folder for a terrain file
+		 */
+		static void forget(Path terrainFile) throws IOException {
+			for(String season : RouteServer.SEASONS) {
+				for(String kind : new String[] {".cache", ".landmarks"}) {
+					Files.deleteIfExists(Paths.get(terrainFile.getFileName() + "." + season + kind));
+				}
+			}
+		}
+
+		/*
+		 * Returns a copy of the elevations that can be changed independently
+		 */
+		static ElevationGrid copy(ElevationGrid elGrid) {
+			return new ElevationGrid(elGrid.width, elGrid.height, Arrays.copyOf(elGrid.values, elGrid.values.length));
+		}
+
+		/*
+		 * Returns count x, y pairs of passable acres at random, the same for the same seed
+		 */
+		static int[] controls(EdgeCostTable costs, int count, long seed) {
+			Random random = new Random(seed);
+			int[] controls = new int[count * 2];
+			for(int i=0; i<count; i++) {
+				int x;
+				int y;
+				do {
+					x = random.nextInt(costs.width);
+					y = random.nextInt(costs.height);
+				} while(!TerrainGrid.PASSABLE[costs.terrain.get(x, y)]);
+				controls[i*2] = x;
+				controls[(i*2)+1] = y;
+			}
+			return controls;
+		}
+
+		/*
+		 * Returns the shortest travel time from x1, y1 to gx, gy by A* with the distance heuristic, which
+		 * never overestimates, or infinity if the goal cannot be reached
+		 */
+		static double shortest(EdgeCostTable costs, int x1, int y1, int gx, int gy) {
+			ArrayList<Node> path = Orienteering.aStarSearch(costs, new DistanceHeuristic(costs.terrain), x1, y1, gx, gy,
+					Orienteering.FORWARD, null);
+			return cost(costs, path, x1, y1, gx, gy);
+		}
+
+		/*
+		 * Checks that the path runs from gx, gy back to x1, y1 in steps between neighbouring acres and returns
+		 * its travel time added up edge by edge, or infinity if it is empty
+		 */
+		static double cost(EdgeCostTable costs, ArrayList<Node> path, int x1, int y1, int gx, int gy) {
+			if(path.isEmpty()) {
+				return Double.POSITIVE_INFINITY;
+			}
+			Node goal = path.get(0);
+			Node start = path.get(path.size() - 1);
+			assertTrue(goal.x == gx && goal.y == gy, "Path ends at " + goal.x + ", " + goal.y);
+			assertTrue(start.x == x1 && start.y == y1, "Path starts at " + start.x + ", " + start.y);
+			double g = 0;
+			for(int i=path.size()-1; i>0; i--) {
+				Node from = path.get(i);
+				Node to = path.get(i-1);
+				g += costs.cost(from.x, from.y, BidirectionalSearch.direction(to.x - from.x, to.y - from.y));
+			}
+			return g;
+		}
+
+		/*
+		 * Checks that two travel times agree to within what adding up floats in another order can change
+		 */
+		static void assertSameCost(double expected, double actual, String leg) {
+			if(Double.isInfinite(expected)) {
+				assertEquals(expected, actual, leg);
+				return;
+			}
+			assertEquals(expected, actual, 1e-9 * Math.max(1, expected), leg);
+		}
+}